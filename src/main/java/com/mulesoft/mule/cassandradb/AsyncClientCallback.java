@@ -0,0 +1,42 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.thrift.TException;
+import org.apache.thrift.async.AsyncMethodCallback;
+
+/**
+ * Non-blocking call performed with an asynchronous Thrift client.
+ *
+ * @param <C> Type of the Thrift method call, such as Cassandra.AsyncClient.get_call.
+ * @param <T> Type of the call result.
+ */
+interface AsyncClientCallback<C, T> {
+
+    /**
+     * Starts the call. The handler is notified by the selector thread once the response has been read.
+     *
+     * @param client  An idle client bound to the current keyspace.
+     * @param handler Handler to pass to the client method.
+     * @throws TException if the call could not be started.
+     */
+    void start(Cassandra.AsyncClient client, AsyncMethodCallback<C> handler) throws TException;
+
+    /**
+     * Reads the result of a completed call.
+     *
+     * @param call The completed Thrift method call.
+     * @return the result of the call.
+     * @throws Exception the exception declared by the Thrift method.
+     */
+    T getResult(C call) throws Exception;
+}
@@ -0,0 +1,629 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.cassandra.thrift.AuthenticationRequest;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.thrift.async.AsyncMethodCallback;
+import org.apache.thrift.async.TAsyncClientManager;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.transport.TNonblockingSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.mule.api.ConnectionException;
+import org.mule.api.ConnectionExceptionCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link AsyncClientCallback}s on non-blocking Thrift connections. Every connection is driven by the selector
+ * thread of a single shared TAsyncClientManager, so the number of requests in flight is not bound to the number of
+ * threads.
+ * <p/>
+ * A Thrift AsyncClient only handles one call at a time. Up to maxConnectionsPerHost clients are opened per host;
+ * requests that arrive while every client is busy are queued and started as soon as a client becomes idle.
+ * <p/>
+ * Hosts share their {@link HostHealth} with the blocking pool: a host excluded by either path receives no
+ * asynchronous request until its probe succeeds, and every asynchronous outcome counts towards its exclusion.
+ * Idempotent calls that fail are retried on another host when the retry policy and the retry budget allow it.
+ */
+class AsyncRequestExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRequestExecutor.class);
+
+    private final CassandraDBConnectionPool pool;
+
+    private final ConcurrentMap<String, AsyncHostPool> hostPools = new ConcurrentHashMap<String, AsyncHostPool>();
+
+    private final Queue<AsyncRequest<?, ?>> pending = new ConcurrentLinkedQueue<AsyncRequest<?, ?>>();
+
+    private final Set<AsyncRequest<?, ?>> inFlight =
+            Collections.newSetFromMap(new ConcurrentHashMap<AsyncRequest<?, ?>, Boolean>());
+
+    private final AtomicInteger nextHost = new AtomicInteger();
+
+    private final TBinaryProtocol.Factory protocolFactory = new TBinaryProtocol.Factory();
+
+    private int port = 9160;
+
+    private String username;
+
+    private String password;
+
+    private int maxConnectionsPerHost = 8;
+
+    private long requestTimeout = 10000;
+
+    private TokenAwareRouter router;
+
+    private RetryPolicy retryPolicy;
+
+    private RetryBudget retryBudget;
+
+    private TAsyncClientManager manager;
+
+    /**
+     * Starts the retries once their delay is over, as the selector thread must not wait.
+     */
+    private ScheduledExecutorService retryTimer;
+
+    private volatile boolean open;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param pool Blocking connection pool that provides the hosts and the current keyspace.
+     */
+    AsyncRequestExecutor(CassandraDBConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Starts the selector thread. Connections are opened on demand.
+     *
+     * @throws ConnectionException if the selector cannot be opened.
+     */
+    void open() throws ConnectionException {
+        try {
+            manager = new TAsyncClientManager();
+        } catch (IOException e) {
+            throw new ConnectionException(ConnectionExceptionCode.UNKNOWN, null,
+                    "Unable to start the asynchronous client manager", e);
+        }
+        retryTimer = Executors.newSingleThreadScheduledExecutor(new CassandraDBThreadFactory("async-retry"));
+        open = true;
+    }
+
+    /**
+     * Starts an idempotent callback on an idle client, connected to a replica of the row key when token aware
+     * routing is enabled, or queues it until a client is available.
+     *
+     * @param routingKey The row key the call reads or writes, or null when it is not bound to a single row.
+     * @param callback   The Thrift call to perform.
+     * @param <C>        Type of the Thrift method call.
+     * @param <T>        Type of the call result.
+     * @return a future completed by the selector thread with the result, or with a CassandraDBException.
+     */
+    <C, T> ListenableFuture<T> execute(ByteBuffer routingKey, AsyncClientCallback<C, T> callback) {
+        return execute(routingKey, true, callback);
+    }
+
+    /**
+     * Starts the callback on an idle client, or queues it until a client is available. A failed attempt is retried
+     * on another host when the call is idempotent and the retry policy and the retry budget allow it.
+     *
+     * @param routingKey The row key the call reads or writes, or null when it is not bound to a single row.
+     * @param idempotent Whether the call can safely be applied twice.
+     * @param callback   The Thrift call to perform.
+     * @param <C>        Type of the Thrift method call.
+     * @param <T>        Type of the call result.
+     * @return a future completed by the selector thread with the result, or with a CassandraDBException.
+     */
+    <C, T> ListenableFuture<T> execute(ByteBuffer routingKey, boolean idempotent, AsyncClientCallback<C, T> callback) {
+        SettableFuture<T> future = SettableFuture.create();
+        if (!open) {
+            future.setException(new CassandraDBException("The asynchronous executor is closed"));
+            return future;
+        }
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
+        submit(new AsyncRequest<C, T>(routingKey, idempotent, callback, future));
+        return future;
+    }
+
+    /**
+     * Starts a request on a client of a replica of its row key, or of any host, preferring another host than the
+     * one its previous attempt failed on.
+     */
+    private void submit(AsyncRequest<?, ?> request) {
+        List<String> preferredHosts = router != null && request.routingKey != null
+                ? router.getReplicas(request.routingKey) : Collections.<String>emptyList();
+        AsyncPooledClient client = acquire(preferredHosts, request.failedHost);
+        if (client == null && request.failedHost != null) {
+            client = acquire(preferredHosts, null);
+        }
+        if (client != null) {
+            dispatch(request, client);
+        } else {
+            pending.offer(request);
+            drainPending();
+        }
+    }
+
+    /**
+     * Fails the queued and running requests, closes every connection and stops the selector thread.
+     */
+    void close() {
+        open = false;
+        if (retryTimer != null) {
+            retryTimer.shutdownNow();
+        }
+        if (manager != null) {
+            manager.stop();
+        }
+        for (AsyncHostPool hostPool : hostPools.values()) {
+            AsyncPooledClient client = hostPool.idle.poll();
+            while (client != null) {
+                client.close();
+                client = hostPool.idle.poll();
+            }
+        }
+        CassandraDBException closed = new CassandraDBException("The asynchronous executor was closed");
+        for (AsyncRequest<?, ?> request : inFlight) {
+            request.future.setException(closed);
+            if (request.client != null) {
+                request.client.close();
+            }
+        }
+        inFlight.clear();
+        failPending(closed);
+    }
+
+    /**
+     * @return whether the executor accepts requests.
+     */
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Takes an idle client of one of the preferred hosts, then of any host, opening a new one when a host has not
+     * reached maxConnectionsPerHost yet. Hosts excluded by their circuit breaker are skipped, unless every host is.
+     *
+     * @param excludedHost Host that must not be used, or null.
+     * @return an idle client, or null when every host is saturated, excluded or unreachable.
+     */
+    private AsyncPooledClient acquire(List<String> preferredHosts, String excludedHost) {
+        List<String> hosts = pool.getHosts();
+        long now = System.currentTimeMillis();
+        boolean allExcluded = true;
+        for (String host : hosts) {
+            HostHealth health = pool.getHealth(host);
+            allExcluded &= health != null && !health.isAvailable(now);
+        }
+
+        for (String host : preferredHosts) {
+            AsyncPooledClient client = host.equals(excludedHost) ? null : take(host, true, allExcluded);
+            if (client != null) {
+                return client;
+            }
+        }
+
+        int size = hosts.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = (nextHost.getAndIncrement() & Integer.MAX_VALUE) % size;
+        for (boolean allowOpen : new boolean[]{false, true}) {
+            for (int i = 0; i < size; i++) {
+                String host = hosts.get((start + i) % size);
+                AsyncPooledClient client = host.equals(excludedHost) ? null : take(host, allowOpen, allExcluded);
+                if (client != null) {
+                    return client;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a client of the host if its circuit breaker lets a request through, claiming the probe of an open
+     * circuit for the request.
+     *
+     * @param allExcluded Whether every host is excluded, in which case they are used anyway.
+     */
+    private AsyncPooledClient take(String host, boolean allowOpen, boolean allExcluded) {
+        HostHealth health = pool.getHealth(host);
+        long now = System.currentTimeMillis();
+        if (health != null && !allExcluded && !health.isAvailable(now)) {
+            return null;
+        }
+        AsyncHostPool hostPool = getHostPool(host);
+        AsyncPooledClient client = take(hostPool, allowOpen);
+        if (client != null && health != null && !allExcluded && !health.allowRequest(now)) {
+            // Another request took the probe
+            hostPool.idle.offer(client);
+            return null;
+        }
+        return client;
+    }
+
+    private AsyncPooledClient take(AsyncHostPool hostPool, boolean allowOpen) {
+        AsyncPooledClient client = hostPool.idle.poll();
+        if (client != null || !allowOpen) {
+            return client;
+        }
+
+        int opened = hostPool.opened.get();
+        while (opened < maxConnectionsPerHost) {
+            if (hostPool.opened.compareAndSet(opened, opened + 1)) {
+                try {
+                    client = openClient(hostPool.host);
+                    LOGGER.debug("Opened asynchronous connection to " + hostPool.host + ":" + port);
+                    return client;
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to open an asynchronous connection to Cassandra host " + hostPool.host, e);
+                    hostPool.opened.decrementAndGet();
+                    pool.recordOutcome(hostPool.host, CassandraDBConnectionPool.Outcome.BROKEN, 0);
+                    return null;
+                }
+            }
+            opened = hostPool.opened.get();
+        }
+        return null;
+    }
+
+    /**
+     * Opens a new non-blocking connection to a host, driven by the selector thread.
+     *
+     * @param host Host name or IP address of the node.
+     * @return the new client, neither logged in nor bound to a keyspace.
+     * @throws IOException if the connection cannot be started.
+     */
+    AsyncPooledClient openClient(String host) throws IOException {
+        TNonblockingSocket transport = new TNonblockingSocket(host, port);
+        Cassandra.AsyncClient asyncClient = new Cassandra.AsyncClient(protocolFactory, manager, transport);
+        if (requestTimeout > 0) {
+            asyncClient.setTimeout(requestTimeout);
+        }
+        return new AsyncPooledClient(host, asyncClient, transport);
+    }
+
+    private AsyncHostPool getHostPool(String host) {
+        AsyncHostPool hostPool = hostPools.get(host);
+        if (hostPool == null) {
+            AsyncHostPool created = new AsyncHostPool(host);
+            hostPool = hostPools.putIfAbsent(host, created);
+            if (hostPool == null) {
+                hostPool = created;
+            }
+        }
+        return hostPool;
+    }
+
+    /**
+     * Logs the client in and switches it to the current keyspace when needed, then starts the request.
+     */
+    private <C, T> void dispatch(final AsyncRequest<C, T> request, final AsyncPooledClient client) {
+        if (request.client != client) {
+            request.client = client;
+            request.startedAt = System.currentTimeMillis();
+        }
+        inFlight.add(request);
+        try {
+            if (username != null && password != null && !client.loggedIn) {
+                Map<String, String> credentials = new HashMap<String, String>();
+                credentials.put("user", username);
+                credentials.put("password", password);
+                client.client.login(new AuthenticationRequest(credentials),
+                        new AsyncMethodCallback<Cassandra.AsyncClient.login_call>() {
+                            @Override
+                            public void onComplete(Cassandra.AsyncClient.login_call call) {
+                                try {
+                                    call.getResult();
+                                } catch (Exception e) {
+                                    request.fail(e);
+                                    return;
+                                }
+                                client.loggedIn = true;
+                                dispatch(request, client);
+                            }
+
+                            @Override
+                            public void onError(Exception e) {
+                                request.onError(e);
+                            }
+                        });
+                return;
+            }
+
+            final String keyspace = pool.getKeyspace();
+            if (keyspace != null && !keyspace.equals(client.keyspace)) {
+                client.client.set_keyspace(keyspace, new AsyncMethodCallback<Cassandra.AsyncClient.set_keyspace_call>() {
+                    @Override
+                    public void onComplete(Cassandra.AsyncClient.set_keyspace_call call) {
+                        try {
+                            call.getResult();
+                        } catch (Exception e) {
+                            request.fail(e);
+                            return;
+                        }
+                        client.keyspace = keyspace;
+                        dispatch(request, client);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        request.onError(e);
+                    }
+                });
+                return;
+            }
+
+            request.callback.start(client.client, request);
+        } catch (Exception e) {
+            // The call could not be written: the client is in an unknown state
+            request.onError(e);
+        }
+    }
+
+    /**
+     * Gives a client back, records the outcome of its request against its host and starts the queued requests on
+     * the idle clients.
+     */
+    private void release(AsyncPooledClient client, CassandraDBConnectionPool.Outcome outcome, long latency) {
+        pool.recordOutcome(client.host, outcome, latency);
+        AsyncHostPool hostPool = getHostPool(client.host);
+        if (outcome == CassandraDBConnectionPool.Outcome.BROKEN || !open || client.client.hasError()) {
+            client.close();
+            hostPool.opened.decrementAndGet();
+        } else {
+            hostPool.idle.offer(client);
+        }
+        drainPending();
+    }
+
+    private void drainPending() {
+        while (open && !pending.isEmpty()) {
+            AsyncPooledClient client = acquire(Collections.<String>emptyList(), null);
+            if (client == null) {
+                if (inFlight.isEmpty()) {
+                    // Nothing running will ever free a client: every host refused the connection
+                    failPending(new CassandraDBException("Unable to open an asynchronous connection to "
+                            + pool.getHosts()));
+                }
+                return;
+            }
+            AsyncRequest<?, ?> request = pending.poll();
+            if (request == null) {
+                getHostPool(client.host).idle.offer(client);
+            } else {
+                dispatch(request, client);
+            }
+        }
+    }
+
+    private void failPending(CassandraDBException e) {
+        AsyncRequest<?, ?> request = pending.poll();
+        while (request != null) {
+            request.future.setException(e);
+            request = pending.poll();
+        }
+    }
+
+    /**
+     * Request waiting for, or running on, an asynchronous client. A request waiting to be retried stays in flight,
+     * so closing the executor fails it.
+     */
+    private final class AsyncRequest<C, T> implements AsyncMethodCallback<C> {
+
+        private final ByteBuffer routingKey;
+
+        private final boolean idempotent;
+
+        private final AsyncClientCallback<C, T> callback;
+
+        private final SettableFuture<T> future;
+
+        private volatile AsyncPooledClient client;
+
+        private volatile long startedAt;
+
+        private volatile int attempt = 1;
+
+        /**
+         * Host of the previous attempt when the request is retried.
+         */
+        private volatile String failedHost;
+
+        private AsyncRequest(ByteBuffer routingKey, boolean idempotent, AsyncClientCallback<C, T> callback,
+                             SettableFuture<T> future) {
+            this.routingKey = routingKey;
+            this.idempotent = idempotent;
+            this.callback = callback;
+            this.future = future;
+        }
+
+        @Override
+        public void onComplete(C call) {
+            T result;
+            try {
+                result = callback.getResult(call);
+            } catch (Exception e) {
+                fail(e);
+                return;
+            }
+            inFlight.remove(this);
+            release(client, CassandraDBConnectionPool.Outcome.SUCCESS, System.currentTimeMillis() - startedAt);
+            future.set(result);
+        }
+
+        /**
+         * Fails the attempt with a transport error: the response was not read, or the client timed out.
+         */
+        @Override
+        public void onError(Exception e) {
+            fail(e instanceof TTransportException || e instanceof TProtocolException ? e : new TTransportException(e));
+        }
+
+        /**
+         * Completes the future with the error, or retries the request. Transport errors leave the client in an
+         * unknown state, so it is closed rather than reused.
+         */
+        private void fail(Exception e) {
+            CassandraDBException error = e instanceof CassandraDBException
+                    ? (CassandraDBException) e : new CassandraDBException(e.getMessage(), e);
+            AsyncPooledClient failed = client;
+            CassandraDBConnectionPool.Outcome outcome = RequestExecutor.outcomeOf(error);
+            long latency = System.currentTimeMillis() - startedAt;
+
+            long delay = retryPolicy == null || error.getCause() == null
+                    ? -1 : retryPolicy.getRetryDelay(error.getCause(), attempt, idempotent);
+            if (delay < 0 || !open || (retryBudget != null && !retryBudget.tryWithdraw())) {
+                inFlight.remove(this);
+                release(failed, outcome, latency);
+                future.setException(error);
+                return;
+            }
+            LOGGER.debug("Attempt " + attempt + " failed with " + error.getCause() + "; retrying in " + delay + " ms");
+            attempt++;
+            failedHost = failed.host;
+            client = null;
+            // Still in flight while it waits, so the queued requests are not failed for lack of running ones
+            release(failed, outcome, latency);
+            try {
+                retryTimer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        retry();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException closed) {
+                inFlight.remove(this);
+                future.setException(error);
+            }
+        }
+
+        private void retry() {
+            inFlight.remove(this);
+            if (!open) {
+                future.setException(new CassandraDBException("The asynchronous executor was closed"));
+                return;
+            }
+            submit(this);
+        }
+    }
+
+    /**
+     * Asynchronous client and the state of its connection.
+     */
+    static final class AsyncPooledClient {
+
+        private final String host;
+
+        private final Cassandra.AsyncClient client;
+
+        private final TTransport transport;
+
+        private volatile String keyspace;
+
+        private volatile boolean loggedIn;
+
+        AsyncPooledClient(String host, Cassandra.AsyncClient client, TTransport transport) {
+            this.host = host;
+            this.client = client;
+            this.transport = transport;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (Exception e) {
+                LOGGER.debug("Error closing asynchronous connection to " + host, e);
+            }
+        }
+    }
+
+    /**
+     * Asynchronous clients of a single host.
+     */
+    private static final class AsyncHostPool {
+
+        private final String host;
+
+        private final Queue<AsyncPooledClient> idle = new ConcurrentLinkedQueue<AsyncPooledClient>();
+
+        private final AtomicInteger opened = new AtomicInteger();
+
+        private AsyncHostPool(String host) {
+            this.host = host;
+        }
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @param requestTimeout Milliseconds after which a call that got no response fails; 0 disables the timeout.
+     */
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Enables retries of the idempotent calls.
+     *
+     * @param retryPolicy Policy deciding which failures are retried.
+     * @param retryBudget Budget limiting the number of retries, shared with the blocking executor, or null.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy, RetryBudget retryBudget) {
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Enables token aware routing.
+     *
+     * @param router Router that knows the replicas of the row keys.
+     */
+    public void setRouter(TokenAwareRouter router) {
+        this.router = router;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Mutation;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when some of the sub-batches of a split batch mutate failed. The other sub-batches were written, so only
+ * the failed ones need to be sent again.
+ */
+public class BatchMutateException extends CassandraDBException {
+
+    private final int batchCount;
+
+    private final List<Map<ByteBuffer, Map<String, List<Mutation>>>> failedBatches;
+
+    private final List<Throwable> causes;
+
+    /**
+     * Constructs a new exception for the failed sub-batches.
+     *
+     * @param batchCount    the number of sub-batches the batch was split into.
+     * @param failedBatches the mutations of the failed sub-batches.
+     * @param causes        the failure of each failed sub-batch, in the same order.
+     */
+    public BatchMutateException(int batchCount, List<Map<ByteBuffer, Map<String, List<Mutation>>>> failedBatches,
+                                List<Throwable> causes) {
+        super(message(batchCount, failedBatches, causes), causes.isEmpty() ? null : causes.get(0));
+        this.batchCount = batchCount;
+        this.failedBatches = Collections.unmodifiableList(failedBatches);
+        this.causes = Collections.unmodifiableList(causes);
+    }
+
+    /**
+     * @return the number of sub-batches the batch was split into.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return the mutations of the failed sub-batches, each one a Map&lt;ByteBuffer, Map&lt;String,
+     * List&lt;Mutation&gt;&gt;&gt; that can be given to batch-mutable again.
+     */
+    public List<Map<ByteBuffer, Map<String, List<Mutation>>>> getFailedBatches() {
+        return failedBatches;
+    }
+
+    /**
+     * @return the failure of each failed sub-batch, in the order of getFailedBatches.
+     */
+    public List<Throwable> getCauses() {
+        return causes;
+    }
+
+    private static String message(int batchCount, List<Map<ByteBuffer, Map<String, List<Mutation>>>> failedBatches,
+                                  List<Throwable> causes) {
+        StringBuilder message = new StringBuilder();
+        message.append(failedBatches.size()).append(" of ").append(batchCount).append(" batches failed");
+        for (int i = 0; i < failedBatches.size(); i++) {
+            message.append(i == 0 ? ": " : "; ").append(failedBatches.get(i).size()).append(" rows, ")
+                    .append(causes.get(i));
+        }
+        return message.toString();
+    }
+}
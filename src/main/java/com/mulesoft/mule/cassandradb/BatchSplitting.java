@@ -0,0 +1,199 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Deletion;
+import org.apache.cassandra.thrift.Mutation;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Settings of split batch mutates: a batch holding more than maxMutations mutations or an estimated maxBytes bytes
+ * is split into sub-batches under both limits, which are sent in parallel instead of as one request that may exceed
+ * the frame size of the server or keep a coordinator busy for seconds.
+ * <p/>
+ * The mutations of a row are kept in the same sub-batch unless the row alone exceeds the limits.
+ */
+class BatchSplitting extends ParallelSplitting {
+
+    /**
+     * Estimated size of a mutation besides its columns, and of a row besides its key.
+     */
+    private static final int OVERHEAD = 32;
+
+    private final int maxMutations;
+
+    private final long maxBytes;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param maxMutations Maximum number of mutations per request; 0 disables the limit.
+     * @param maxBytes     Maximum estimated size of a request in bytes; 0 disables the limit.
+     * @param parallelism  Maximum number of sub-batches of a batch sent at the same time.
+     */
+    BatchSplitting(int maxMutations, long maxBytes, int parallelism) {
+        super(parallelism, "batch-chunk");
+        this.maxMutations = maxMutations > 0 ? maxMutations : Integer.MAX_VALUE;
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+    }
+
+    /**
+     * Splits a batch into sub-batches under the limits, keeping together the rows of the same replica.
+     *
+     * @param mutationMap The mutations of the batch, by row key and column family.
+     * @param router      Router locating the replicas of the rows, may be null.
+     * @return the sub-batches, a single one holding the whole batch when it is under the limits.
+     */
+    List<Map<ByteBuffer, Map<String, List<Mutation>>>> split(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+                                                             TokenAwareRouter router) {
+        int totalMutations = 0;
+        long totalBytes = 0;
+        for (Map.Entry<ByteBuffer, Map<String, List<Mutation>>> row : mutationMap.entrySet()) {
+            totalMutations += countMutations(row.getValue());
+            totalBytes += estimateSize(row.getKey(), row.getValue());
+        }
+        if (totalMutations <= maxMutations && totalBytes <= maxBytes) {
+            return Collections.singletonList(mutationMap);
+        }
+
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches =
+                new ArrayList<Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        for (List<ByteBuffer> replicaKeys : groupByReplica(mutationMap.keySet(), router)) {
+            Chunk chunk = new Chunk();
+            for (ByteBuffer key : replicaKeys) {
+                Map<String, List<Mutation>> row = mutationMap.get(key);
+                int rowMutations = countMutations(row);
+                long rowBytes = estimateSize(key, row);
+                if (!chunk.fits(rowMutations, rowBytes)) {
+                    chunk = chunk.addTo(batches);
+                }
+                if (chunk.fits(rowMutations, rowBytes)) {
+                    chunk.batch.put(key, row);
+                    chunk.mutations += rowMutations;
+                    chunk.bytes += rowBytes;
+                } else {
+                    // The row alone is over the limits
+                    chunk = splitRow(key, row, chunk, batches);
+                }
+            }
+            chunk.addTo(batches);
+        }
+        return batches;
+    }
+
+    /**
+     * Spreads the mutations of a row over as many sub-batches as needed.
+     *
+     * @return the last, partly filled, sub-batch.
+     */
+    private Chunk splitRow(ByteBuffer key, Map<String, List<Mutation>> row, Chunk chunk,
+                           List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches) {
+        for (Map.Entry<String, List<Mutation>> columnFamily : row.entrySet()) {
+            for (Mutation mutation : columnFamily.getValue()) {
+                long bytes = OVERHEAD + key.remaining() + estimateSize(mutation);
+                if (!chunk.fits(1, bytes)) {
+                    chunk = chunk.addTo(batches);
+                }
+                Map<String, List<Mutation>> chunkRow = chunk.batch.get(key);
+                if (chunkRow == null) {
+                    chunkRow = new HashMap<String, List<Mutation>>();
+                    chunk.batch.put(key, chunkRow);
+                }
+                List<Mutation> mutations = chunkRow.get(columnFamily.getKey());
+                if (mutations == null) {
+                    mutations = new ArrayList<Mutation>();
+                    chunkRow.put(columnFamily.getKey(), mutations);
+                }
+                mutations.add(mutation);
+                chunk.mutations++;
+                chunk.bytes += bytes;
+            }
+        }
+        return chunk;
+    }
+
+    private static int countMutations(Map<String, List<Mutation>> row) {
+        int count = 0;
+        for (List<Mutation> mutations : row.values()) {
+            count += mutations.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the estimated serialized size of the mutations of a row.
+     */
+    private static long estimateSize(ByteBuffer key, Map<String, List<Mutation>> row) {
+        long size = OVERHEAD + key.remaining();
+        for (List<Mutation> mutations : row.values()) {
+            for (Mutation mutation : mutations) {
+                size += estimateSize(mutation);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the estimated serialized size of a mutation.
+     */
+    static long estimateSize(Mutation mutation) {
+        long size = OVERHEAD;
+        if (mutation.isSetColumn_or_supercolumn()) {
+            size += RowCache.estimateSize(mutation.getColumn_or_supercolumn());
+        }
+        if (mutation.isSetDeletion()) {
+            Deletion deletion = mutation.getDeletion();
+            if (deletion.isSetSuper_column()) {
+                size += deletion.bufferForSuper_column().remaining();
+            }
+            if (deletion.isSetPredicate() && deletion.getPredicate().isSetColumn_names()) {
+                for (ByteBuffer name : deletion.getPredicate().getColumn_names()) {
+                    size += OVERHEAD + name.remaining();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A sub-batch being filled.
+     */
+    private final class Chunk {
+
+        private final Map<ByteBuffer, Map<String, List<Mutation>>> batch =
+                new LinkedHashMap<ByteBuffer, Map<String, List<Mutation>>>();
+
+        private int mutations;
+
+        private long bytes;
+
+        /**
+         * @return whether the mutations can be added without going over the limits.
+         */
+        private boolean fits(int moreMutations, long moreBytes) {
+            return mutations + moreMutations <= maxMutations && bytes + moreBytes <= maxBytes;
+        }
+
+        /**
+         * Adds the sub-batch to the list unless it is empty.
+         *
+         * @return a new empty sub-batch.
+         */
+        private Chunk addTo(List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches) {
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+            return new Chunk();
+        }
+    }
+}
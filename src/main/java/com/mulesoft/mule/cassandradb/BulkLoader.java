@@ -0,0 +1,393 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Mutation;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads rows read from a stream of CSV or JSON lines records into a column family. Records are parsed one at a time
+ * straight into the mutations of their row, which are grouped in batches of batchSize rows. A pool of workers writes
+ * the batches with batch_mutate while the next ones are parsed, with at most inFlightBatches batches being written
+ * at the same time; parsing waits when they are all busy.
+ * <p/>
+ * A failed batch does not stop the load: its rows are counted as failed and the first errors are reported with
+ * the statistics of the load.
+ */
+class BulkLoader {
+
+    /**
+     * Number of error messages kept in the statistics.
+     */
+    private static final int MAX_ERRORS = 10;
+
+    /**
+     * Thread-safe, and shared by every loader.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final RequestExecutor executor;
+
+    private final ConsistencyLevel consistencyLevel;
+
+    private final String columnFamily;
+
+    private final String keyColumn;
+
+    private final int batchSize;
+
+    private final int inFlightBatches;
+
+    private final Semaphore inFlight;
+
+    private final AtomicLong writtenRows = new AtomicLong();
+
+    private final AtomicLong failedRows = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+    private Map<ByteBuffer, Map<String, List<Mutation>>> batch = newBatch();
+
+    private int batchRows;
+
+    private long rows;
+
+    private long batches;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor         Executor running the batch_mutate calls.
+     * @param consistencyLevel Consistency level of the writes.
+     * @param columnFamily     Column family the rows are written to.
+     * @param keyColumn        Name of the field holding the row key; it is not written as a column.
+     * @param batchSize        Number of rows per batch_mutate.
+     * @param inFlightBatches  Number of batches written at the same time.
+     */
+    BulkLoader(RequestExecutor executor, ConsistencyLevel consistencyLevel, String columnFamily, String keyColumn,
+               int batchSize, int inFlightBatches) {
+        this.executor = executor;
+        this.consistencyLevel = consistencyLevel;
+        this.columnFamily = columnFamily;
+        this.keyColumn = keyColumn;
+        this.batchSize = Math.max(batchSize, 1);
+        this.inFlightBatches = Math.max(inFlightBatches, 1);
+        this.inFlight = new Semaphore(this.inFlightBatches);
+    }
+
+    /**
+     * Loads CSV records.
+     *
+     * @param reader      The records.
+     * @param columnNames The name of each field of a record, in order; when null they are read from the first line.
+     * @param delimiter   The field separator.
+     * @return the statistics of the load.
+     * @throws CassandraDBException when the stream cannot be read or the key column is not one of the fields.
+     */
+    Map<String, Object> loadCsv(Reader reader, List<String> columnNames, char delimiter)
+            throws CassandraDBException {
+        long start = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(inFlightBatches,
+                new CassandraDBThreadFactory("bulk-load"));
+        try {
+            CsvReader csv = new CsvReader(reader, delimiter);
+            List<String> fields = new ArrayList<String>();
+            List<String> names = columnNames;
+            if (names == null) {
+                if (!csv.next(fields)) {
+                    return statistics(start);
+                }
+                names = new ArrayList<String>(fields);
+            }
+            int keyIndex = names.indexOf(keyColumn);
+            if (keyIndex < 0) {
+                throw new CassandraDBException("The key column " + keyColumn + " is not one of the columns " + names);
+            }
+            ByteBuffer[] columnNameBuffers = new ByteBuffer[names.size()];
+            for (int i = 0; i < columnNameBuffers.length; i++) {
+                columnNameBuffers[i] = CassandraDBUtils.toByteBuffer(names.get(i));
+            }
+
+            while (csv.next(fields)) {
+                rows++;
+                if (fields.size() <= keyIndex || fields.get(keyIndex).length() == 0) {
+                    rejected("Record " + rows + " has no " + keyColumn + " field");
+                    continue;
+                }
+                long timestamp = System.currentTimeMillis();
+                List<Mutation> mutations = new ArrayList<Mutation>(fields.size());
+                for (int i = 0; i < fields.size() && i < columnNameBuffers.length; i++) {
+                    if (i != keyIndex) {
+                        mutations.add(mutation(columnNameBuffers[i], fields.get(i), timestamp));
+                    }
+                }
+                addRow(workers, CassandraDBUtils.toByteBuffer(fields.get(keyIndex)), mutations);
+            }
+            return finish(workers, start);
+        } catch (IOException e) {
+            throw new CassandraDBException("Unable to read the records: " + e.getMessage(), e);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Loads JSON lines records, one object per line. Nested objects and arrays are written as JSON text.
+     *
+     * @param reader The records.
+     * @return the statistics of the load.
+     * @throws CassandraDBException when the stream cannot be read or is not a sequence of JSON objects.
+     */
+    Map<String, Object> loadJsonLines(Reader reader) throws CassandraDBException {
+        long start = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(inFlightBatches,
+                new CassandraDBThreadFactory("bulk-load"));
+        try {
+            JsonParser parser = JSON_FACTORY.createJsonParser(reader);
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new CassandraDBException("Expected a JSON object as record " + (rows + 1)
+                            + " but found " + token);
+                }
+                rows++;
+                long timestamp = System.currentTimeMillis();
+                ByteBuffer key = null;
+                List<Mutation> mutations = new ArrayList<Mutation>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_NULL) {
+                        continue;
+                    }
+                    String text = value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY
+                            ? CassandraDBUtils.OBJECT_MAPPER.readTree(parser).toString() : parser.getText();
+                    if (name.equals(keyColumn)) {
+                        key = text.length() > 0 ? CassandraDBUtils.toByteBuffer(text) : null;
+                    } else {
+                        mutations.add(mutation(CassandraDBUtils.toByteBuffer(name), text, timestamp));
+                    }
+                }
+                if (key == null) {
+                    rejected("Record " + rows + " has no " + keyColumn + " field");
+                    continue;
+                }
+                addRow(workers, key, mutations);
+            }
+            return finish(workers, start);
+        } catch (IOException e) {
+            throw new CassandraDBException("Unable to read the records: " + e.getMessage(), e);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private static Mutation mutation(ByteBuffer name, String value, long timestamp) {
+        Column column = new Column(name);
+        column.setValue(CassandraDBUtils.toByteBuffer(value));
+        column.setTimestamp(timestamp);
+        Mutation mutation = new Mutation();
+        mutation.setColumn_or_supercolumn(new ColumnOrSuperColumn().setColumn(column));
+        return mutation;
+    }
+
+    private void addRow(ExecutorService workers, ByteBuffer key, List<Mutation> mutations)
+            throws CassandraDBException {
+        if (mutations.isEmpty()) {
+            rejected("Record " + rows + " has no column besides its key");
+            return;
+        }
+        Map<String, List<Mutation>> row = batch.get(key);
+        if (row == null) {
+            batch.put(key, Collections.singletonMap(columnFamily, mutations));
+        } else {
+            // The same key twice in a batch: both records are written
+            List<Mutation> merged = new ArrayList<Mutation>(row.get(columnFamily));
+            merged.addAll(mutations);
+            batch.put(key, Collections.singletonMap(columnFamily, merged));
+        }
+        if (++batchRows >= batchSize) {
+            send(workers);
+        }
+    }
+
+    /**
+     * Hands the current batch to the workers, waiting while inFlightBatches batches are being written.
+     */
+    private void send(ExecutorService workers) throws CassandraDBException {
+        final Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = batch;
+        final int count = batchRows;
+        batch = newBatch();
+        batchRows = 0;
+        batches++;
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while loading the records", e);
+        }
+        workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executor.executeBatchMutate(mutationMap, consistencyLevel);
+                    writtenRows.addAndGet(count);
+                } catch (BatchMutateException e) {
+                    int failed = 0;
+                    for (Map<ByteBuffer, Map<String, List<Mutation>>> failedBatch : e.getFailedBatches()) {
+                        failed += failedBatch.size();
+                    }
+                    writtenRows.addAndGet(count - failed);
+                    failed(failed, e);
+                } catch (CassandraDBException e) {
+                    failed(count, e);
+                } catch (RuntimeException e) {
+                    failed(count, e);
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+    }
+
+    private Map<String, Object> finish(ExecutorService workers, long start) throws CassandraDBException {
+        if (batchRows > 0) {
+            send(workers);
+        }
+        try {
+            inFlight.acquire(inFlightBatches);
+            inFlight.release(inFlightBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for the last batches", e);
+        }
+        return statistics(start);
+    }
+
+    private void failed(int count, Exception e) {
+        failedRows.addAndGet(count);
+        failedBatches.incrementAndGet();
+        error(count + " rows not written: " + e.getMessage());
+    }
+
+    private void rejected(String message) {
+        failedRows.incrementAndGet();
+        error(message);
+    }
+
+    private void error(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    private Map<String, Object> statistics(long start) {
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        statistics.put("rows", rows);
+        statistics.put("writtenRows", writtenRows.get());
+        statistics.put("failedRows", failedRows.get());
+        statistics.put("batches", batches);
+        statistics.put("failedBatches", failedBatches.get());
+        statistics.put("elapsedMillis", elapsed);
+        statistics.put("rowsPerSecond", writtenRows.get() * 1000.0 / elapsed);
+        statistics.put("errors", new ArrayList<String>(errors));
+        return statistics;
+    }
+
+    private static Map<ByteBuffer, Map<String, List<Mutation>>> newBatch() {
+        return new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+    }
+
+    /**
+     * Reads CSV records one at a time, reusing the list of fields.
+     */
+    static final class CsvReader {
+
+        private final Reader reader;
+
+        private final char delimiter;
+
+        private final StringBuilder field = new StringBuilder();
+
+        CsvReader(Reader reader, char delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * Reads the next record, skipping empty lines.
+         *
+         * @param fields Cleared, then filled with the fields of the record.
+         * @return false at the end of the stream.
+         * @throws IOException when the stream cannot be read.
+         */
+        boolean next(List<String> fields) throws IOException {
+            fields.clear();
+            int c = read();
+            while (c == '\n' || c == '\r') {
+                c = read();
+            }
+            if (c < 0) {
+                return false;
+            }
+            while (true) {
+                field.setLength(0);
+                if (c == '"') {
+                    // Quoted field: delimiters and line breaks are part of it, and "" is a quote
+                    while (true) {
+                        c = read();
+                        if (c < 0) {
+                            break;
+                        }
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') {
+                                break;
+                            }
+                        }
+                        field.append((char) c);
+                    }
+                }
+                while (c >= 0 && c != delimiter && c != '\n' && c != '\r') {
+                    field.append((char) c);
+                    c = read();
+                }
+                fields.add(field.toString());
+                if (c != delimiter) {
+                    return true;
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            return reader.read();
+        }
+    }
+}
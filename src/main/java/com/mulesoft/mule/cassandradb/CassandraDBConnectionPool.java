@@ -0,0 +1,686 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.mule.api.ConnectionException;
+import org.mule.api.ConnectionExceptionCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of Thrift connections spread over a list of Cassandra hosts.
+ * <p/>
+ * Every host keeps between minConnectionsPerHost and maxConnectionsPerHost open connections. Idle connections
+ * above the minimum are closed by a background evictor. Every host has a {@link HostHealth}: a host whose
+ * connections fail maxHostFailures times in a row is left out of the rotation for hostRetryInterval milliseconds,
+ * then probed with a single request. Among the healthy hosts, each borrow compares two random hosts and prefers
+ * the one with the lowest latency and load.
+ */
+class CassandraDBConnectionPool {
+
+    /**
+     * How a borrowed connection ended its request.
+     */
+    enum Outcome {
+        /**
+         * The host answered, possibly with an error about the request itself.
+         */
+        SUCCESS,
+        /**
+         * The host timed out or had too few replicas alive; the connection is still usable.
+         */
+        SERVER_ERROR,
+        /**
+         * The connection failed at the transport level and must be closed.
+         */
+        BROKEN
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CassandraDBConnectionPool.class);
+
+    private final List<String> hosts;
+
+    private final ConcurrentMap<String, HostPool> hostPools = new ConcurrentHashMap<String, HostPool>();
+
+    private final AtomicInteger nextHost = new AtomicInteger();
+
+    private final Random random = new Random();
+
+    /**
+     * Notified when a permit of any host is given back, so a borrower waiting on a saturated pool takes the first
+     * connection freed, whatever its host.
+     */
+    private final Object permitReleased = new Object();
+
+    private final AtomicInteger waitingBorrowers = new AtomicInteger();
+
+    private int port = 9160;
+
+    private String username;
+
+    private String password;
+
+    private volatile String keyspace;
+
+    private int minConnectionsPerHost = 1;
+
+    private int maxConnectionsPerHost = 8;
+
+    private long borrowTimeout = 5000;
+
+    private long idleTimeout = 60000;
+
+    private int maxHostFailures = 3;
+
+    private long hostRetryInterval = 10000;
+
+    private volatile boolean open;
+
+    private ScheduledExecutorService evictor;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param hosts Host names or IP addresses of the Cassandra nodes used as seeds.
+     */
+    public CassandraDBConnectionPool(List<String> hosts) {
+        this.hosts = new CopyOnWriteArrayList<String>(hosts);
+    }
+
+    /**
+     * Opens the minimum number of connections to every host and starts the idle connection evictor.
+     *
+     * @throws ConnectionException if no host could be reached or the credentials are rejected.
+     */
+    public void open() throws ConnectionException {
+        ConnectionException lastError = null;
+        int connected = 0;
+
+        for (String host : hosts) {
+            HostPool hostPool = new HostPool(host);
+            hostPools.put(host, hostPool);
+            try {
+                for (int i = 0; i < Math.max(minConnectionsPerHost, 1); i++) {
+                    hostPool.idle.offerFirst(createClient(hostPool));
+                }
+                connected++;
+            } catch (ConnectionException e) {
+                if (e.getCode() == ConnectionExceptionCode.INCORRECT_CREDENTIALS) {
+                    close();
+                    throw e;
+                }
+                LOGGER.warn("Unable to open connections to Cassandra host " + host, e);
+                hostPool.markUnreachable();
+                lastError = e;
+            }
+        }
+
+        if (connected == 0) {
+            close();
+            throw lastError != null ? lastError : new ConnectionException(ConnectionExceptionCode.UNKNOWN_HOST, null,
+                    "No Cassandra host configured");
+        }
+
+        long evictionPeriod = Math.max(idleTimeout / 2, 1000);
+        evictor = Executors.newSingleThreadScheduledExecutor(new CassandraDBThreadFactory("pool-evictor"));
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdleConnections();
+            }
+        }, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+        open = true;
+    }
+
+    /**
+     * Borrows a connection from the next available host. The connection must be given back with
+     * {@link #release(PooledClient, Outcome)}.
+     *
+     * @return a connected client bound to the current keyspace.
+     * @throws CassandraDBException if no connection could be obtained within borrowTimeout milliseconds.
+     */
+    public PooledClient borrow() throws CassandraDBException {
+        if (!open) {
+            throw new CassandraDBException("The connection pool is closed");
+        }
+
+        List<HostPool> candidates = candidates();
+        // When every host is excluded they are used anyway, without waiting for their probe
+        boolean excluded = true;
+        long now = System.currentTimeMillis();
+        for (HostPool hostPool : candidates) {
+            excluded &= !hostPool.isAvailable(now);
+        }
+
+        // Take a free slot on the first host that has one
+        for (HostPool hostPool : candidates) {
+            if (hostPool.permits.tryAcquire()) {
+                PooledClient pooled = checkout(hostPool, excluded);
+                if (pooled != null) {
+                    return pooled;
+                }
+            }
+        }
+
+        // Every host is saturated: wait for a connection of any of them to be given back
+        long deadline = System.currentTimeMillis() + borrowTimeout;
+        waitingBorrowers.incrementAndGet();
+        try {
+            HostPool acquired;
+            do {
+                acquired = awaitPermit(candidates, deadline);
+                if (acquired != null) {
+                    PooledClient pooled = checkout(acquired, excluded);
+                    if (pooled != null) {
+                        return pooled;
+                    }
+                }
+            } while (acquired != null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for a Cassandra connection", e);
+        } finally {
+            waitingBorrowers.decrementAndGet();
+        }
+
+        throw new CassandraDBException("Unable to obtain a Cassandra connection from " + hosts + " within "
+                + borrowTimeout + " ms");
+    }
+
+    /**
+     * Borrows a connection from one of the preferred hosts, such as the replicas of a row key, trying the
+     * healthiest and least loaded first. When none of them has a free connection right away, any host of the pool
+     * is used instead.
+     *
+     * @param preferredHosts Hosts to try first.
+     * @return a connected client bound to the current keyspace.
+     * @throws CassandraDBException if no connection could be obtained within borrowTimeout milliseconds.
+     */
+    public PooledClient borrow(List<String> preferredHosts) throws CassandraDBException {
+        if (open && !preferredHosts.isEmpty()) {
+            long now = System.currentTimeMillis();
+            List<HostPool> replicas = new ArrayList<HostPool>(preferredHosts.size());
+            // Scores change while sorting, so they are read once
+            final Map<HostPool, Double> scores = new IdentityHashMap<HostPool, Double>();
+            for (String preferredHost : preferredHosts) {
+                HostPool hostPool = hostPools.get(preferredHost);
+                if (hostPool != null && hostPool.isAvailable(now)) {
+                    replicas.add(hostPool);
+                    scores.put(hostPool, hostPool.score());
+                }
+            }
+            Collections.sort(replicas, new Comparator<HostPool>() {
+                @Override
+                public int compare(HostPool first, HostPool second) {
+                    return Double.compare(scores.get(first), scores.get(second));
+                }
+            });
+            for (HostPool hostPool : replicas) {
+                if (hostPool.permits.tryAcquire()) {
+                    PooledClient pooled = checkout(hostPool, false);
+                    if (pooled != null) {
+                        return pooled;
+                    }
+                }
+            }
+        }
+        return borrow();
+    }
+
+    /**
+     * Borrows a connection to any host but the excluded one, without waiting. Preferred hosts are tried first.
+     *
+     * @param excludedHost   Host that must not be used, or null.
+     * @param preferredHosts Hosts to try first, in order of preference.
+     * @return a connected client bound to the current keyspace, or null when no other host has a free connection.
+     */
+    public PooledClient borrowExcluding(String excludedHost, List<String> preferredHosts) {
+        if (!open) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        for (String preferredHost : preferredHosts) {
+            HostPool hostPool = hostPools.get(preferredHost);
+            if (hostPool != null && !preferredHost.equals(excludedHost) && hostPool.isAvailable(now)
+                    && hostPool.permits.tryAcquire()) {
+                PooledClient pooled = checkout(hostPool, false);
+                if (pooled != null) {
+                    return pooled;
+                }
+            }
+        }
+        for (HostPool hostPool : candidates()) {
+            if (!hostPool.host.equals(excludedHost) && hostPool.isAvailable(now) && hostPool.permits.tryAcquire()) {
+                PooledClient pooled = checkout(hostPool, false);
+                if (pooled != null) {
+                    return pooled;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a host discovered after the pool was opened. Its connections are opened on demand.
+     *
+     * @param host Host name or IP address of the node.
+     */
+    public void addHost(String host) {
+        if (hostPools.putIfAbsent(host, new HostPool(host)) == null) {
+            hosts.add(host);
+            LOGGER.debug("Cassandra host " + host + " added to the connection pool");
+        }
+    }
+
+    /**
+     * Gives a connection back to the pool. Server errors and broken connections count as failures of the host;
+     * only broken connections are closed.
+     *
+     * @param pooled  The borrowed connection.
+     * @param outcome How the request sent on the connection ended.
+     */
+    public void release(PooledClient pooled, Outcome outcome) {
+        HostPool hostPool = hostPools.get(pooled.getHost());
+        if (hostPool == null) {
+            pooled.close();
+            return;
+        }
+
+        if (outcome == Outcome.BROKEN || !open || !pooled.isOpen()) {
+            hostPool.discard(pooled);
+        } else {
+            pooled.touch();
+            hostPool.idle.offerFirst(pooled);
+        }
+        if (outcome == Outcome.SUCCESS) {
+            hostPool.markSuccess(System.currentTimeMillis() - pooled.getBorrowedAt());
+        } else {
+            hostPool.markFailure();
+        }
+        hostPool.releasePermit();
+    }
+
+    /**
+     * Gives back a connection that was borrowed but not used, without recording any outcome for its host.
+     *
+     * @param pooled The borrowed connection.
+     */
+    void releaseUnused(PooledClient pooled) {
+        HostPool hostPool = hostPools.get(pooled.getHost());
+        if (hostPool == null) {
+            pooled.close();
+            return;
+        }
+        if (!open || !pooled.isOpen()) {
+            hostPool.discard(pooled);
+        } else {
+            hostPool.idle.offerFirst(pooled);
+        }
+        hostPool.releasePermit();
+    }
+
+    /**
+     * @param host Host name or IP address of a node.
+     * @return the health of the host, shared by every executor sending requests to it, or null for a host the pool
+     * does not know.
+     */
+    HostHealth getHealth(String host) {
+        HostPool hostPool = hostPools.get(host);
+        return hostPool != null ? hostPool.health : null;
+    }
+
+    /**
+     * Records how a request sent on a connection that does not belong to the pool ended, such as an asynchronous
+     * one, so the host is excluded whatever the kind of connection it fails on.
+     *
+     * @param host    Host the request was sent to.
+     * @param outcome How the request ended.
+     * @param latency Milliseconds the request took.
+     */
+    void recordOutcome(String host, Outcome outcome, long latency) {
+        HostPool hostPool = hostPools.get(host);
+        if (hostPool == null) {
+            return;
+        }
+        if (outcome == Outcome.SUCCESS) {
+            hostPool.markSuccess(latency);
+        } else {
+            hostPool.markFailure();
+        }
+    }
+
+    /**
+     * Closes every connection and stops the evictor.
+     */
+    public void close() {
+        open = false;
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+        for (HostPool hostPool : hostPools.values()) {
+            hostPool.drain();
+        }
+    }
+
+    /**
+     * @return whether the pool is open.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @return the hosts known by the pool.
+     */
+    public List<String> getHosts() {
+        return hosts;
+    }
+
+    /**
+     * @return the health of every host: circuit state, average latency, consecutive failures and connections.
+     */
+    public Map<String, Map<String, Object>> getHostStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<String, Map<String, Object>>();
+        for (String host : hosts) {
+            HostPool hostPool = hostPools.get(host);
+            if (hostPool == null) {
+                continue;
+            }
+            Map<String, Object> hostStatistics = new LinkedHashMap<String, Object>();
+            hostStatistics.put("state", hostPool.health.getState().name());
+            hostStatistics.put("latency", hostPool.health.getLatency());
+            hostStatistics.put("failures", hostPool.health.getFailures());
+            hostStatistics.put("inFlight", hostPool.inFlight());
+            hostStatistics.put("opened", hostPool.opened.get());
+            statistics.put(host, hostStatistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Hosts that may receive a request, in order of preference: hosts due for a probe, then the best of two
+     * randomly picked hosts, then the others starting at the next host in the rotation. When every host is
+     * excluded all of them are returned, so the pool keeps trying rather than failing without a single attempt.
+     * No probe is claimed: that is left to {@link #checkout} for the host actually used.
+     */
+    private List<HostPool> candidates() {
+        long now = System.currentTimeMillis();
+        int size = hosts.size();
+        int start = (nextHost.getAndIncrement() & Integer.MAX_VALUE) % size;
+
+        List<HostPool> probes = new ArrayList<HostPool>();
+        List<HostPool> available = new ArrayList<HostPool>(size);
+        List<HostPool> excluded = new ArrayList<HostPool>();
+        for (int i = 0; i < size; i++) {
+            HostPool hostPool = hostPools.get(hosts.get((start + i) % size));
+            if (hostPool == null) {
+                continue;
+            }
+            if (!hostPool.isAvailable(now)) {
+                excluded.add(hostPool);
+            } else if (hostPool.health.getState() != HostHealth.State.CLOSED) {
+                probes.add(hostPool);
+            } else {
+                available.add(hostPool);
+            }
+        }
+
+        if (available.size() > 1) {
+            // Power of two choices: follows the fastest hosts without sending everything to a single one
+            int first = random.nextInt(available.size());
+            int second = random.nextInt(available.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            HostPool firstPool = available.get(first);
+            HostPool secondPool = available.get(second);
+            HostPool best = secondPool.score() < firstPool.score() ? secondPool : firstPool;
+            available.remove(best);
+            available.add(0, best);
+        }
+        probes.addAll(available);
+        return probes.isEmpty() ? excluded : probes;
+    }
+
+    /**
+     * Takes a permit of the first candidate that has one, waiting until a permit of any host is given back.
+     *
+     * @return the host whose permit was taken, or null when none was given back before the deadline.
+     */
+    private HostPool awaitPermit(List<HostPool> candidates, long deadline) throws InterruptedException {
+        synchronized (permitReleased) {
+            while (true) {
+                for (HostPool hostPool : candidates) {
+                    if (hostPool.permits.tryAcquire()) {
+                        return hostPool;
+                    }
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                permitReleased.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Takes an idle connection of the host, or opens a new one. The caller must hold a permit of the host; it is
+     * given back when no connection can be obtained. A host whose circuit is open must grant its probe first,
+     * unless every host is excluded.
+     */
+    private PooledClient checkout(HostPool hostPool, boolean excluded) {
+        if (!hostPool.health.allowRequest(System.currentTimeMillis()) && !excluded) {
+            // Another request took the probe
+            hostPool.releasePermit();
+            return null;
+        }
+        PooledClient pooled = hostPool.idle.pollFirst();
+        while (pooled != null && !pooled.isOpen()) {
+            hostPool.discard(pooled);
+            pooled = hostPool.idle.pollFirst();
+        }
+
+        try {
+            if (pooled == null) {
+                pooled = createClient(hostPool);
+            }
+            String currentKeyspace = keyspace;
+            if (currentKeyspace != null && !currentKeyspace.equals(pooled.getKeyspace())) {
+                pooled.getClient().set_keyspace(currentKeyspace);
+                pooled.setKeyspace(currentKeyspace);
+            }
+            pooled.markBorrowed();
+            return pooled;
+        } catch (Exception e) {
+            LOGGER.warn("Unable to use a connection to Cassandra host " + hostPool.host, e);
+            if (pooled != null) {
+                hostPool.discard(pooled);
+            }
+            hostPool.markFailure();
+            hostPool.releasePermit();
+            return null;
+        }
+    }
+
+    private PooledClient createClient(HostPool hostPool) throws ConnectionException {
+        PooledClient pooled = openConnection(hostPool.host);
+        hostPool.opened.incrementAndGet();
+        LOGGER.debug("Opened connection to " + hostPool.host + ":" + port);
+        return pooled;
+    }
+
+    /**
+     * Opens a new connection to a host, logged in and bound to the current keyspace.
+     *
+     * @param host Host name or IP address of the node.
+     * @return the new connection.
+     * @throws ConnectionException if the host cannot be reached or the credentials are rejected.
+     */
+    PooledClient openConnection(String host) throws ConnectionException {
+        Cassandra.Client client = CassandraDBUtils.getClient(host, port, keyspace, username, password, null);
+        return new PooledClient(host, client, client.getOutputProtocol().getTransport(), keyspace);
+    }
+
+    /**
+     * Closes the connections that have been idle for longer than idleTimeout, keeping at least
+     * minConnectionsPerHost open connections per host.
+     */
+    void evictIdleConnections() {
+        long expiration = System.currentTimeMillis() - idleTimeout;
+        for (HostPool hostPool : hostPools.values()) {
+            PooledClient eldest = hostPool.idle.peekLast();
+            while (eldest != null && hostPool.opened.get() > minConnectionsPerHost
+                    && eldest.getLastUsed() < expiration) {
+                if (hostPool.idle.removeLastOccurrence(eldest)) {
+                    hostPool.discard(eldest);
+                }
+                eldest = hostPool.idle.peekLast();
+            }
+        }
+    }
+
+    /**
+     * Connections and health information of a single host.
+     */
+    private final class HostPool {
+
+        private final String host;
+
+        private final LinkedBlockingDeque<PooledClient> idle = new LinkedBlockingDeque<PooledClient>();
+
+        /**
+         * One permit per connection that may be lent at the same time.
+         */
+        private final Semaphore permits = new Semaphore(maxConnectionsPerHost);
+
+        private final AtomicInteger opened = new AtomicInteger();
+
+        private final HostHealth health = new HostHealth(maxHostFailures, hostRetryInterval);
+
+        private HostPool(String host) {
+            this.host = host;
+        }
+
+        private boolean isAvailable(long now) {
+            return health.isAvailable(now);
+        }
+
+        private int inFlight() {
+            return maxConnectionsPerHost - permits.availablePermits();
+        }
+
+        private double score() {
+            return health.getScore(inFlight());
+        }
+
+        private void markSuccess(long latency) {
+            health.recordSuccess(latency);
+        }
+
+        /**
+         * Gives a permit back and wakes up the borrowers waiting for one. Borrowers count themselves as waiting
+         * before they try the permits, so a permit given back in between is either taken or signalled.
+         */
+        private void releasePermit() {
+            permits.release();
+            if (waitingBorrowers.get() > 0) {
+                synchronized (permitReleased) {
+                    permitReleased.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Excludes a host that could not be reached at all, without waiting for maxHostFailures failed requests.
+         */
+        private void markUnreachable() {
+            health.trip(System.currentTimeMillis());
+            LOGGER.warn("Cassandra host " + host + " is unreachable; excluding it for " + hostRetryInterval + " ms");
+        }
+
+        private void markFailure() {
+            if (health.recordFailure(System.currentTimeMillis())) {
+                LOGGER.warn("Cassandra host " + host + " failed " + health.getFailures()
+                        + " times in a row; excluding it for " + hostRetryInterval + " ms");
+                drain();
+            }
+        }
+
+        private void discard(PooledClient pooled) {
+            pooled.close();
+            opened.decrementAndGet();
+        }
+
+        private void drain() {
+            PooledClient pooled = idle.pollFirst();
+            while (pooled != null) {
+                discard(pooled);
+                pooled = idle.pollFirst();
+            }
+        }
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    /**
+     * Sets the keyspace; borrowed connections are switched to it before being handed out.
+     *
+     * @param keyspace The keyspace name.
+     */
+    public void setKeyspace(String keyspace) {
+        this.keyspace = keyspace;
+    }
+
+    public void setMinConnectionsPerHost(int minConnectionsPerHost) {
+        this.minConnectionsPerHost = minConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public void setMaxHostFailures(int maxHostFailures) {
+        this.maxHostFailures = maxHostFailures;
+    }
+
+    public void setHostRetryInterval(long hostRetryInterval) {
+        this.hostRetryInterval = hostRetryInterval;
+    }
+}
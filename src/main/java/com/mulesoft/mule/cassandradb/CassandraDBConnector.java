@@ -10,12 +10,12 @@
 
 package com.mulesoft.mule.cassandradb;
 
+import com.google.common.util.concurrent.ListenableFuture;
+import com.mulesoft.mule.cassandradb.api.BulkLoadFormat;
 import com.mulesoft.mule.cassandradb.api.IndexExpresion;
 import org.apache.cassandra.thrift.*;
 import org.apache.thrift.TException;
-import org.apache.thrift.transport.TFramedTransport;
-import org.apache.thrift.transport.TSocket;
-import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.async.AsyncMethodCallback;
 import org.mule.api.ConnectionException;
 import org.mule.api.annotations.*;
 import org.mule.api.annotations.display.Password;
@@ -23,11 +23,20 @@ import org.mule.api.annotations.display.Placement;
 import org.mule.api.annotations.param.ConnectionKey;
 import org.mule.api.annotations.param.Default;
 import org.mule.api.annotations.param.Optional;
+import org.mule.api.transport.OutputHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * The Apache Cassandra database is the right choice when you need scalability and high availability without compromising performance.
@@ -39,6 +48,16 @@ import java.util.*;
 public class CassandraDBConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(CassandraDBConnector.class);
 
+    /**
+     * Runs the listeners of asynchronous writes on the thread completing them
+     */
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
     /**
      * Host name or IP address
      */
@@ -69,14 +88,361 @@ public class CassandraDBConnector {
     private ConsistencyLevel consistencyLevel;
 
     /**
-     * Generic class that encapsulates the I/O layer. This is basically a thin
-     * wrapper around the combined functionality of Java input/output streams.
+     * Additional host names or IP addresses of the cluster nodes. Requests are spread over these hosts and the one
+     * configured in host, preferring the hosts with the lowest latency and load.
+     */
+    @Configurable
+    @Optional
+    private List<String> hosts;
+
+    /**
+     * Number of connections kept open to every host, even when idle
+     */
+    @Configurable
+    @Default("1")
+    private int minConnectionsPerHost = 1;
+
+    /**
+     * Maximum number of connections opened to a single host
+     */
+    @Configurable
+    @Default("8")
+    private int maxConnectionsPerHost = 8;
+
+    /**
+     * Milliseconds to wait for a free connection when every connection is in use
+     */
+    @Configurable
+    @Default("5000")
+    private long borrowTimeout = 5000;
+
+    /**
+     * Milliseconds after which an unused connection above minConnectionsPerHost is closed
+     */
+    @Configurable
+    @Default("60000")
+    private long idleTimeout = 60000;
+
+    /**
+     * Number of consecutive connection failures after which the circuit of a host opens, excluding it from the
+     * rotation
+     */
+    @Configurable
+    @Default("3")
+    private int maxHostFailures = 3;
+
+    /**
+     * Milliseconds an excluded host is left out of the rotation before a single probe request is sent to it
+     */
+    @Configurable
+    @Default("10000")
+    private long hostRetryInterval = 10000;
+
+    /**
+     * Whether requests bound to a single row key are sent straight to one of its replicas. The token ring is read
+     * with describe_ring and is only available for the Random, ByteOrdered and OrderPreserving partitioners.
+     */
+    @Configurable
+    @Default("false")
+    private boolean tokenAwareRouting;
+
+    /**
+     * Milliseconds between two checks of the cluster topology when token aware routing is enabled
+     */
+    @Configurable
+    @Default("30000")
+    private long ringRefreshInterval = 30000;
+
+    /**
+     * Whether the asynchronous operations are available. They run on non-blocking connections driven by a single
+     * selector thread, so a request in flight does not hold a Mule thread.
+     */
+    @Configurable
+    @Default("false")
+    private boolean asyncMode;
+
+    /**
+     * Milliseconds after which an asynchronous request that got no response fails; 0 disables the timeout
+     */
+    @Configurable
+    @Default("10000")
+    private long asyncRequestTimeout = 10000;
+
+    /**
+     * Whether reads that have not answered after speculativeDelay are also sent to another host, returning the
+     * first answer. Applies to get, get-row, get-slice, multiget-slice, multiget-count and get-count.
+     */
+    @Configurable
+    @Default("false")
+    private boolean speculativeReads;
+
+    /**
+     * Milliseconds to wait for a read before sending it to another host when speculativeReads is enabled
+     */
+    @Configurable
+    @Default("50")
+    private long speculativeDelay = 50;
+
+    /**
+     * Percentile of the observed read latencies used as speculative delay, e.g. 99. When 0, speculativeDelay is
+     * always used.
+     */
+    @Configurable
+    @Default("0")
+    private double speculativePercentile;
+
+    /**
+     * Number of times a request is retried, on another host when possible, after a TimedOutException
+     */
+    @Configurable
+    @Default("2")
+    private int timedOutRetries = 2;
+
+    /**
+     * Number of times a request is retried, on another host when possible, after an UnavailableException
+     */
+    @Configurable
+    @Default("2")
+    private int unavailableRetries = 2;
+
+    /**
+     * Number of times an idempotent request is retried on another host after a connection error
+     */
+    @Configurable
+    @Default("1")
+    private int transportErrorRetries = 1;
+
+    /**
+     * Milliseconds to wait before the first retry. The delay doubles at every attempt, with random jitter.
+     */
+    @Configurable
+    @Default("50")
+    private long retryBaseDelay = 50;
+
+    /**
+     * Maximum milliseconds to wait between two attempts
+     */
+    @Configurable
+    @Default("1000")
+    private long retryMaxDelay = 1000;
+
+    /**
+     * Retries allowed per request over time, e.g. 0.1 for at most one retry every ten requests. Prevents retries
+     * from multiplying the load of an overloaded cluster.
+     */
+    @Configurable
+    @Default("0.1")
+    private double retryBudgetRatio = 0.1;
+
+    /**
+     * Estimated memory, in bytes, of the client-side cache of the rows read by get, get-row and get-slice. Writes
+     * sent through this connector invalidate the rows they modify; writes from other clients are only seen once
+     * the cached rows expire. 0 disables the cache.
+     */
+    @Configurable
+    @Default("0")
+    private long rowCacheMaxBytes;
+
+    /**
+     * Milliseconds a row stays in the row cache after being read; 0 keeps it until it is evicted
+     */
+    @Configurable
+    @Default("60000")
+    private long rowCacheTtl = 60000;
+
+    /**
+     * Whether concurrent get, get-row and get-slice calls reading the same columns of the same row, with the same
+     * consistency level, share a single request instead of each sending their own
+     */
+    @Configurable
+    @Default("false")
+    private boolean coalesceReads;
+
+    /**
+     * Milliseconds get, get-row and get-slice calls wait for concurrent reads of other rows with the same columns,
+     * to send them together as a single multiget-slice. 0 disables batching.
+     */
+    @Configurable
+    @Default("0")
+    private long readBatchWindow;
+
+    /**
+     * Number of rows after which a read batch is sent without waiting for the end of the readBatchWindow
+     */
+    @Configurable
+    @Default("100")
+    private int readBatchMaxSize = 100;
+
+    /**
+     * Whether get-slice returns a single read-only Map of the row, by column name, that only decodes the names and
+     * values of the columns actually read, instead of a List holding one decoded Map per column
+     */
+    @Configurable
+    @Default("false")
+    private boolean lazyRowDecoding;
+
+    /**
+     * Maximum number of keys sent in a single multiget-slice or multiget-count request. Larger key lists are split
+     * into chunks, grouped by replica when tokenAwareRouting is enabled, that are read in parallel. 0 disables
+     * chunking.
+     */
+    @Configurable
+    @Default("500")
+    private int multigetChunkSize = 500;
+
+    /**
+     * Maximum number of chunks of a single multiget read at the same time
+     */
+    @Configurable
+    @Default("4")
+    private int multigetParallelism = 4;
+
+    /**
+     * Milliseconds a multiget chunk may take before the whole multiget fails; 0 disables the timeout
+     */
+    @Configurable
+    @Default("10000")
+    private long multigetChunkTimeout = 10000;
+
+    /**
+     * Maximum number of mutations sent in a single batch-mutate request by insert-from-map and batch-mutable.
+     * Larger batches are split into sub-batches, grouped by replica when tokenAwareRouting is enabled, that are
+     * written in parallel and may fail independently. 0, the default, disables the limit.
+     */
+    @Configurable
+    @Default("0")
+    private int batchMaxMutations;
+
+    /**
+     * Maximum estimated size in bytes of a single batch-mutate request; it must stay under the framed transport
+     * size of the server. 0, the default, disables the limit.
+     */
+    @Configurable
+    @Default("0")
+    private long batchMaxBytes;
+
+    /**
+     * Maximum number of sub-batches of a single batch written at the same time
      */
-    private TTransport tr;
+    @Configurable
+    @Default("4")
+    private int batchParallelism = 4;
+
+    /**
+     * Milliseconds between two checks of the schema versions before insert-from-map trusts its cached list of the
+     * column families of the keyspace
+     */
+    @Configurable
+    @Default("30000")
+    private long schemaCheckInterval = 30000;
+
+    /**
+     * Whether insert and add only buffer their writes, which are sent later as batch-mutate calls grouping them by
+     * row key and column family. Writes are then acknowledged before they are written: a failed batch is reported
+     * by the next flush, and buffered writes are lost if the process stops before they are flushed.
+     */
+    @Configurable
+    @Default("false")
+    private boolean writeBehind;
+
+    /**
+     * Number of buffered writes after which they are sent, when writeBehind is enabled
+     */
+    @Configurable
+    @Default("500")
+    private int writeBehindBatchSize = 500;
+
+    /**
+     * Estimated size in bytes of the buffered writes after which they are sent, when writeBehind is enabled
+     */
+    @Configurable
+    @Default("1048576")
+    private long writeBehindBatchBytes = 1048576;
+
+    /**
+     * Milliseconds between two flushes of the buffered writes, when writeBehind is enabled; 0 only sends them when
+     * the batch size or bytes are reached
+     */
+    @Configurable
+    @Default("100")
+    private long writeBehindFlushInterval = 100;
+
+    /**
+     * Number of writes buffered or being sent after which insert and add block until a batch is written
+     */
+    @Configurable
+    @Default("10000")
+    private int writeBehindCapacity = 10000;
+
+    /**
+     * Number of batches of buffered writes sent at the same time
+     */
+    @Configurable
+    @Default("2")
+    private int writeBehindThreads = 2;
+
+    /**
+     * Whether add sums the increments of each counter in memory and writes the sums every counterFlushInterval as
+     * a single batch-mutate, instead of sending every increment. Increments are then acknowledged before they are
+     * written: a failed write is reported by the next flush, and increments not written yet are lost if the process
+     * stops.
+     */
+    @Configurable
+    @Default("false")
+    private boolean aggregateCounters;
+
+    /**
+     * Maximum number of milliseconds a counter increment waits before being written, when aggregateCounters is
+     * enabled
+     */
+    @Configurable
+    @Default("1000")
+    private long counterFlushInterval = 1000;
+
+    /**
+     * Retry policy replacing the one built from the retry attributes, when set
+     */
+    private RetryPolicy retryPolicy;
+
+    /**
+     * Runs the Thrift calls against the pooled connections
+     */
+    private RequestExecutor executor;
+
+    /**
+     * Runs the asynchronous Thrift calls, when asyncMode is enabled
+     */
+    private AsyncRequestExecutor asyncExecutor;
+
+    /**
+     * Caches the rows read, when rowCacheMaxBytes is set
+     */
+    private RowCache rowCache;
+
+    /**
+     * Shares identical concurrent reads, when coalesceReads is enabled
+     */
+    private ReadCoalescer readCoalescer;
+
+    /**
+     * Sends concurrent reads of different rows as a single multiget_slice, when readBatchWindow is set
+     */
+    private ReadBatcher readBatcher;
+
     /**
-     * Cassandra Client
+     * Column families known to exist, by keyspace
      */
-    private Cassandra.Client client;
+    private SchemaCache schemaCache;
+
+    /**
+     * Buffers the writes of insert and add, when writeBehind is enabled
+     */
+    private WriteBehindBuffer writeBehindBuffer;
+
+    /**
+     * Sums the increments of add, when aggregateCounters is enabled
+     */
+    private CounterAggregator counterAggregator;
 
     /**
      * Method invoked when a connection is required
@@ -88,20 +454,71 @@ public class CassandraDBConnector {
     @Connect
     public void connect(@ConnectionKey String username,
                         @Password String password) throws ConnectionException {
-        try {
-            LOGGER.debug("Attempting to connect to Cassandra");
-            tr = new TFramedTransport(new TSocket(host, port)); // NOSONAR
-            client = CassandraDBUtils.getClient(host, port, keyspace, username, password, tr);
-            tr.open();
-            client.set_keyspace(this.getKeyspace());
-            LOGGER.debug("Connection created: " + tr);
-
-        } catch (Exception e) {
-            LOGGER.error("Unable to connect to Casssandra DB instance", e);
-            throw new org.mule.api.ConnectionException(
-                    org.mule.api.ConnectionExceptionCode.UNKNOWN, null,
-                    e.getMessage(), e);
+        LOGGER.debug("Attempting to connect to Cassandra");
+        CassandraDBConnectionPool pool = new CassandraDBConnectionPool(getSeedHosts());
+        pool.setPort(port);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setKeyspace(keyspace);
+        pool.setMinConnectionsPerHost(minConnectionsPerHost);
+        pool.setMaxConnectionsPerHost(maxConnectionsPerHost);
+        pool.setBorrowTimeout(borrowTimeout);
+        pool.setIdleTimeout(idleTimeout);
+        pool.setMaxHostFailures(maxHostFailures);
+        pool.setHostRetryInterval(hostRetryInterval);
+        pool.open();
+        executor = new RequestExecutor(pool);
+        TokenAwareRouter router = null;
+        if (tokenAwareRouting) {
+            router = new TokenAwareRouter(executor, pool);
+            executor.setRouter(router);
+            router.start(ringRefreshInterval);
+        }
+        RetryPolicy policy = createRetryPolicy();
+        RetryBudget retryBudget = new RetryBudget(retryBudgetRatio);
+        executor.setRetryPolicy(policy, retryBudget);
+        if (speculativeReads) {
+            executor.setSpeculativeExecution(new SpeculativeExecution(speculativeDelay, speculativePercentile,
+                    maxConnectionsPerHost * pool.getHosts().size()));
+        }
+        if (multigetChunkSize > 0) {
+            executor.setMultigetChunking(
+                    new MultigetChunking(multigetChunkSize, multigetParallelism, multigetChunkTimeout));
+        }
+        if (batchMaxMutations > 0 || batchMaxBytes > 0) {
+            executor.setBatchSplitting(new BatchSplitting(batchMaxMutations, batchMaxBytes, batchParallelism));
+        }
+        rowCache = rowCacheMaxBytes > 0 ? new RowCache(rowCacheMaxBytes, rowCacheTtl) : null;
+        readCoalescer = coalesceReads ? new ReadCoalescer() : null;
+        readBatcher = readBatchWindow > 0 ? new ReadBatcher(executor, readBatchMaxSize, readBatchWindow) : null;
+        schemaCache = new SchemaCache(executor, schemaCheckInterval);
+        writeBehindBuffer = createWriteBehindBuffer();
+        counterAggregator = createCounterAggregator();
+        if (asyncMode) {
+            asyncExecutor = new AsyncRequestExecutor(pool);
+            asyncExecutor.setPort(port);
+            asyncExecutor.setUsername(username);
+            asyncExecutor.setPassword(password);
+            asyncExecutor.setMaxConnectionsPerHost(maxConnectionsPerHost);
+            asyncExecutor.setRequestTimeout(asyncRequestTimeout);
+            asyncExecutor.setRouter(router);
+            asyncExecutor.setRetryPolicy(policy, retryBudget);
+            try {
+                asyncExecutor.open();
+            } catch (ConnectionException e) {
+                if (counterAggregator != null) {
+                    counterAggregator.close();
+                    counterAggregator = null;
+                }
+                if (writeBehindBuffer != null) {
+                    writeBehindBuffer.close();
+                    writeBehindBuffer = null;
+                }
+                executor.close();
+                throw e;
+            }
         }
+        LOGGER.debug("Connection pool created for hosts: " + pool.getHosts());
     }
 
 
@@ -110,10 +527,21 @@ public class CassandraDBConnector {
      */
     @Disconnect
     public void disconnect() {
-        if (isConnected()) {
+        if (counterAggregator != null) {
+            counterAggregator.close();
+            counterAggregator = null;
+        }
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.close();
+            writeBehindBuffer = null;
+        }
+        if (asyncExecutor != null) {
+            asyncExecutor.close();
+            asyncExecutor = null;
+        }
+        if (executor != null) {
             try {
-                tr.flush();
-                tr.close();
+                executor.close();
             } catch (Exception e) {
                 LOGGER.error("Exception thrown while trying to disconnect:", e);
             }
@@ -127,7 +555,7 @@ public class CassandraDBConnector {
      */
     @ValidateConnection
     public boolean isConnected() {
-        return tr != null && tr.isOpen();
+        return executor != null && executor.isConnected();
     }
 
     /**
@@ -150,14 +578,17 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public void setQueryKeyspace(String value) throws CassandraDBException {
-        try {
-            setKeyspace(value);
-            client.set_keyspace(value);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+    public void setQueryKeyspace(final String value) throws CassandraDBException {
+        setKeyspace(value);
+        executor.execute(null, true, new ClientCallback<Void>() {
+            @Override
+            public Void doWithClient(Cassandra.Client client) throws Exception {
+                client.set_keyspace(value);
+                return null;
+            }
+        });
+        if (executor.getPool() != null) {
+            executor.getPool().setKeyspace(value);
         }
     }
 
@@ -179,24 +610,11 @@ public class CassandraDBConnector {
     @Optional List<ColumnSerializer> columnSerializers) throws CassandraDBException {
 
         LOGGER.debug("Retrieving the data from column path: " + columnPath);
-        ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
-        ColumnOrSuperColumn result;
-        try {
-            result = client.get(
-                    CassandraDBUtils.toByteBuffer(rowKey), cPath,
-                    this.getConsistencyLevel());
-            LOGGER.debug("ColumnPath : " + cPath + " ; result is : " + result);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (NotFoundException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
+        ColumnOrSuperColumn result = readRow(key, cPath.getColumn_family(), columnSelector(cPath),
+                columnRead(key, cPath));
+        LOGGER.debug("ColumnPath : " + cPath + " ; result is : " + result);
 
         return CassandraDBUtils.columnOrSuperColumnToMap(result,
                 columnSerializers);
@@ -215,27 +633,14 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public Object getRow(String rowKey, ColumnPath columnPath, @Placement(group = "Columns Serializars")
+    public Object getRow(String rowKey, final ColumnPath columnPath, @Placement(group = "Columns Serializars")
     @Optional List<ColumnSerializer> columnSerializers) throws CassandraDBException {
         LOGGER.debug("Retrieving the data from column path: " + columnPath);
 
-        ColumnOrSuperColumn result;
-        try {
-            result = client.get(
-                    CassandraDBUtils.toByteBuffer(rowKey), columnPath,
-                    this.getConsistencyLevel());
-            LOGGER.debug("ColumnPath : " + columnPath + " ; result is : " + result);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (NotFoundException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        ColumnOrSuperColumn result = readRow(key, columnPath.getColumn_family(), columnSelector(columnPath),
+                columnRead(key, columnPath));
+        LOGGER.debug("ColumnPath : " + columnPath + " ; result is : " + result);
 
         return CassandraDBUtils.columnOrSuperColumnToMap(result,
                 columnSerializers);
@@ -264,6 +669,8 @@ public class CassandraDBConnector {
      *                          be better served by iterating through slices by passing the last value of one call in as the 'start'
      *                          of the next instead of increasing 'count' arbitrarily large.
      * @param columnSerializers Serializers for each column
+     * @param columnNames       The names of the columns to read. When set, exactly these columns are read and start,
+     *                          finish, reversed and count are ignored.
      * @return the result as a JSON node
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
@@ -272,36 +679,62 @@ public class CassandraDBConnector {
                            @Optional String start, @Optional String finish,
                            @Default("false") boolean reversed,
                            @Default("100") int count,
-                           @Placement(group = "Columns Serializars") @Optional List<ColumnSerializer> columnSerializers) throws CassandraDBException {
+                           @Placement(group = "Columns Serializars") @Optional List<ColumnSerializer> columnSerializers,
+                           @Optional List<String> columnNames) throws CassandraDBException {
         LOGGER.debug("Get Slice: ROW KEY= " + rowKey + " COLUMN PARENT="
                 + columnParent + " START=" + start + " FINISH=" + finish
                 + " REVERSED=" + reversed + " COUNT=" + count);
 
-        ColumnParent cParent = CassandraDBUtils
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        SlicePredicate predicate = new SlicePredicate();
-        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish,
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
                 reversed, count);
+        SliceRange range = predicate.getSlice_range();
+        List<Object> selector = range != null
+                ? Arrays.<Object>asList("slice", cParent.bufferForSuper_column(), range.bufferForStart(),
+                range.bufferForFinish(), reversed, count)
+                : Arrays.<Object>asList("columns", cParent.bufferForSuper_column(), predicate.getColumn_names());
+        List<ColumnOrSuperColumn> columnsByKey = readRow(key, cParent.getColumn_family(), selector,
+                sliceRead(key, cParent, predicate));
+
+        return toRow(columnsByKey, columnSerializers);
+    }
 
-        predicate.setSlice_range(range);
-        List<ColumnOrSuperColumn> columnsByKey;
-        try {
-            columnsByKey = client.get_slice(
-                    CassandraDBUtils.toByteBuffer(rowKey), cParent, predicate,
-                    this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+    /**
+     * Lazily reads the columns of a row between start and finish, however wide the row is. The row is read with
+     * get_slice one page of pageSize columns at a time, every page starting at the last column of the previous
+     * one, and each column is decoded with the given serializers as it is consumed.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:scan-slice}
+     *
+     * @param rowKey            the row key
+     * @param columnParent      Path to the column - must be a name of the ColumnFamily or
+     *                          ColumnFamily:SuperColumn pair
+     * @param start             The column name to start the scan with. If not set, the scan starts at the first column.
+     * @param finish            The column name to stop the scan at. If not set, the scan reads until the last column.
+     * @param reversed          Whether the columns should be read in reversed order.
+     * @param pageSize          Number of columns read per call.
+     * @param columnSerializers Serializers for each column
+     * @return an iterator over the columns of the row, each one as a Map
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    @Processor(name = "scan-slice")
+    public Iterator<Map> scanSlice(String rowKey, String columnParent,
+                                   @Optional String start, @Optional String finish,
+                                   @Default("false") boolean reversed,
+                                   @Default("1000") int pageSize,
+                                   @Placement(group = "Columns Serializars") @Optional List<ColumnSerializer> columnSerializers) throws CassandraDBException {
+        LOGGER.debug("Scan Slice: ROW KEY= " + rowKey + " COLUMN PARENT="
+                + columnParent + " START=" + start + " FINISH=" + finish
+                + " REVERSED=" + reversed + " PAGE SIZE=" + pageSize);
 
-        return CassandraDBUtils.listOfColumnsToMap(columnsByKey,
-                columnSerializers);
+        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish, reversed, pageSize);
+        return new ColumnSliceIterator(executor, CassandraDBUtils.toByteBuffer(rowKey),
+                CassandraDBUtils.generateColumnParent(columnParent), range.bufferForStart(), range.bufferForFinish(),
+                reversed, pageSize, getConsistencyLevel(), SerializerRegistry.resolve(columnSerializers));
     }
 
     /**
@@ -328,6 +761,8 @@ public class CassandraDBConnector {
      *                          be better served by iterating through slices by passing the last value of one call in as the 'start'
      *                          of the next instead of increasing 'count' arbitrarily large.
      * @param columnSerializers Serializers for each column
+     * @param columnNames       The names of the columns to read. When set, exactly these columns are read and start,
+     *                          finish, reversed and count are ignored.
      * @return A map of keys and ColumnOrSuperColumn
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
@@ -339,36 +774,29 @@ public class CassandraDBConnector {
             @Optional String finish,
             @Default("false") boolean reversed,
             @Default("100") int count,
-            @Optional @Placement(group = "Column Serializers") List<ColumnSerializer> columnSerializers)
+            @Optional @Placement(group = "Column Serializers") List<ColumnSerializer> columnSerializers,
+            @Optional List<String> columnNames)
             throws CassandraDBException {
 
-        List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
+        final List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
 
-        ColumnParent cParent = CassandraDBUtils
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        SlicePredicate predicate = new SlicePredicate();
-        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish,
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
                 reversed, count);
 
-        predicate.setSlice_range(range);
-
         // For now we just return the map...leaving this variable in case we
         // want to format the data to a new Type
-        Map<ByteBuffer, List<ColumnOrSuperColumn>> result;
-        try {
-            result = client
-                    .multiget_slice(keys, cParent, predicate,
-                            this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> result = executor.executeMultiget(keys,
+                new MultigetCallback<List<ColumnOrSuperColumn>>() {
+                    @Override
+                    public Map<ByteBuffer, List<ColumnOrSuperColumn>> doWithClient(Cassandra.Client client,
+                                                                                 List<ByteBuffer> chunk)
+                            throws Exception {
+                        return client.multiget_slice(chunk, cParent, predicate, getConsistencyLevel());
+                    }
+                });
 
         return result;
     }
@@ -393,6 +821,8 @@ public class CassandraDBConnector {
      *                     materialize the whole result into memory before returning it to the client, so be aware that you may
      *                     be better served by iterating through slices by passing the last value of one call in as the 'start'
      *                     of the next instead of increasing 'count' arbitrarily large.
+     * @param columnNames  The names of the columns to read. When set, exactly these columns are read and start, finish,
+     *                     reversed and count are ignored.
      * @return Count of register that met the conditions
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
@@ -400,29 +830,22 @@ public class CassandraDBConnector {
     public int getCount(String rowKey, String columnParent,
                         @Optional String start, @Optional String finish,
                         @Default("false") boolean reversed,
-                        @Default("100") int count) throws CassandraDBException {
+                        @Default("100") int count,
+                        @Optional List<String> columnNames) throws CassandraDBException {
 
-        ColumnParent cParent = CassandraDBUtils
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        SlicePredicate predicate = new SlicePredicate();
-        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish,
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
                 reversed, count);
-
-        predicate.setSlice_range(range);
-        try {
-            return client.get_count(CassandraDBUtils.toByteBuffer(rowKey), cParent,
-                    predicate, this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
-    }
+        return executor.executeRead(key, new ClientCallback<Integer>() {
+            @Override
+            public Integer doWithClient(Cassandra.Client client) throws Exception {
+                return client.get_count(key, cParent, predicate, getConsistencyLevel());
+            }
+        });
+    }
 
     /**
      * A combination of multiget_slice and get_count.
@@ -445,6 +868,8 @@ public class CassandraDBConnector {
      *                     materialize the whole result into memory before returning it to the client, so be aware that you may
      *                     be better served by iterating through slices by passing the last value of one call in as the 'start'
      *                     of the next instead of increasing 'count' arbitrarily large.
+     * @param columnNames  The names of the columns to read. When set, exactly these columns are read and start, finish,
+     *                     reversed and count are ignored.
      * @return A map of keys and integers
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
@@ -452,31 +877,24 @@ public class CassandraDBConnector {
     public Object multiGetCount(@Placement(group = "row-keys") List<String> rowKeys,
                                 String columnParent, @Optional String start,
                                 @Optional String finish, @Default("false") boolean reversed,
-                                @Default("100") int count) throws CassandraDBException {
+                                @Default("100") int count, @Optional List<String> columnNames)
+            throws CassandraDBException {
 
-        List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
+        final List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
 
-        ColumnParent cParent = CassandraDBUtils
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        SlicePredicate predicate = new SlicePredicate();
-        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish,
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
                 reversed, count);
 
-        predicate.setSlice_range(range);
-
-        try {
-            return client.multiget_count(keys, cParent,
-                    predicate, this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.executeMultiget(keys, new MultigetCallback<Integer>() {
+            @Override
+            public Map<ByteBuffer, Integer> doWithClient(Cassandra.Client client, List<ByteBuffer> chunk)
+                    throws Exception {
+                return client.multiget_count(chunk, cParent, predicate, getConsistencyLevel());
+            }
+        });
     }
 
     /**
@@ -509,6 +927,8 @@ public class CassandraDBConnector {
      * @param startToken    The first token in the exclusive KeyRange.
      * @param endToken      The last token in the exclusive KeyRange.
      * @param keyRangeCount The total number of keys to permit in the KeyRange.
+     * @param columnNames   The names of the columns to read. When set, exactly these columns are read and start,
+     *                      finish, reversed and count are ignored.
      * @return List of objects KeySlice
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
@@ -517,36 +937,163 @@ public class CassandraDBConnector {
                                  @Optional String finish, @Default("false") boolean reversed,
                                  @Default("100") int count, @Optional String startKey,
                                  @Optional String endKey, @Optional String startToken,
-                                 @Optional String endToken, @Default("100") int keyRangeCount)
+                                 @Optional String endToken, @Default("100") int keyRangeCount,
+                                 @Optional List<String> columnNames)
             throws CassandraDBException {
 
-        ColumnParent cParent = CassandraDBUtils
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        SlicePredicate predicate = new SlicePredicate();
-        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish,
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
                 reversed, count);
 
-        predicate.setSlice_range(range);
-
-        KeyRange keyRange = new KeyRange();
+        final KeyRange keyRange = new KeyRange();
         keyRange.setCount(keyRangeCount)
                 .setStart_key(CassandraDBUtils.toByteBuffer(startKey))
                 .setEnd_key(CassandraDBUtils.toByteBuffer(endKey))
                 .setStart_token(startToken).setEnd_token(endToken);
 
-        try {
-            return client.get_range_slices(cParent, predicate, keyRange,
-                    this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<List<KeySlice>>() {
+            @Override
+            public List<KeySlice> doWithClient(Cassandra.Client client) throws Exception {
+                return client.get_range_slices(cParent, predicate, keyRange, getConsistencyLevel());
+            }
+        });
+    }
+
+    /**
+     * Scans every row of a key range, or of a token range, and returns a lazy iterator of KeySlice. Rows are read
+     * pageSize at a time with get_range_slices as the iterator advances, so memory use depends on the page size
+     * rather than on the number of rows. Leave the keys and tokens empty to scan the whole column family.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:scan-range-slices}
+     *
+     * @param columnParent Path to the column - must be a name of the ColumnFamily or
+     *                     ColumnFamily:SuperColumn pair
+     * @param start        The column name to start the slice with in every row.
+     * @param finish       The column name to stop the slice at in every row.
+     * @param reversed     Whether the columns should be ordered in reversed order.
+     * @param count        How many columns to return per row.
+     * @param startKey     The first key of the range.
+     * @param endKey       The last key of the range.
+     * @param startToken   The first token of the range, exclusive. Scanning a token range requires the Random,
+     *                     ByteOrdered or OrderPreserving partitioner.
+     * @param endToken     The last token of the range.
+     * @param pageSize     Number of rows read per call.
+     * @return an Iterator of KeySlice
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    @Processor
+    public Iterator<KeySlice> scanRangeSlices(String columnParent, @Optional String start,
+                                              @Optional String finish, @Default("false") boolean reversed,
+                                              @Default("100") int count, @Optional String startKey,
+                                              @Optional String endKey, @Optional String startToken,
+                                              @Optional String endToken, @Default("100") int pageSize)
+            throws CassandraDBException {
+        ColumnParent cParent = CassandraDBUtils.generateColumnParent(columnParent);
+        SlicePredicate predicate = new SlicePredicate();
+        predicate.setSlice_range(CassandraDBUtils.generateSliceRange(start, finish, reversed, count));
+
+        KeyRange keyRange = scanRange(startKey, endKey, startToken, endToken);
+        TokenRing.Partitioner partitioner = keyRange.isSetStart_token() ? getPartitioner() : null;
+        return new RangeSliceIterator(executor, cParent, predicate, getConsistencyLevel(), keyRange, pageSize,
+                partitioner);
+    }
+
+    /**
+     * Scans every column of every row of a key range, or of a token range, paging across rows and columns
+     * together. Rows are read rowPageSize at a time with get_range_slices, with up to columnPageSize columns each;
+     * the rest of a wider row is read columnPageSize columns at a time with get_slice and returned as further
+     * KeySlice of the same key. Narrow rows are not over-fetched and wide rows are not truncated. Leave the keys and
+     * tokens empty to scan the whole column family.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:scan-paged-slices}
+     *
+     * @param columnFamily   The column family to scan.
+     * @param startKey       The first key of the range.
+     * @param endKey         The last key of the range.
+     * @param startToken     The first token of the range, exclusive. Scanning a token range requires the Random,
+     *                       ByteOrdered or OrderPreserving partitioner.
+     * @param endToken       The last token of the range.
+     * @param rowPageSize    Number of rows read per get_range_slices call.
+     * @param columnPageSize Number of columns read per row, and per get_slice call for wider rows.
+     * @return an Iterator of KeySlice, a wide row spanning several consecutive KeySlice
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    @Processor
+    public Iterator<KeySlice> scanPagedSlices(String columnFamily, @Optional String startKey,
+                                              @Optional String endKey, @Optional String startToken,
+                                              @Optional String endToken, @Default("100") int rowPageSize,
+                                              @Default("1000") int columnPageSize)
+            throws CassandraDBException {
+        KeyRange keyRange = scanRange(startKey, endKey, startToken, endToken);
+        TokenRing.Partitioner partitioner = keyRange.isSetStart_token() ? getPartitioner() : null;
+        return new PagedSliceIterator(executor, new ColumnParent(columnFamily), getConsistencyLevel(), keyRange,
+                rowPageSize, columnPageSize, partitioner);
+    }
+
+    /**
+     * Streams read results as JSON to the outbound endpoint instead of returning them as objects. The JSON is
+     * written as the payload is consumed: the iterators returned by scan-slice, scan-range-slices and
+     * scan-paged-slices are read one page at a time while it is written, so exports of any size use constant
+     * memory. Lists and iterators become arrays, Maps become objects and each row becomes an object holding its
+     * key and its columns.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:to-json-stream}
+     *
+     * @param results           The results to write, by default the payload.
+     * @param columnSerializers Serializers for each column
+     * @return an OutputHandler writing the results as JSON
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException if a serializer type is not a known class.
+     */
+    @Processor
+    public OutputHandler toJsonStream(@Default("#[payload]") Object results,
+                                      @Placement(group = "Columns Serializars") @Optional
+                                      List<ColumnSerializer> columnSerializers) throws CassandraDBException {
+        return new JsonStreamWriter(results, SerializerRegistry.resolve(columnSerializers));
+    }
+
+    /**
+     * Scans a whole column family in parallel. The ring returned by describe_ring is split with describe_splits
+     * into token ranges of about keysPerSplit rows, which are read concurrently by up to parallelism workers, each
+     * paging through its range with get_range_slices. The rows are merged into a single lazy iterator of
+     * KeySlice, in no particular order. Requires the Random, ByteOrdered or OrderPreserving partitioner.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:parallel-scan-range-slices}
+     *
+     * @param columnParent Path to the column - must be a name of the ColumnFamily or
+     *                     ColumnFamily:SuperColumn pair
+     * @param start        The column name to start the slice with in every row.
+     * @param finish       The column name to stop the slice at in every row.
+     * @param reversed     Whether the columns should be ordered in reversed order.
+     * @param count        How many columns to return per row.
+     * @param keysPerSplit Approximate number of rows per token range.
+     * @param parallelism  Maximum number of token ranges read at the same time.
+     * @param pageSize     Number of rows read per call.
+     * @return an Iterator of KeySlice
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    @Processor
+    public Iterator<KeySlice> parallelScanRangeSlices(String columnParent, @Optional String start,
+                                                      @Optional String finish, @Default("false") boolean reversed,
+                                                      @Default("100") int count,
+                                                      @Default("65536") int keysPerSplit,
+                                                      @Default("4") int parallelism,
+                                                      @Default("100") int pageSize)
+            throws CassandraDBException {
+        ColumnParent cParent = CassandraDBUtils.generateColumnParent(columnParent);
+        SlicePredicate predicate = new SlicePredicate();
+        predicate.setSlice_range(CassandraDBUtils.generateSliceRange(start, finish, reversed, count));
+
+        TokenRing.Partitioner partitioner = getPartitioner();
+        List<KeyRange> splits = ParallelRangeScan.split(executor, keyspace, cParent.getColumn_family(), keysPerSplit);
+        LOGGER.debug("Scanning " + columnParent + " in " + splits.size() + " token ranges");
+        return new ParallelRangeScan(executor, cParent, predicate, getConsistencyLevel(), splits, pageSize,
+                partitioner, parallelism).start();
     }
 
     /**
@@ -582,6 +1129,8 @@ public class CassandraDBConnector {
      *                       i.e., an empty byte array, to start with the first key
      * @param expressionList The list of IndexExpression objects which must contain one EQ
      *                       IndexOperator among the expressions
+     * @param columnNames    The names of the columns to read. When set, exactly these columns are read and start,
+     *                       finish, reversed and count are ignored.
      * @return List of objects KeySlice
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
@@ -591,36 +1140,28 @@ public class CassandraDBConnector {
                                    @Default("false") boolean reversed,
                                    @Default("100") int count,
                                    @Default("100") int clauseCount, String clauseStartKey,
-                                   List<IndexExpresion> expressionList)
+                                   List<IndexExpresion> expressionList,
+                                   @Optional List<String> columnNames)
             throws CassandraDBException {
 
-        ColumnParent cParent = CassandraDBUtils
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        SlicePredicate predicate = new SlicePredicate();
-        SliceRange range = CassandraDBUtils.generateSliceRange(start, finish,
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
                 reversed, count);
 
-        predicate.setSlice_range(range);
-
-        IndexClause indexClause = new IndexClause();
+        final IndexClause indexClause = new IndexClause();
         indexClause.setCount(clauseCount);
         indexClause.setStart_key(CassandraDBUtils.toByteBuffer(clauseStartKey));
         List<IndexExpression> expList = CassandraDBUtils.toIndexExpression(expressionList);
         indexClause.setExpressions(expList);
 
-        try {
-            return client.get_indexed_slices(cParent, indexClause, predicate,
-                    this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<List<KeySlice>>() {
+            @Override
+            public List<KeySlice> doWithClient(Cassandra.Client client) throws Exception {
+                return client.get_indexed_slices(cParent, indexClause, predicate, getConsistencyLevel());
+            }
+        });
     }
 
     /**
@@ -648,31 +1189,46 @@ public class CassandraDBConnector {
     public void insert(String rowKey, String columnParent, String columnName,
                        String columnValue, @Default("0") int ttl)
             throws CassandraDBException {
-        ColumnParent cParent = CassandraDBUtils
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
-        Column column = new Column(CassandraDBUtils.toByteBuffer(columnName));
+        final Column column = new Column(CassandraDBUtils.toByteBuffer(columnName));
         column.setValue(CassandraDBUtils.toByteBuffer(columnValue));
         column.setTimestamp(System.currentTimeMillis());
         if (ttl > 0) {
             column.setTtl(ttl);
         }
+        if (writeBehindBuffer != null) {
+            ColumnOrSuperColumn cosc = new ColumnOrSuperColumn();
+            if (cParent.isSetSuper_column()) {
+                cosc.setSuper_column(new SuperColumn(cParent.bufferForSuper_column(),
+                        Collections.singletonList(column)));
+            } else {
+                cosc.setColumn(column);
+            }
+            writeBehind(key, cParent.getColumn_family(), cosc, false);
+            return;
+        }
         try {
-            client.insert(CassandraDBUtils.toByteBuffer(rowKey), cParent, column,
-                    this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            executor.execute(key, new ClientCallback<Void>() {
+                @Override
+                public Void doWithClient(Cassandra.Client client) throws Exception {
+                    client.insert(key, cParent, column, getConsistencyLevel());
+                    return null;
+                }
+            });
+        } finally {
+            invalidateRow(key, cParent.getColumn_family());
         }
     }
 
     /**
      * Insert object into the database
      * <p/>
+     * The content is written with batch-mutate: when batchMaxMutations or batchMaxBytes is set and the content is
+     * over the limits, it is written as several requests that succeed or fail independently, so a failure may leave
+     * part of the content inserted.
+     * <p/>
      * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample cassandradb:insert-from-map}
      *
      * @param content Content to be inserted into the database. Must be an instance of Map in the following format:
@@ -716,15 +1272,24 @@ public class CassandraDBConnector {
         for (Object key : content.keySet()) {
             String nextCFName = (String) key;
 
-            Map<ByteBuffer, Map<String, List<Mutation>>> mutationsMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
-
-            try {
-                CfDef cfDef = new CfDef(keyspace, nextCFName);
-                cfDef.column_type = "Super";
-                client.system_add_column_family(cfDef);
-            } catch (Exception e) {
-                //Assume CF already exists:
-                LOGGER.warn("ColumnFamily '" + nextCFName + "' already exists; message: " + e);
+            final Map<ByteBuffer, Map<String, List<Mutation>>> mutationsMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+
+            if (!schemaCache.hasColumnFamily(keyspace, nextCFName)) {
+                try {
+                    final CfDef cfDef = new CfDef(keyspace, nextCFName);
+                    cfDef.column_type = "Super";
+                    executor.execute(new ClientCallback<String>() {
+                        @Override
+                        public String doWithClient(Cassandra.Client client) throws Exception {
+                            return client.system_add_column_family(cfDef);
+                        }
+                    });
+                } catch (Exception e) {
+                    //Assume CF already exists:
+                    LOGGER.warn("ColumnFamily '" + nextCFName + "' already exists; message: " + e);
+                } finally {
+                    schemaCache.invalidate(keyspace);
+                }
             }
 
             //Get SuperColumns of this CF
@@ -768,15 +1333,9 @@ public class CassandraDBConnector {
             }
 
             try {
-                client.batch_mutate(mutationsMap, this.getConsistencyLevel());
-            } catch (InvalidRequestException e) {
-                throw new CassandraDBException(e.getMessage(), e);
-            } catch (UnavailableException e) {
-                throw new CassandraDBException(e.getMessage(), e);
-            } catch (TimedOutException e) {
-                throw new CassandraDBException(e.getMessage(), e);
-            } catch (TException e) {
-                throw new CassandraDBException(e.getMessage(), e);
+                executor.executeBatchMutate(mutationsMap, getConsistencyLevel());
+            } finally {
+                invalidateRows(mutationsMap);
             }
         }
 
@@ -791,6 +1350,9 @@ public class CassandraDBConnector {
      * be more specific, the outer map key is a row key, the inner map key is
      * the column family name. A Mutation specifies either columns to insert or
      * columns to delete. See Mutation and Deletion above for more details.
+     * When batchMaxMutations or batchMaxBytes is set, a larger batch is split into sub-batches written in parallel.
+     * The batch is then no longer sent as a single request: sub-batches succeed or fail independently, so a failure
+     * may leave part of the batch applied. A BatchMutateException holds the mutations of each failed sub-batch.
      * <p/>
      * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
      * cassandradb:batch-mutable}
@@ -799,20 +1361,223 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public void batchMutable(@Default("#[payload]") Map content) throws CassandraDBException {
+    @SuppressWarnings("unchecked")
+    public void batchMutable(@Default("#[payload]") final Map content) throws CassandraDBException {
         LOGGER.debug("Batch mutable called with: " + content);
 
         try {
-            client.batch_mutate(content, this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            executor.executeBatchMutate(content, getConsistencyLevel());
+        } finally {
+            invalidateRows(content);
+        }
+    }
+
+    /**
+     * Asynchronous version of get. The request is sent on a non-blocking connection and the returned future is
+     * completed once Cassandra answers, without holding the calling thread. Requires asyncMode.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:get-async}
+     *
+     * @param rowKey            the row key
+     * @param columnPath        Path to the column - must be in the form of
+     *                          ColumnFamily:SuperColumn:Column.
+     * @param columnSerializers Serializers for each column
+     * @return a future of the result as a JSON node
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException if asyncMode is not enabled.
+     */
+    @Processor
+    public ListenableFuture<Object> getAsync(String rowKey, String columnPath, @Placement(group = "Columns Serializars")
+    @Optional final List<ColumnSerializer> columnSerializers) throws CassandraDBException {
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
+        return getAsyncExecutor().execute(key, new AsyncClientCallback<Cassandra.AsyncClient.get_call, Object>() {
+            @Override
+            public void start(Cassandra.AsyncClient client, AsyncMethodCallback<Cassandra.AsyncClient.get_call> handler)
+                    throws TException {
+                client.get(key, cPath, getConsistencyLevel(), handler);
+            }
+
+            @Override
+            public Object getResult(Cassandra.AsyncClient.get_call call) throws Exception {
+                return CassandraDBUtils.columnOrSuperColumnToMap(call.getResult(), columnSerializers);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of get-slice. Requires asyncMode.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:get-slice-async}
+     *
+     * @param rowKey            the row key
+     * @param columnParent      Path to the column - must be a name of the ColumnFamily or
+     *                          ColumnFamily:SuperColumn pair
+     * @param start             The column name to start the slice with.
+     * @param finish            The column name to stop the slice at.
+     * @param reversed          Whether the results should be ordered in reversed order.
+     * @param count             How many columns to return.
+     * @param columnSerializers Serializers for each column
+     * @param columnNames       The names of the columns to read. When set, exactly these columns are read and start,
+     *                          finish, reversed and count are ignored.
+     * @return a future of the result as a JSON node
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException if asyncMode is not enabled.
+     */
+    @Processor(name = "get-slice-async")
+    public ListenableFuture<Object> getSliceAsync(String rowKey, String columnParent,
+                                                  @Optional String start, @Optional String finish,
+                                                  @Default("false") boolean reversed,
+                                                  @Default("100") int count,
+                                                  @Placement(group = "Columns Serializars") @Optional
+                                                  final List<ColumnSerializer> columnSerializers,
+                                                  @Optional List<String> columnNames)
+            throws CassandraDBException {
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnParent cParent = CassandraDBUtils.generateColumnParent(columnParent);
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
+                reversed, count);
+
+        return getAsyncExecutor().execute(key, new AsyncClientCallback<Cassandra.AsyncClient.get_slice_call, Object>() {
+            @Override
+            public void start(Cassandra.AsyncClient client,
+                              AsyncMethodCallback<Cassandra.AsyncClient.get_slice_call> handler) throws TException {
+                client.get_slice(key, cParent, predicate, getConsistencyLevel(), handler);
+            }
+
+            @Override
+            public Object getResult(Cassandra.AsyncClient.get_slice_call call) throws Exception {
+                return toRow(call.getResult(), columnSerializers);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous version of multiget-slice. Requires asyncMode.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:multiget-slice-async}
+     *
+     * @param rowKeys           A list of keys used for
+     * @param columnParent      Path to the column - must be a name of the ColumnFamily or
+     *                          ColumnFamily:SuperColumn pair
+     * @param start             The column name to start the slice with.
+     * @param finish            The column name to stop the slice at.
+     * @param reversed          Whether the results should be ordered in reversed order.
+     * @param count             How many columns to return.
+     * @param columnNames       The names of the columns to read. When set, exactly these columns are read and start,
+     *                          finish, reversed and count are ignored.
+     * @return a future of the map of keys and ColumnOrSuperColumn
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException if asyncMode is not enabled.
+     */
+    @Processor(name = "multiget-slice-async", friendlyName = "Multiget slice async")
+    public ListenableFuture<Object> multiGetSliceAsync(
+            @Placement(group = "row-keys") List<String> rowKeys,
+            String columnParent,
+            @Optional String start,
+            @Optional String finish,
+            @Default("false") boolean reversed,
+            @Default("100") int count,
+            @Optional List<String> columnNames) throws CassandraDBException {
+        final List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
+        final ColumnParent cParent = CassandraDBUtils.generateColumnParent(columnParent);
+        final SlicePredicate predicate = CassandraDBUtils.generateSlicePredicate(columnNames, start, finish,
+                reversed, count);
+
+        return getAsyncExecutor().execute(null,
+                new AsyncClientCallback<Cassandra.AsyncClient.multiget_slice_call, Object>() {
+                    @Override
+                    public void start(Cassandra.AsyncClient client,
+                                      AsyncMethodCallback<Cassandra.AsyncClient.multiget_slice_call> handler)
+                            throws TException {
+                        client.multiget_slice(keys, cParent, predicate, getConsistencyLevel(), handler);
+                    }
+
+                    @Override
+                    public Object getResult(Cassandra.AsyncClient.multiget_slice_call call) throws Exception {
+                        return call.getResult();
+                    }
+                });
+    }
+
+    /**
+     * Asynchronous version of insert. Requires asyncMode.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:insert-async}
+     *
+     * @param rowKey       The row key
+     * @param columnParent The ColumnParent
+     * @param columnName   The name of the column
+     * @param columnValue  The value of the column
+     * @param ttl          An optional, positive delay (in seconds) after which the
+     *                     Column will be automatically deleted.
+     * @return a future completed once the column is written
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException if asyncMode is not enabled.
+     */
+    @Processor
+    public ListenableFuture<Void> insertAsync(String rowKey, String columnParent, String columnName,
+                                              String columnValue, @Default("0") int ttl)
+            throws CassandraDBException {
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnParent cParent = CassandraDBUtils.generateColumnParent(columnParent);
+        final Column column = new Column(CassandraDBUtils.toByteBuffer(columnName));
+        column.setValue(CassandraDBUtils.toByteBuffer(columnValue));
+        column.setTimestamp(System.currentTimeMillis());
+        if (ttl > 0) {
+            column.setTtl(ttl);
         }
+        ListenableFuture<Void> result = getAsyncExecutor().execute(key,
+                new AsyncClientCallback<Cassandra.AsyncClient.insert_call, Void>() {
+                    @Override
+                    public void start(Cassandra.AsyncClient client,
+                                      AsyncMethodCallback<Cassandra.AsyncClient.insert_call> handler)
+                            throws TException {
+                        client.insert(key, cParent, column, getConsistencyLevel(), handler);
+                    }
+
+                    @Override
+                    public Void getResult(Cassandra.AsyncClient.insert_call call) throws Exception {
+                        call.getResult();
+                        return null;
+                    }
+                });
+        invalidateRowWhenDone(result, key, cParent.getColumn_family());
+        return result;
+    }
+
+    /**
+     * Asynchronous version of batch-mutable. Requires asyncMode.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:batch-mutable-async}
+     *
+     * @param content A Map&lt;ByteBuffer, Map&lt;String, List&lt;Mutation&gt;&gt;&gt;
+     * @return a future completed once the mutations are applied
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException if asyncMode is not enabled.
+     */
+    @Processor
+    @SuppressWarnings("unchecked")
+    public ListenableFuture<Void> batchMutableAsync(@Default("#[payload]") final Map content)
+            throws CassandraDBException {
+        boolean idempotent = !CassandraDBUtils.containsCounterMutation(content);
+        ListenableFuture<Void> result = getAsyncExecutor().execute(CassandraDBUtils.firstRowKey(content), idempotent,
+                new AsyncClientCallback<Cassandra.AsyncClient.batch_mutate_call, Void>() {
+                    @Override
+                    public void start(Cassandra.AsyncClient client,
+                                      AsyncMethodCallback<Cassandra.AsyncClient.batch_mutate_call> handler)
+                            throws TException {
+                        client.batch_mutate(content, getConsistencyLevel(), handler);
+                    }
+
+                    @Override
+                    public Void getResult(Cassandra.AsyncClient.batch_mutate_call call) throws Exception {
+                        call.getResult();
+                        return null;
+                    }
+                });
+        invalidateRowsWhenDone(result, content);
+        return result;
     }
 
     /**
@@ -833,24 +1598,43 @@ public class CassandraDBConnector {
     public void add(String rowKey, String columnParent, String counterName,
                     int counterValue) throws CassandraDBException {
 
-        ColumnParent cParent = CassandraDBUtils
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnParent cParent = CassandraDBUtils
                 .generateColumnParent(columnParent);
 
-        CounterColumn column = new CounterColumn();
+        final CounterColumn column = new CounterColumn();
         column.setName(CassandraDBUtils.toByteBuffer(counterName));
         column.setValue(counterValue);
 
+        if (counterAggregator != null) {
+            try {
+                counterAggregator.add(key, cParent, column.bufferForName(), counterValue, getConsistencyLevel());
+            } finally {
+                invalidateRow(key, cParent.getColumn_family());
+            }
+            return;
+        }
+        if (writeBehindBuffer != null) {
+            ColumnOrSuperColumn cosc = new ColumnOrSuperColumn();
+            if (cParent.isSetSuper_column()) {
+                cosc.setCounter_super_column(new CounterSuperColumn(cParent.bufferForSuper_column(),
+                        Collections.singletonList(column)));
+            } else {
+                cosc.setCounter_column(column);
+            }
+            writeBehind(key, cParent.getColumn_family(), cosc, true);
+            return;
+        }
         try {
-            client.add(CassandraDBUtils.toByteBuffer(rowKey), cParent, column,
-                    this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            executor.execute(key, false, new ClientCallback<Void>() {
+                @Override
+                public Void doWithClient(Cassandra.Client client) throws Exception {
+                    client.add(key, cParent, column, getConsistencyLevel());
+                    return null;
+                }
+            });
+        } finally {
+            invalidateRow(key, cParent.getColumn_family());
         }
     }
 
@@ -873,18 +1657,19 @@ public class CassandraDBConnector {
      */
     @Processor
     public void remove(String rowKey, String columnPath) throws CassandraDBException {
-        ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
+        final long timestamp = new Date().getTime();
         try {
-            client.remove(CassandraDBUtils.toByteBuffer(rowKey), cPath,
-                    new Date().getTime(), this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            executor.execute(key, new ClientCallback<Void>() {
+                @Override
+                public Void doWithClient(Cassandra.Client client) throws Exception {
+                    client.remove(key, cPath, timestamp, getConsistencyLevel());
+                    return null;
+                }
+            });
+        } finally {
+            invalidateRow(key, cPath.getColumn_family());
         }
     }
 
@@ -908,18 +1693,18 @@ public class CassandraDBConnector {
     @Processor
     public void removeCounter(String rowKey, String columnPath)
             throws CassandraDBException {
-        ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
+        final ByteBuffer key = CassandraDBUtils.toByteBuffer(rowKey);
+        final ColumnPath cPath = CassandraDBUtils.parseColumnPath(columnPath);
         try {
-            client.remove_counter(CassandraDBUtils.toByteBuffer(rowKey), cPath,
-                    this.getConsistencyLevel());
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            executor.execute(key, new ClientCallback<Void>() {
+                @Override
+                public Void doWithClient(Cassandra.Client client) throws Exception {
+                    client.remove_counter(key, cPath, getConsistencyLevel());
+                    return null;
+                }
+            });
+        } finally {
+            invalidateRow(key, cPath.getColumn_family());
         }
     }
 
@@ -933,15 +1718,19 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public void truncate(String columnFamily) throws CassandraDBException {
+    public void truncate(final String columnFamily) throws CassandraDBException {
         try {
-            client.truncate(columnFamily);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            executor.execute(new ClientCallback<Void>() {
+                @Override
+                public Void doWithClient(Cassandra.Client client) throws Exception {
+                    client.truncate(columnFamily);
+                    return null;
+                }
+            });
+        } finally {
+            if (rowCache != null) {
+                rowCache.invalidateColumnFamily(keyspace, columnFamily);
+            }
         }
     }
 
@@ -956,11 +1745,12 @@ public class CassandraDBConnector {
      */
     @Processor
     public String describeClusterName() throws CassandraDBException {
-        try {
-            return client.describe_cluster_name();
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_cluster_name();
+            }
+        });
     }
 
     /**
@@ -977,13 +1767,12 @@ public class CassandraDBConnector {
      */
     @Processor
     public Map describeSchemaVersions() throws CassandraDBException {
-        try {
-            return client.describe_schema_versions();
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<Map<String, List<String>>>() {
+            @Override
+            public Map<String, List<String>> doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_schema_versions();
+            }
+        });
     }
 
     /**
@@ -997,16 +1786,13 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public Object describeKeyspace(String keyspace) throws CassandraDBException {
-        try {
-            return client.describe_keyspace(keyspace);
-        } catch (NotFoundException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+    public Object describeKeyspace(final String keyspace) throws CassandraDBException {
+        return executor.execute(null, true, new ClientCallback<KsDef>() {
+            @Override
+            public KsDef doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_keyspace(keyspace);
+            }
+        });
     }
 
     /**
@@ -1021,13 +1807,12 @@ public class CassandraDBConnector {
      */
     @Processor
     public List describeKeyspaces() throws CassandraDBException {
-        try {
-            return client.describe_keyspaces();
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<List<KsDef>>() {
+            @Override
+            public List<KsDef> doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_keyspaces();
+            }
+        });
     }
 
     /**
@@ -1041,11 +1826,12 @@ public class CassandraDBConnector {
      */
     @Processor
     public String describePartitioner() throws CassandraDBException {
-        try {
-            return client.describe_partitioner();
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_partitioner();
+            }
+        });
     }
 
     /**
@@ -1063,14 +1849,13 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public List describeRing(String keyspace) throws CassandraDBException {
-        try {
-            return client.describe_ring(keyspace);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+    public List describeRing(final String keyspace) throws CassandraDBException {
+        return executor.execute(null, true, new ClientCallback<List<TokenRange>>() {
+            @Override
+            public List<TokenRange> doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_ring(keyspace);
+            }
+        });
     }
 
     /**
@@ -1084,11 +1869,12 @@ public class CassandraDBConnector {
      */
     @Processor
     public String describeSnitch() throws CassandraDBException {
-        try {
-            return client.describe_snitch();
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_snitch();
+            }
+        });
     }
 
     /**
@@ -1102,11 +1888,12 @@ public class CassandraDBConnector {
      */
     @Processor
     public String describeVersion() throws CassandraDBException {
-        try {
-            return client.describe_version();
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(null, true, new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_version();
+            }
+        });
     }
 
     /**
@@ -1122,16 +1909,13 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public String systemAddColumnFamilyFromObject(CfDef cfDefinition) throws CassandraDBException {
-        try {
-            return client.system_add_column_family(cfDefinition);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+    public String systemAddColumnFamilyFromObject(final CfDef cfDefinition) throws CassandraDBException {
+        return executor.execute(new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.system_add_column_family(cfDefinition);
+            }
+        });
     }
 
     /**
@@ -1147,7 +1931,7 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public String systemAddColumnFamilyFromObjectWithSimpleNames(CfDef cfDefinition, List<String> columnNames)
+    public String systemAddColumnFamilyFromObjectWithSimpleNames(final CfDef cfDefinition, List<String> columnNames)
             throws CassandraDBException {
 
         if (columnNames.size() != cfDefinition.column_metadata.size()) {
@@ -1159,15 +1943,12 @@ public class CassandraDBConnector {
             col.setName(CassandraDBUtils.toByteBuffer(nameIterator.next()));
         }
 
-        try {
-            return client.system_add_column_family(cfDefinition);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.system_add_column_family(cfDefinition);
+            }
+        });
     }
 
     /**
@@ -1278,16 +2059,17 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public String systemDropColumnFamily(String columnFamily)
+    public String systemDropColumnFamily(final String columnFamily)
             throws CassandraDBException {
         try {
-            return client.system_drop_column_family(columnFamily);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            return executor.execute(new ClientCallback<String>() {
+                @Override
+                public String doWithClient(Cassandra.Client client) throws Exception {
+                    return client.system_drop_column_family(columnFamily);
+                }
+            });
+        } finally {
+            schemaCache.invalidate(keyspace);
         }
     }
 
@@ -1305,17 +2087,14 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public String systemAddKeyspaceFromObject(KsDef keyspaceDefinition)
+    public String systemAddKeyspaceFromObject(final KsDef keyspaceDefinition)
             throws CassandraDBException {
-        try {
-            return client.system_add_keyspace(keyspaceDefinition);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.system_add_keyspace(keyspaceDefinition);
+            }
+        });
     }
 
     /**
@@ -1369,16 +2148,17 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public Object systemDropKeyspace(String keyspace)
+    public Object systemDropKeyspace(final String keyspace)
             throws CassandraDBException {
         try {
-            return client.system_drop_keyspace(keyspace);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            return executor.execute(new ClientCallback<String>() {
+                @Override
+                public String doWithClient(Cassandra.Client client) throws Exception {
+                    return client.system_drop_keyspace(keyspace);
+                }
+            });
+        } finally {
+            schemaCache.invalidate(keyspace);
         }
     }
 
@@ -1393,17 +2173,14 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public String systemUpdateKeyspace(KsDef keyspaceDef)
+    public String systemUpdateKeyspace(final KsDef keyspaceDef)
             throws CassandraDBException {
-        try {
-            return client.system_update_keyspace(keyspaceDef);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.system_update_keyspace(keyspaceDef);
+            }
+        });
     }
 
     /**
@@ -1417,17 +2194,14 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public String systemUpdateColumnFamily(CfDef columnFamily)
+    public String systemUpdateColumnFamily(final CfDef columnFamily)
             throws CassandraDBException {
-        try {
-            return client.system_update_column_family(columnFamily);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        }
+        return executor.execute(new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                return client.system_update_column_family(columnFamily);
+            }
+        });
     }
 
     /**
@@ -1443,24 +2217,183 @@ public class CassandraDBConnector {
      * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
     @Processor
-    public Object executeCqlQuery(String query, @Default("NONE") Compression compression)
+    public Object executeCqlQuery(final String query, @Default("NONE") final Compression compression)
+            throws CassandraDBException {
+        return executor.execute(new ClientCallback<CqlResult>() {
+            @Override
+            public CqlResult doWithClient(Cassandra.Client client) throws Exception {
+                return client.execute_cql_query(CassandraDBUtils.toByteBuffer(query), compression);
+            }
+        });
+    }
+
+    /**
+     * Executes a CQL statement with '?' bind markers, binding the given parameters to them in order, so flows do
+     * not need to build queries by concatenation. The parameters are bound on the client and the statement is sent
+     * as text, like execute-cql-query: the Thrift API of Cassandra 1.0 has no server-side prepared statements.
+     * Strings are quoted and escaped, byte arrays are written as hexadecimal blobs, dates as milliseconds since the
+     * epoch, and JDK numbers, booleans and UUIDs as they are; NaN, infinities and other types are rejected. With
+     * GZIP compression the statement is deflated before it is sent.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:execute-cql-with-parameters}
+     *
+     * @param query       CQL Statement to be executed, with a '?' bind marker per parameter
+     * @param parameters  The values bound to the markers
+     * @param compression Compression of the statement sent, by default we use NONE
+     * @return CqlResult containing the results of the execution
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    @Processor
+    public Object executeCqlWithParameters(String query, @Optional List<Object> parameters,
+                                           @Default("NONE") final Compression compression)
+            throws CassandraDBException {
+        final ByteBuffer statement = CqlParameterBinder.encode(
+                CqlParameterBinder.bind(query, parameters), compression);
+        return executor.execute(new ClientCallback<CqlResult>() {
+            @Override
+            public CqlResult doWithClient(Cassandra.Client client) throws Exception {
+                return client.execute_cql_query(statement.duplicate(), compression);
+            }
+        });
+    }
+
+    /**
+     * Sends the writes buffered by insert and add when writeBehind is enabled, and the counter increments summed
+     * when aggregateCounters is enabled, and waits until they are written. Does nothing when both are disabled.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:flush}
+     *
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException when buffered writes could not be written since the
+     *                                                            previous flush.
+     */
+    @Processor
+    public void flush() throws CassandraDBException {
+        try {
+            if (counterAggregator != null) {
+                counterAggregator.flush();
+            }
+        } finally {
+            if (writeBehindBuffer != null) {
+                writeBehindBuffer.flush();
+            }
+        }
+    }
+
+    /**
+     * Loads the rows of a stream of CSV or JSON lines records into a column family. Every record is a row: the
+     * keyColumn field is its key, and the other fields are written as columns. Records are parsed one at a time and
+     * written in batches of batchSize rows, with up to inFlightBatches batches written in parallel while the next
+     * ones are parsed. A failed batch does not stop the load. The stream is closed once it has been read.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:bulk-load}
+     *
+     * @param input           The records, by default the payload, encoded in UTF-8
+     * @param columnFamily    The column family the rows are written to
+     * @param keyColumn       The field holding the row key
+     * @param format          CSV, or JSON_LINES for one JSON object per line
+     * @param columnNames     The names of the fields of a CSV record, in order; by default they are read from the
+     *                        first line
+     * @param delimiter       The field separator of CSV records
+     * @param batchSize       Number of rows written by a single batch-mutate
+     * @param inFlightBatches Number of batches written at the same time
+     * @return the statistics of the load: rows, writtenRows, failedRows, batches, failedBatches, elapsedMillis,
+     *         rowsPerSecond and the first errors
+     * @throws com.mulesoft.mule.cassandradb.CassandraDBException when the records cannot be read.
+     */
+    @Processor
+    public Map<String, Object> bulkLoad(@Default("#[payload]") InputStream input, String columnFamily,
+                                        String keyColumn, @Default("CSV") BulkLoadFormat format,
+                                        @Optional List<String> columnNames, @Default(",") String delimiter,
+                                        @Default("500") int batchSize, @Default("4") int inFlightBatches)
             throws CassandraDBException {
+        BulkLoader loader = new BulkLoader(executor, getConsistencyLevel(), columnFamily, keyColumn, batchSize,
+                inFlightBatches);
+        Reader reader = new BufferedReader(new InputStreamReader(input, Charset.forName("UTF-8")));
         try {
-            return client.execute_cql_query(CassandraDBUtils.toByteBuffer(query),
-                    compression);
-        } catch (InvalidRequestException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (UnavailableException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TimedOutException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (SchemaDisagreementException e) {
-            throw new CassandraDBException(e.getMessage(), e);
-        } catch (TException e) {
-            throw new CassandraDBException(e.getMessage(), e);
+            if (format == BulkLoadFormat.JSON_LINES) {
+                return loader.loadJsonLines(reader);
+            }
+            if (delimiter.length() != 1) {
+                throw new CassandraDBException("The delimiter must be a single character: " + delimiter);
+            }
+            return loader.loadCsv(reader, columnNames, delimiter.charAt(0));
+        } finally {
+            if (rowCache != null) {
+                rowCache.invalidateColumnFamily(keyspace, columnFamily);
+            }
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to close the bulk load input", e);
+            }
         }
     }
 
+    /**
+     * Decodes the rows of the CqlResult returned by execute-cql-query or execute-cql-with-parameters into Maps of
+     * typed values, by column name. Names and values are decoded with the types of the result schema: longs,
+     * integers, doubles, UUIDs, dates, booleans and UTF-8 or ASCII strings, or byte arrays for the other types. The
+     * types of a column are resolved once per result, and rows are decoded one at a time as the iterator advances.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:decode-cql-result}
+     *
+     * @param result The CqlResult to decode, by default the payload
+     * @return an Iterator of Maps, one per row, empty when the result holds no rows
+     */
+    @Processor
+    public Iterator<Map<String, Object>> decodeCqlResult(@Default("#[payload]") CqlResult result) {
+        return CqlResultDecoder.rows(result);
+    }
+
+    /**
+     * Returns the health of every host of the connection pool: the state of its circuit breaker (CLOSED, OPEN or
+     * HALF_OPEN), its average latency in milliseconds, its consecutive failures and its connections.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:get-host-statistics}
+     *
+     * @return a map of host names to their statistics, empty when no connection pool is used.
+     */
+    @Processor
+    public Map<String, Map<String, Object>> getHostStatistics() {
+        CassandraDBConnectionPool pool = executor != null ? executor.getPool() : null;
+        return pool != null ? pool.getHostStatistics() : new HashMap<String, Map<String, Object>>();
+    }
+
+    /**
+     * Returns the speculative read statistics: the number of reads, how many times a second request was sent to
+     * another host ("fired"), how many times that second request answered first ("won") and the current delay.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:get-speculative-read-statistics}
+     *
+     * @return a map with the statistics, empty when speculative reads are disabled.
+     */
+    @Processor
+    public Map<String, Object> getSpeculativeReadStatistics() {
+        SpeculativeExecution speculation = executor != null ? executor.getSpeculativeExecution() : null;
+        return speculation != null ? speculation.getStatistics() : new HashMap<String, Object>();
+    }
+
+    /**
+     * Returns the row cache statistics: the number of hits and misses, the hit rate, the number of rows evicted to
+     * stay within rowCacheMaxBytes and the number of cached rows.
+     * <p/>
+     * {@sample.xml ../../../doc/CassandraDB-connector.xml.sample
+     * cassandradb:get-row-cache-statistics}
+     *
+     * @return a map with the statistics, empty when the row cache is disabled.
+     */
+    @Processor
+    public Map<String, Object> getRowCacheStatistics() {
+        RowCache cache = rowCache;
+        return cache != null ? cache.getStatistics() : new HashMap<String, Object>();
+    }
+
     /**
      * @return the host connection url.
      */
@@ -1521,7 +2454,634 @@ public class CassandraDBConnector {
         this.consistencyLevel = consistencyLevel;
     }
 
+    public List<String> getHosts() {
+        return hosts;
+    }
+
+    public void setHosts(List<String> hosts) {
+        this.hosts = hosts;
+    }
+
+    public int getMinConnectionsPerHost() {
+        return minConnectionsPerHost;
+    }
+
+    public void setMinConnectionsPerHost(int minConnectionsPerHost) {
+        this.minConnectionsPerHost = minConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public long getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxHostFailures() {
+        return maxHostFailures;
+    }
+
+    public void setMaxHostFailures(int maxHostFailures) {
+        this.maxHostFailures = maxHostFailures;
+    }
+
+    public long getHostRetryInterval() {
+        return hostRetryInterval;
+    }
+
+    public void setHostRetryInterval(long hostRetryInterval) {
+        this.hostRetryInterval = hostRetryInterval;
+    }
+
+    public boolean isTokenAwareRouting() {
+        return tokenAwareRouting;
+    }
+
+    public void setTokenAwareRouting(boolean tokenAwareRouting) {
+        this.tokenAwareRouting = tokenAwareRouting;
+    }
+
+    public long getRingRefreshInterval() {
+        return ringRefreshInterval;
+    }
+
+    public void setRingRefreshInterval(long ringRefreshInterval) {
+        this.ringRefreshInterval = ringRefreshInterval;
+    }
+
+    public boolean isSpeculativeReads() {
+        return speculativeReads;
+    }
+
+    public void setSpeculativeReads(boolean speculativeReads) {
+        this.speculativeReads = speculativeReads;
+    }
+
+    public long getSpeculativeDelay() {
+        return speculativeDelay;
+    }
+
+    public void setSpeculativeDelay(long speculativeDelay) {
+        this.speculativeDelay = speculativeDelay;
+    }
+
+    public double getSpeculativePercentile() {
+        return speculativePercentile;
+    }
+
+    public void setSpeculativePercentile(double speculativePercentile) {
+        this.speculativePercentile = speculativePercentile;
+    }
+
+    public int getTimedOutRetries() {
+        return timedOutRetries;
+    }
+
+    public void setTimedOutRetries(int timedOutRetries) {
+        this.timedOutRetries = timedOutRetries;
+    }
+
+    public int getUnavailableRetries() {
+        return unavailableRetries;
+    }
+
+    public void setUnavailableRetries(int unavailableRetries) {
+        this.unavailableRetries = unavailableRetries;
+    }
+
+    public int getTransportErrorRetries() {
+        return transportErrorRetries;
+    }
+
+    public void setTransportErrorRetries(int transportErrorRetries) {
+        this.transportErrorRetries = transportErrorRetries;
+    }
+
+    public long getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public void setRetryBaseDelay(long retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public void setRetryMaxDelay(long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    public void setRetryBudgetRatio(double retryBudgetRatio) {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    public long getRowCacheMaxBytes() {
+        return rowCacheMaxBytes;
+    }
+
+    public void setRowCacheMaxBytes(long rowCacheMaxBytes) {
+        this.rowCacheMaxBytes = rowCacheMaxBytes;
+    }
+
+    public long getRowCacheTtl() {
+        return rowCacheTtl;
+    }
+
+    public void setRowCacheTtl(long rowCacheTtl) {
+        this.rowCacheTtl = rowCacheTtl;
+    }
+
+    public boolean isCoalesceReads() {
+        return coalesceReads;
+    }
+
+    public void setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
+
+    public long getReadBatchWindow() {
+        return readBatchWindow;
+    }
+
+    public void setReadBatchWindow(long readBatchWindow) {
+        this.readBatchWindow = readBatchWindow;
+    }
+
+    public int getReadBatchMaxSize() {
+        return readBatchMaxSize;
+    }
+
+    public void setReadBatchMaxSize(int readBatchMaxSize) {
+        this.readBatchMaxSize = readBatchMaxSize;
+    }
+
+    public boolean isLazyRowDecoding() {
+        return lazyRowDecoding;
+    }
+
+    public void setLazyRowDecoding(boolean lazyRowDecoding) {
+        this.lazyRowDecoding = lazyRowDecoding;
+    }
+
+    public int getMultigetChunkSize() {
+        return multigetChunkSize;
+    }
+
+    public void setMultigetChunkSize(int multigetChunkSize) {
+        this.multigetChunkSize = multigetChunkSize;
+    }
+
+    public int getMultigetParallelism() {
+        return multigetParallelism;
+    }
+
+    public void setMultigetParallelism(int multigetParallelism) {
+        this.multigetParallelism = multigetParallelism;
+    }
+
+    public long getMultigetChunkTimeout() {
+        return multigetChunkTimeout;
+    }
+
+    public void setMultigetChunkTimeout(long multigetChunkTimeout) {
+        this.multigetChunkTimeout = multigetChunkTimeout;
+    }
+
+    public int getBatchMaxMutations() {
+        return batchMaxMutations;
+    }
+
+    public void setBatchMaxMutations(int batchMaxMutations) {
+        this.batchMaxMutations = batchMaxMutations;
+    }
+
+    public long getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public void setBatchMaxBytes(long batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+
+    public long getSchemaCheckInterval() {
+        return schemaCheckInterval;
+    }
+
+    public void setSchemaCheckInterval(long schemaCheckInterval) {
+        this.schemaCheckInterval = schemaCheckInterval;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
+    public long getWriteBehindBatchBytes() {
+        return writeBehindBatchBytes;
+    }
+
+    public void setWriteBehindBatchBytes(long writeBehindBatchBytes) {
+        this.writeBehindBatchBytes = writeBehindBatchBytes;
+    }
+
+    public long getWriteBehindFlushInterval() {
+        return writeBehindFlushInterval;
+    }
+
+    public void setWriteBehindFlushInterval(long writeBehindFlushInterval) {
+        this.writeBehindFlushInterval = writeBehindFlushInterval;
+    }
+
+    public int getWriteBehindCapacity() {
+        return writeBehindCapacity;
+    }
+
+    public void setWriteBehindCapacity(int writeBehindCapacity) {
+        this.writeBehindCapacity = writeBehindCapacity;
+    }
+
+    public int getWriteBehindThreads() {
+        return writeBehindThreads;
+    }
+
+    public void setWriteBehindThreads(int writeBehindThreads) {
+        this.writeBehindThreads = writeBehindThreads;
+    }
+
+    public boolean isAggregateCounters() {
+        return aggregateCounters;
+    }
+
+    public void setAggregateCounters(boolean aggregateCounters) {
+        this.aggregateCounters = aggregateCounters;
+    }
+
+    public long getCounterFlushInterval() {
+        return counterFlushInterval;
+    }
+
+    public void setCounterFlushInterval(long counterFlushInterval) {
+        this.counterFlushInterval = counterFlushInterval;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Replaces the retry policy built from the retry attributes. Takes effect on the next connection.
+     *
+     * @param retryPolicy The custom retry policy.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public boolean isAsyncMode() {
+        return asyncMode;
+    }
+
+    public void setAsyncMode(boolean asyncMode) {
+        this.asyncMode = asyncMode;
+    }
+
+    public long getAsyncRequestTimeout() {
+        return asyncRequestTimeout;
+    }
+
+    public void setAsyncRequestTimeout(long asyncRequestTimeout) {
+        this.asyncRequestTimeout = asyncRequestTimeout;
+    }
+
+    /**
+     * Uses a single client for every operation instead of a connection pool.
+     *
+     * @param client A connected client.
+     */
     public void setClient(Cassandra.Client client) {
-        this.client = client;
+        this.executor = new RequestExecutor(client);
+        this.executor.setRetryPolicy(createRetryPolicy(), new RetryBudget(retryBudgetRatio));
+        if (multigetChunkSize > 0) {
+            this.executor.setMultigetChunking(
+                    new MultigetChunking(multigetChunkSize, multigetParallelism, multigetChunkTimeout));
+        }
+        if (batchMaxMutations > 0 || batchMaxBytes > 0) {
+            this.executor.setBatchSplitting(
+                    new BatchSplitting(batchMaxMutations, batchMaxBytes, batchParallelism));
+        }
+        this.rowCache = rowCacheMaxBytes > 0 ? new RowCache(rowCacheMaxBytes, rowCacheTtl) : null;
+        this.readCoalescer = coalesceReads ? new ReadCoalescer() : null;
+        this.readBatcher = readBatchWindow > 0 ? new ReadBatcher(executor, readBatchMaxSize, readBatchWindow) : null;
+        this.schemaCache = new SchemaCache(executor, schemaCheckInterval);
+        if (this.writeBehindBuffer != null) {
+            this.writeBehindBuffer.close();
+        }
+        this.writeBehindBuffer = createWriteBehindBuffer();
+        if (this.counterAggregator != null) {
+            this.counterAggregator.close();
+        }
+        this.counterAggregator = createCounterAggregator();
+    }
+
+    private WriteBehindBuffer createWriteBehindBuffer() {
+        return writeBehind ? new WriteBehindBuffer(executor, rowCache, keyspace, writeBehindBatchSize,
+                writeBehindBatchBytes, writeBehindFlushInterval, writeBehindCapacity, writeBehindThreads) : null;
+    }
+
+    private CounterAggregator createCounterAggregator() {
+        return aggregateCounters ? new CounterAggregator(executor, rowCache, keyspace, counterFlushInterval) : null;
+    }
+
+    /**
+     * Runs a read of a single row through the row cache and the read coalescer, when they are enabled.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readRow(final ByteBuffer key, String columnFamily, final List<Object> selector,
+                          final Callable<T> read) throws CassandraDBException {
+        final RowCache cache = rowCache;
+        final RowCache.RowId row = new RowCache.RowId(keyspace, columnFamily, key);
+        if (cache != null) {
+            Object cached = cache.get(row, selector);
+            if (cached != null) {
+                return (T) cached;
+            }
+        }
+        ReadCoalescer coalescer = readCoalescer;
+        if (coalescer == null) {
+            return readThrough(cache, row, selector, read);
+        }
+        return coalescer.execute(Arrays.asList(row, selector, getConsistencyLevel()), new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return readThrough(cache, row, selector, read);
+            }
+        });
+    }
+
+    /**
+     * Sends a read of a single row and caches its result.
+     */
+    private <T> T readThrough(RowCache cache, RowCache.RowId row, List<Object> selector, Callable<T> read)
+            throws CassandraDBException {
+        long stamp = cache != null ? cache.stamp(row) : 0;
+        T result;
+        try {
+            result = read.call();
+        } catch (CassandraDBException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CassandraDBException(e.getMessage(), e);
+        }
+        if (cache != null) {
+            cache.put(row, selector, result, stamp);
+        }
+        return result;
+    }
+
+    /**
+     * @return the read of a column or super column, sent with get or, when readBatchWindow is set, batched with the
+     * reads of other rows.
+     */
+    private Callable<ColumnOrSuperColumn> columnRead(final ByteBuffer key, final ColumnPath columnPath) {
+        final ReadBatcher batcher = readBatcher;
+        if (batcher != null && (columnPath.isSetColumn() || columnPath.isSetSuper_column())) {
+            return new Callable<ColumnOrSuperColumn>() {
+                @Override
+                public ColumnOrSuperColumn call() throws Exception {
+                    ColumnParent columnParent = new ColumnParent(columnPath.getColumn_family());
+                    SlicePredicate predicate = new SlicePredicate();
+                    if (columnPath.isSetColumn()) {
+                        columnParent.setSuper_column(columnPath.bufferForSuper_column());
+                        predicate.setColumn_names(Collections.singletonList(columnPath.bufferForColumn()));
+                    } else {
+                        predicate.setColumn_names(Collections.singletonList(columnPath.bufferForSuper_column()));
+                    }
+                    List<ColumnOrSuperColumn> columns =
+                            batcher.read(key, columnParent, predicate, getConsistencyLevel());
+                    if (columns.isEmpty()) {
+                        // Same failure as get
+                        NotFoundException notFound = new NotFoundException();
+                        throw new CassandraDBException(notFound.getMessage(), notFound);
+                    }
+                    return columns.get(0);
+                }
+            };
+        }
+        return new Callable<ColumnOrSuperColumn>() {
+            @Override
+            public ColumnOrSuperColumn call() throws Exception {
+                return executor.executeRead(key, new ClientCallback<ColumnOrSuperColumn>() {
+                    @Override
+                    public ColumnOrSuperColumn doWithClient(Cassandra.Client client) throws Exception {
+                        return client.get(key, columnPath, getConsistencyLevel());
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * @return the read of a slice of a row, sent with get_slice or, when readBatchWindow is set, batched with the
+     * reads of other rows.
+     */
+    private Callable<List<ColumnOrSuperColumn>> sliceRead(final ByteBuffer key, final ColumnParent columnParent,
+                                                          final SlicePredicate predicate) {
+        final ReadBatcher batcher = readBatcher;
+        if (batcher != null) {
+            return new Callable<List<ColumnOrSuperColumn>>() {
+                @Override
+                public List<ColumnOrSuperColumn> call() throws Exception {
+                    return batcher.read(key, columnParent, predicate, getConsistencyLevel());
+                }
+            };
+        }
+        return new Callable<List<ColumnOrSuperColumn>>() {
+            @Override
+            public List<ColumnOrSuperColumn> call() throws Exception {
+                return executor.executeRead(key, new ClientCallback<List<ColumnOrSuperColumn>>() {
+                    @Override
+                    public List<ColumnOrSuperColumn> doWithClient(Cassandra.Client client) throws Exception {
+                        return client.get_slice(key, columnParent, predicate, getConsistencyLevel());
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * @return the token range when a token is given, or the key range, empty keys standing for the whole ring.
+     */
+    private static KeyRange scanRange(String startKey, String endKey, String startToken, String endToken) {
+        KeyRange keyRange = new KeyRange();
+        if (startToken != null || endToken != null) {
+            keyRange.setStart_token(startToken != null ? startToken : "").setEnd_token(endToken != null ? endToken : "");
+        } else {
+            keyRange.setStart_key(startKey != null ? CassandraDBUtils.toByteBuffer(startKey) : ByteBuffer.wrap(new byte[0]))
+                    .setEnd_key(endKey != null ? CassandraDBUtils.toByteBuffer(endKey) : ByteBuffer.wrap(new byte[0]));
+        }
+        return keyRange;
+    }
+
+    /**
+     * @return the part of the row a column path reads, as a row cache selector.
+     */
+    private static List<Object> columnSelector(ColumnPath columnPath) {
+        return Arrays.<Object>asList("column", columnPath.bufferForSuper_column(), columnPath.bufferForColumn());
+    }
+
+    /**
+     * Buffers a write of insert or add, when writeBehind is enabled.
+     */
+    private void writeBehind(ByteBuffer key, String columnFamily, ColumnOrSuperColumn cosc, boolean counter)
+            throws CassandraDBException {
+        Mutation mutation = new Mutation();
+        mutation.setColumn_or_supercolumn(cosc);
+        try {
+            writeBehindBuffer.add(key, columnFamily, mutation, counter, getConsistencyLevel());
+        } finally {
+            invalidateRow(key, columnFamily);
+        }
+    }
+
+    private void invalidateRow(ByteBuffer key, String columnFamily) {
+        if (rowCache != null) {
+            rowCache.invalidate(new RowCache.RowId(keyspace, columnFamily, key));
+        }
+    }
+
+    private void invalidateRows(Map mutationMap) {
+        if (rowCache != null) {
+            rowCache.invalidate(keyspace, mutationMap);
+        }
+    }
+
+    /**
+     * Invalidates the row of an asynchronous write once it is complete.
+     */
+    private void invalidateRowWhenDone(ListenableFuture<?> write, final ByteBuffer key, final String columnFamily) {
+        if (rowCache != null) {
+            write.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    invalidateRow(key, columnFamily);
+                }
+            }, DIRECT_EXECUTOR);
+        }
+    }
+
+    /**
+     * Invalidates the rows of an asynchronous batch once it is complete.
+     */
+    private void invalidateRowsWhenDone(ListenableFuture<?> write, final Map mutationMap) {
+        if (rowCache != null) {
+            write.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    invalidateRows(mutationMap);
+                }
+            }, DIRECT_EXECUTOR);
+        }
+    }
+
+    /**
+     * @return the columns of a slice as a lazy row view when lazyRowDecoding is enabled, or as a List of decoded
+     * Maps otherwise.
+     */
+    private Object toRow(List<ColumnOrSuperColumn> columns, List<ColumnSerializer> columnSerializers)
+            throws CassandraDBException {
+        if (lazyRowDecoding) {
+            return new LazyRowMap(columns, SerializerRegistry.resolve(columnSerializers));
+        }
+        return CassandraDBUtils.listOfColumnsToMap(columns, columnSerializers);
+    }
+
+    /**
+     * @return the partitioner of the cluster, whose tokens the connector can compute.
+     */
+    private TokenRing.Partitioner getPartitioner() throws CassandraDBException {
+        String partitionerName = describePartitioner();
+        TokenRing.Partitioner partitioner = TokenRing.Partitioner.fromClassName(partitionerName);
+        if (partitioner == null) {
+            throw new CassandraDBException("Token ranges cannot be paged with partitioner " + partitionerName);
+        }
+        return partitioner;
+    }
+
+    private RetryPolicy createRetryPolicy() {
+        if (retryPolicy != null) {
+            return retryPolicy;
+        }
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(timedOutRetries, unavailableRetries,
+                transportErrorRetries);
+        policy.setBaseDelay(retryBaseDelay);
+        policy.setMaxDelay(retryMaxDelay);
+        return policy;
+    }
+
+    private AsyncRequestExecutor getAsyncExecutor() throws CassandraDBException {
+        if (asyncExecutor == null) {
+            throw new CassandraDBException("Asynchronous operations require asyncMode to be enabled");
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * @return the configured host followed by the additional hosts, without duplicates.
+     */
+    private List<String> getSeedHosts() {
+        Set<String> seeds = new LinkedHashSet<String>();
+        if (host != null) {
+            seeds.add(host.trim());
+        }
+        if (hosts != null) {
+            for (String nextHost : hosts) {
+                seeds.add(nextHost.trim());
+            }
+        }
+        return new ArrayList<String>(seeds);
     }
 }
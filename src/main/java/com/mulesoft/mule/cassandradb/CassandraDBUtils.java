@@ -42,6 +42,11 @@ public class CassandraDBUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CassandraDBUtils.class);
 
+    /**
+     * Shared by every JSON conversion: an ObjectMapper is thread-safe once configured and costly to create.
+     */
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private CassandraDBUtils() {
         // Utility class not meant to be instantiated.
     }
@@ -104,8 +109,7 @@ public class CassandraDBUtils {
      */
     public static JsonNode columnToJSONNode(Column column) throws CassandraDBException {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode node = mapper.createObjectNode();
+            ObjectNode node = OBJECT_MAPPER.createObjectNode();
             node.put(new String(column.getName(), Charset.defaultCharset()), new String(column.getValue(), Charset.defaultCharset()));
 
             return node;
@@ -124,11 +128,12 @@ public class CassandraDBUtils {
     @SuppressWarnings({"unchecked"})
     public static void populateMap(Map columnMap, Column column, Map<String, Serializer> serializerMap) {
         String name = new String(column.getName(), Charset.defaultCharset());
+        Serializer serializer = serializerMap.get(name);
         Object value;
-        if (serializerMap.containsKey(name)) {
-            value = serializerMap.get(name).fromBytes(column.getValue());
+        if (serializer != null) {
+            value = serializer.fromBytes(column.getValue());
         } else {
-            value = new StringSerializer().fromBytes(column.getValue());
+            value = StringSerializer.get().fromBytes(column.getValue());
         }
 
         columnMap.put(name, value);
@@ -154,7 +159,7 @@ public class CassandraDBUtils {
             }
 
             if (serializer == null) {
-                serializer = new ObjectSerializer();
+                serializer = ObjectSerializer.get();
             }
 
             result.put(columnSerializer.getKey(), serializer);
@@ -171,17 +176,21 @@ public class CassandraDBUtils {
      * @return A Map representation of Column or SuperColumn.
      * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
      */
-    @SuppressWarnings({"unchecked"})
     public static Map columnOrSuperColumnToMap(ColumnOrSuperColumn columnOrSuperColumn,
                                                List<ColumnSerializer> columnSerializers) throws CassandraDBException {
-        Map<String, Serializer> serializerMap;
-
-        if (columnSerializers != null) {
-            serializerMap = CassandraDBUtils.getSerializationMap(columnSerializers);
-        } else {
-            serializerMap = new HashMap<String, Serializer>();
-        }
+        return columnOrSuperColumnToMap(columnOrSuperColumn, SerializerRegistry.resolve(columnSerializers));
+    }
 
+    /**
+     * Utility method that converts a Column or SuperColumn to a Map representation.
+     *
+     * @param columnOrSuperColumn Column or SuperColumn to be represented as a Map.
+     * @param serializerMap       Serializers by column name, as resolved by the {@link SerializerRegistry}.
+     * @return A Map representation of Column or SuperColumn.
+     */
+    @SuppressWarnings({"unchecked"})
+    static Map columnOrSuperColumnToMap(ColumnOrSuperColumn columnOrSuperColumn,
+                                        Map<String, Serializer> serializerMap) {
         if (columnOrSuperColumn.isSetColumn()) {
 
             Map columnMap = new HashMap();
@@ -238,11 +247,10 @@ public class CassandraDBUtils {
             return CassandraDBUtils.columnToJSONNode(columnOrSuperColumn.getColumn());
         } else {
             try {
-                ObjectMapper mapper = new ObjectMapper();
-                ObjectNode superColumnNode = mapper.createObjectNode();
+                ObjectNode superColumnNode = OBJECT_MAPPER.createObjectNode();
                 SuperColumn superColumn = columnOrSuperColumn.getSuper_column();
                 String superColumnName = new String(superColumn.getName(), Charset.defaultCharset());
-                ObjectNode columnsNode = mapper.createObjectNode();
+                ObjectNode columnsNode = OBJECT_MAPPER.createObjectNode();
 
                 List<Column> columns = superColumn.columns;
                 for (Column nextColumn : columns) {
@@ -268,8 +276,7 @@ public class CassandraDBUtils {
      */
     public static JsonNode listOfColumnsToJSONNode(List<ColumnOrSuperColumn> listOfColumns) throws CassandraDBException {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            ArrayNode arrayNode = mapper.createArrayNode();
+            ArrayNode arrayNode = OBJECT_MAPPER.createArrayNode();
             for (ColumnOrSuperColumn nextCol : listOfColumns) {
                 arrayNode.add(columnOrSuperColumnToJSONNode(nextCol));
             }
@@ -291,9 +298,10 @@ public class CassandraDBUtils {
     @SuppressWarnings({"unchecked"})
     public static List listOfColumnsToMap(List<ColumnOrSuperColumn> listOfColumns,
                                           List<ColumnSerializer> columnSerializers) throws CassandraDBException {
-        List results = new ArrayList();
+        Map<String, Serializer> serializerMap = SerializerRegistry.resolve(columnSerializers);
+        List results = new ArrayList(listOfColumns.size());
         for (ColumnOrSuperColumn nextColumn : listOfColumns) {
-            results.add(columnOrSuperColumnToMap(nextColumn, columnSerializers));
+            results.add(columnOrSuperColumnToMap(nextColumn, serializerMap));
         }
         return results;
     }
@@ -307,8 +315,7 @@ public class CassandraDBUtils {
      */
     public static String jsonNodeToString(JsonNode node) throws CassandraDBException {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(node);
+            return OBJECT_MAPPER.writeValueAsString(node);
         } catch (Exception e) {
             throw new CassandraDBException(e.getMessage(), e);
         }
@@ -399,6 +406,31 @@ public class CassandraDBUtils {
         return range;
     }
 
+    /**
+     * Utility method to generate a slice predicate: the given column names when there are any, or a slice range.
+     *
+     * @param columnNames The names of the columns to read, or null to read a slice range.
+     * @param start       The column name to start the slice with
+     * @param finish      The column name to stop the slice at.
+     * @param reversed    Whether the results should be ordered in reversed order.
+     * @param count       How many columns to return.
+     * @return a slice predicate.
+     */
+    public static SlicePredicate generateSlicePredicate(List<String> columnNames, String start, String finish,
+                                                        boolean reversed, int count) {
+        SlicePredicate predicate = new SlicePredicate();
+        if (columnNames != null && !columnNames.isEmpty()) {
+            List<ByteBuffer> names = new ArrayList<ByteBuffer>(columnNames.size());
+            for (String columnName : columnNames) {
+                names.add(toByteBuffer(columnName));
+            }
+            predicate.setColumn_names(names);
+        } else {
+            predicate.setSlice_range(generateSliceRange(start, finish, reversed, count));
+        }
+        return predicate;
+    }
+
     private static TypeInferringSerializer typeInferringSerializer;
 
     /**
@@ -418,6 +450,71 @@ public class CassandraDBUtils {
         return list;
     }
 
+    /**
+     * Utility method that retrieves the first row key of a mutation map, used to route a batch to one of the
+     * replicas it writes to.
+     *
+     * @param mutationMap A Map&lt;ByteBuffer, Map&lt;String, List&lt;Mutation&gt;&gt;&gt;.
+     * @return the first row key, or null when the map is empty or not keyed by ByteBuffer.
+     */
+    public static ByteBuffer firstRowKey(Map mutationMap) {
+        if (mutationMap == null || mutationMap.isEmpty()) {
+            return null;
+        }
+        Object key = mutationMap.keySet().iterator().next();
+        return key instanceof ByteBuffer ? (ByteBuffer) key : null;
+    }
+
+    /**
+     * Checks whether a batch increments counters. Counter increments are not idempotent, so such a batch must not
+     * be retried after a timeout.
+     *
+     * @param mutationMap A Map&lt;ByteBuffer, Map&lt;String, List&lt;Mutation&gt;&gt;&gt;.
+     * @return true if any mutation writes a counter column or a counter super column.
+     */
+    public static boolean containsCounterMutation(Map mutationMap) {
+        if (mutationMap == null) {
+            return false;
+        }
+        for (Object rowMutations : mutationMap.values()) {
+            if (!(rowMutations instanceof Map)) {
+                continue;
+            }
+            for (Object mutations : ((Map) rowMutations).values()) {
+                if (!(mutations instanceof List)) {
+                    continue;
+                }
+                for (Object mutation : (List) mutations) {
+                    if (mutation instanceof Mutation && ((Mutation) mutation).isSetColumn_or_supercolumn()) {
+                        ColumnOrSuperColumn column = ((Mutation) mutation).getColumn_or_supercolumn();
+                        if (column.isSetCounter_column() || column.isSetCounter_super_column()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Utility method that retrieves the name of a Column, SuperColumn, CounterColumn or CounterSuperColumn.
+     *
+     * @param columnOrSuperColumn Column or SuperColumn holding exactly one of them.
+     * @return the name of the column.
+     */
+    public static ByteBuffer columnName(ColumnOrSuperColumn columnOrSuperColumn) {
+        if (columnOrSuperColumn.isSetColumn()) {
+            return columnOrSuperColumn.getColumn().bufferForName();
+        } else if (columnOrSuperColumn.isSetSuper_column()) {
+            return columnOrSuperColumn.getSuper_column().bufferForName();
+        } else if (columnOrSuperColumn.isSetCounter_column()) {
+            return columnOrSuperColumn.getCounter_column().bufferForName();
+        } else {
+            return columnOrSuperColumn.getCounter_super_column().bufferForName();
+        }
+    }
+
     /**
      * Utility method to convert a List of IndexExpression of type String to List of IndexExpression of type ByteBuffer.
      *
@@ -0,0 +1,30 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+
+/**
+ * Unit of work executed against a Cassandra client borrowed from the connection pool.
+ *
+ * @param <T> Type of the value returned by the Thrift call.
+ */
+interface ClientCallback<T> {
+
+    /**
+     * Performs the Thrift call.
+     *
+     * @param client A connected client. It must not be kept once the method returns.
+     * @return the result of the call.
+     * @throws Exception Any Thrift exception; it will be wrapped in a CassandraDBException.
+     */
+    T doWithClient(Cassandra.Client client) throws Exception;
+}
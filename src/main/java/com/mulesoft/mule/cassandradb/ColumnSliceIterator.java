@@ -0,0 +1,150 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.hector.api.Serializer;
+import org.apache.cassandra.thrift.*;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates over the columns of a single row, reading it one get_slice page at a time, so rows wider than
+ * the Thrift frame or the heap can be read. Every column is decoded with the given serializers as it is returned.
+ * <p/>
+ * The next page starts at the name of the last column read; Cassandra returns that column again and it is dropped.
+ */
+class ColumnSliceIterator implements Iterator<Map> {
+
+    private final RequestExecutor executor;
+
+    private final ByteBuffer key;
+
+    private final ColumnParent columnParent;
+
+    private final ByteBuffer finish;
+
+    private final boolean reversed;
+
+    private final int pageSize;
+
+    private final ConsistencyLevel consistencyLevel;
+
+    private final Map<String, Serializer> serializerMap;
+
+    /**
+     * Start of the next page, or null when the last page has been read.
+     */
+    private ByteBuffer nextStart;
+
+    /**
+     * Last column name of the previous page, returned again as first column of the next page.
+     */
+    private ByteBuffer boundaryName;
+
+    private boolean firstPage = true;
+
+    private Iterator<ColumnOrSuperColumn> page = Collections.<ColumnOrSuperColumn>emptyList().iterator();
+
+    private ColumnOrSuperColumn next;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor          Executor running the get_slice calls.
+     * @param key               Key of the row.
+     * @param columnParent      Column family or super column to read.
+     * @param start             First column name, or an empty buffer to start at the beginning of the row.
+     * @param finish            Last column name, or an empty buffer to read until the end of the row.
+     * @param reversed          Whether the columns are read in reversed order.
+     * @param pageSize          Number of columns read per call; at least 2.
+     * @param consistencyLevel  Consistency level of the reads.
+     * @param serializerMap     Serializers of the column values by column name.
+     */
+    ColumnSliceIterator(RequestExecutor executor, ByteBuffer key, ColumnParent columnParent, ByteBuffer start,
+                        ByteBuffer finish, boolean reversed, int pageSize, ConsistencyLevel consistencyLevel,
+                        Map<String, Serializer> serializerMap) {
+        this.executor = executor;
+        this.key = key;
+        this.columnParent = columnParent;
+        this.finish = finish;
+        this.reversed = reversed;
+        this.pageSize = Math.max(pageSize, 2);
+        this.consistencyLevel = consistencyLevel;
+        this.serializerMap = serializerMap;
+        this.nextStart = start;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (page.hasNext()) {
+                ColumnOrSuperColumn column = page.next();
+                if (boundaryName == null || !boundaryName.equals(CassandraDBUtils.columnName(column))) {
+                    next = column;
+                }
+                boundaryName = null;
+            } else if (nextStart != null) {
+                page = fetchPage().iterator();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ColumnOrSuperColumn column = next;
+        next = null;
+        return CassandraDBUtils.columnOrSuperColumnToMap(column, serializerMap);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Columns cannot be removed from a slice scan");
+    }
+
+    private List<ColumnOrSuperColumn> fetchPage() {
+        final ByteBuffer start = nextStart;
+        final SlicePredicate predicate = new SlicePredicate();
+        predicate.setSlice_range(new SliceRange().setStart(start).setFinish(finish).setReversed(reversed)
+                .setCount(pageSize));
+        List<ColumnOrSuperColumn> columns;
+        try {
+            columns = executor.executeRead(key, new ClientCallback<List<ColumnOrSuperColumn>>() {
+                @Override
+                public List<ColumnOrSuperColumn> doWithClient(Cassandra.Client client) throws Exception {
+                    return client.get_slice(key, columnParent, predicate, consistencyLevel);
+                }
+            });
+        } catch (CassandraDBException e) {
+            throw new IllegalStateException("Unable to read the next page of the slice: " + e.getMessage(), e);
+        }
+
+        if (columns.size() < pageSize) {
+            nextStart = null;
+        } else {
+            nextStart = CassandraDBUtils.columnName(columns.get(columns.size() - 1));
+        }
+        // Every page but the first starts with the last column of the previous page
+        boundaryName = firstPage ? null : start;
+        firstPage = false;
+        return columns;
+    }
+}
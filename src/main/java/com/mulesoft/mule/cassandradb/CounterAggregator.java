@@ -0,0 +1,223 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sums counter increments in memory and writes the sum of each counter once per flush interval, as counter column
+ * mutations sent by batch_mutate, instead of sending one add per increment.
+ * <p/>
+ * Every counter has its own accumulator, so increments of different counters do not contend, and increments only
+ * use compare-and-set. Counters that were not incremented during a whole interval are dropped. An increment is
+ * acknowledged before it is written; as counter writes cannot be retried, a failed flush loses its increments and
+ * is reported by the next {@link #flush}.
+ */
+class CounterAggregator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CounterAggregator.class);
+
+    /**
+     * Value of an accumulator removed from the map; increments seeing it start over with a new accumulator.
+     */
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final RequestExecutor executor;
+
+    private final RowCache rowCache;
+
+    private final String keyspace;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Accumulators by consistency level, row key, column family, super column and counter name.
+     */
+    private final ConcurrentMap<List<Object>, AtomicLong> counters = new ConcurrentHashMap<List<Object>, AtomicLong>();
+
+    /**
+     * Guarded by this.
+     */
+    private CassandraDBException failure;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor      Executor running the batch_mutate calls.
+     * @param rowCache      Row cache to invalidate once the counters are written, may be null.
+     * @param keyspace      Keyspace of the row cache entries.
+     * @param flushInterval Maximum number of milliseconds an increment waits before being written.
+     */
+    CounterAggregator(RequestExecutor executor, RowCache rowCache, String keyspace, long flushInterval) {
+        this.executor = executor;
+        this.rowCache = rowCache;
+        this.keyspace = keyspace;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CassandraDBThreadFactory("counter-flush"));
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to write the aggregated counters", e);
+                }
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds an increment to a counter.
+     *
+     * @param key              Row key.
+     * @param columnParent     Column family and optional super column of the counter.
+     * @param name             Name of the counter column.
+     * @param delta            The increment.
+     * @param consistencyLevel Consistency level of the write.
+     */
+    void add(ByteBuffer key, ColumnParent columnParent, ByteBuffer name, long delta,
+             ConsistencyLevel consistencyLevel) {
+        List<Object> counter = Arrays.<Object>asList(consistencyLevel, key, columnParent.getColumn_family(),
+                columnParent.bufferForSuper_column(), name);
+        while (true) {
+            AtomicLong sum = counters.get(counter);
+            if (sum == null) {
+                AtomicLong created = new AtomicLong();
+                sum = counters.putIfAbsent(counter, created);
+                if (sum == null) {
+                    sum = created;
+                }
+            }
+            long current = sum.get();
+            if (current != RETIRED && sum.compareAndSet(current, current + delta)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the aggregated increments now.
+     *
+     * @throws CassandraDBException when the increments of this or a previous flush could not be written.
+     */
+    void flush() throws CassandraDBException {
+        write();
+        CassandraDBException error;
+        synchronized (this) {
+            error = failure;
+            failure = null;
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Stops the periodic flushes and writes the remaining increments.
+     */
+    void close() {
+        scheduler.shutdownNow();
+        try {
+            flush();
+        } catch (CassandraDBException e) {
+            LOGGER.error("Counter increments lost while closing the counter aggregator", e);
+        }
+    }
+
+    /**
+     * @return the number of counters with an accumulator.
+     */
+    int size() {
+        return counters.size();
+    }
+
+    /**
+     * Drains the accumulators and sends one batch_mutate per consistency level.
+     */
+    private synchronized void write() {
+        Map<ConsistencyLevel, Map<ByteBuffer, Map<String, List<Mutation>>>> batches =
+                new HashMap<ConsistencyLevel, Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        for (Map.Entry<List<Object>, AtomicLong> entry : counters.entrySet()) {
+            long delta = entry.getValue().getAndSet(0);
+            if (delta == 0) {
+                if (entry.getValue().compareAndSet(0, RETIRED)) {
+                    counters.remove(entry.getKey(), entry.getValue());
+                }
+                continue;
+            }
+            List<Object> counter = entry.getKey();
+            Map<ByteBuffer, Map<String, List<Mutation>>> batch = batches.get(counter.get(0));
+            if (batch == null) {
+                batch = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+                batches.put((ConsistencyLevel) counter.get(0), batch);
+            }
+            addMutation(batch, (ByteBuffer) counter.get(1), (String) counter.get(2), (ByteBuffer) counter.get(3),
+                    (ByteBuffer) counter.get(4), delta);
+        }
+
+        for (Map.Entry<ConsistencyLevel, Map<ByteBuffer, Map<String, List<Mutation>>>> batch : batches.entrySet()) {
+            try {
+                executor.executeBatchMutate(batch.getValue(), batch.getKey());
+            } catch (CassandraDBException e) {
+                failure = e;
+                LOGGER.error("Unable to write the increments of " + batch.getValue().size() + " counter rows", e);
+            } finally {
+                if (rowCache != null) {
+                    rowCache.invalidate(keyspace, batch.getValue());
+                }
+            }
+        }
+    }
+
+    private static void addMutation(Map<ByteBuffer, Map<String, List<Mutation>>> batch, ByteBuffer key,
+                                     String columnFamily, ByteBuffer superColumn, ByteBuffer name, long delta) {
+        Map<String, List<Mutation>> row = batch.get(key);
+        if (row == null) {
+            row = new HashMap<String, List<Mutation>>();
+            batch.put(key, row);
+        }
+        List<Mutation> mutations = row.get(columnFamily);
+        if (mutations == null) {
+            mutations = new ArrayList<Mutation>();
+            row.put(columnFamily, mutations);
+        }
+        CounterColumn column = new CounterColumn(name, delta);
+        ColumnOrSuperColumn cosc = new ColumnOrSuperColumn();
+        if (superColumn != null) {
+            // Increments of the same super column share a single mutation
+            for (Mutation mutation : mutations) {
+                CounterSuperColumn counterSuperColumn = mutation.getColumn_or_supercolumn().getCounter_super_column();
+                if (counterSuperColumn != null && superColumn.equals(counterSuperColumn.bufferForName())) {
+                    counterSuperColumn.getColumns().add(column);
+                    return;
+                }
+            }
+            List<CounterColumn> columns = new ArrayList<CounterColumn>();
+            columns.add(column);
+            cosc.setCounter_super_column(new CounterSuperColumn(superColumn, columns));
+        } else {
+            cosc.setCounter_column(column);
+        }
+        Mutation mutation = new Mutation();
+        mutation.setColumn_or_supercolumn(cosc);
+        mutations.add(mutation);
+    }
+}
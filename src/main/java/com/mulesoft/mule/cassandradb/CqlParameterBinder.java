@@ -0,0 +1,166 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Compression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/**
+ * Binds parameters to the '?' markers of a CQL statement on the client, writing each one as a CQL literal, so
+ * flows do not need to build queries by concatenation. The statement is still sent as text and parsed by the server
+ * on every execution: the Thrift API of Cassandra 1.0 cannot prepare statements.
+ * <p/>
+ * Strings are quoted and escaped, byte arrays and ByteBuffers are written as hexadecimal blobs, dates as
+ * milliseconds since the epoch, and the JDK numbers, booleans and UUIDs as they are. Any other value is rejected
+ * rather than written with its toString.
+ */
+class CqlParameterBinder {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CqlParameterBinder() {
+        // Utility class not meant to be instantiated.
+    }
+
+    /**
+     * Binds the parameters to the markers of a statement, in order. Markers inside quoted literals and identifiers
+     * are left as they are.
+     *
+     * @param query      CQL statement, with '?' bind markers.
+     * @param parameters One value per bind marker.
+     * @return the CQL statement to execute.
+     * @throws CassandraDBException when the parameters do not match the markers, or a parameter cannot be written
+     *                              as a CQL literal.
+     */
+    static String bind(String query, List<?> parameters) throws CassandraDBException {
+        List<String> fragments = split(query);
+        int count = parameters != null ? parameters.size() : 0;
+        if (count != fragments.size() - 1) {
+            throw new CassandraDBException("The CQL statement has " + (fragments.size() - 1)
+                    + " bind markers but " + count + " parameters were given");
+        }
+        StringBuilder statement = new StringBuilder(query.length() + 16 * count).append(fragments.get(0));
+        for (int i = 0; i < count; i++) {
+            appendLiteral(statement, parameters.get(i), i);
+            statement.append(fragments.get(i + 1));
+        }
+        return statement.toString();
+    }
+
+    /**
+     * Encodes a query for execute_cql_query, deflated when GZIP compression is requested.
+     *
+     * @param query       CQL statement.
+     * @param compression Compression of the query sent.
+     * @return the encoded query.
+     */
+    static ByteBuffer encode(String query, Compression compression) {
+        byte[] bytes = query.getBytes(UTF8);
+        if (compression != Compression.GZIP) {
+            return ByteBuffer.wrap(bytes);
+        }
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(bytes.length, 64)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return ByteBuffer.wrap(buffer, 0, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return the text before each bind marker, then the text after the last one.
+     */
+    private static List<String> split(String query) {
+        List<String> fragments = new ArrayList<String>();
+        int start = 0;
+        char quote = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (quote != 0) {
+                // An escaped quote closes then reopens the literal
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                fragments.add(query.substring(start, i));
+                start = i + 1;
+            }
+        }
+        fragments.add(query.substring(start));
+        return fragments;
+    }
+
+    private static void appendLiteral(StringBuilder statement, Object value, int position)
+            throws CassandraDBException {
+        if (value == null) {
+            throw new CassandraDBException("The CQL parameter " + (position + 1) + " is null");
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger || value instanceof Boolean || value instanceof UUID) {
+            statement.append(value);
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                throw new CassandraDBException("The CQL parameter " + (position + 1) + " is " + value
+                        + ", which has no CQL literal");
+            }
+            // Through the decimal text of the value, so a float is not widened to its binary expansion
+            statement.append(new BigDecimal(value.toString()).toPlainString());
+        } else if (value instanceof BigDecimal) {
+            statement.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Date) {
+            statement.append(((Date) value).getTime());
+        } else if (value instanceof ByteBuffer || value instanceof byte[]) {
+            ByteBuffer bytes = value instanceof ByteBuffer
+                    ? ((ByteBuffer) value).duplicate() : ByteBuffer.wrap((byte[]) value);
+            statement.append('\'');
+            while (bytes.hasRemaining()) {
+                byte b = bytes.get();
+                statement.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            statement.append('\'');
+        } else if (value instanceof String) {
+            String text = (String) value;
+            statement.append('\'');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\'') {
+                    statement.append('\'');
+                }
+                statement.append(c);
+            }
+            statement.append('\'');
+        } else {
+            throw new CassandraDBException("The CQL parameter " + (position + 1) + " is a "
+                    + value.getClass().getName() + ", which cannot be bound");
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.CqlMetadata;
+import org.apache.cassandra.thrift.CqlResult;
+import org.apache.cassandra.thrift.CqlResultType;
+import org.apache.cassandra.thrift.CqlRow;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decodes the rows of a CqlResult into Maps of typed values, using the name and value types of its CqlMetadata.
+ * <p/>
+ * The decoder is a plan built once per result: the types of every column are resolved on the first row that has
+ * it and reused for the following rows, so each value is decoded straight from its bytes without going through a
+ * String. Rows are decoded one at a time as they are iterated.
+ */
+class CqlResultDecoder {
+
+    private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+
+    private static final Charset ASCII_CHARSET = Charset.forName("US-ASCII");
+
+    /**
+     * Types by marshal class name, shared by every decoder.
+     */
+    private static final ConcurrentMap<String, CqlType> TYPES = new ConcurrentHashMap<String, CqlType>();
+
+    private final CqlMetadata schema;
+
+    private final CqlType defaultNameType;
+
+    private final CqlType defaultValueType;
+
+    /**
+     * Name, name type and value type by raw column name, filled in as columns are met.
+     */
+    private final Map<ByteBuffer, ColumnPlan> plans = new HashMap<ByteBuffer, ColumnPlan>();
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param schema The metadata of the result; without it names and values are decoded as UTF-8 and bytes.
+     */
+    CqlResultDecoder(CqlMetadata schema) {
+        this.schema = schema;
+        this.defaultNameType = schema != null && schema.isSetDefault_name_type()
+                ? typeOf(schema.getDefault_name_type()) : CqlType.UTF8;
+        this.defaultValueType = schema != null && schema.isSetDefault_value_type()
+                ? typeOf(schema.getDefault_value_type()) : CqlType.BYTES;
+    }
+
+    /**
+     * @param result The result of a CQL query.
+     * @return a lazy iterator over its rows, each one as a Map of typed values by column name; empty unless the
+     * result holds rows.
+     */
+    static Iterator<Map<String, Object>> rows(CqlResult result) {
+        if (result == null || result.getType() != CqlResultType.ROWS || result.getRows() == null) {
+            return Collections.<Map<String, Object>>emptyList().iterator();
+        }
+        final CqlResultDecoder decoder = new CqlResultDecoder(result.getSchema());
+        final Iterator<CqlRow> rows = result.getRows().iterator();
+        return new Iterator<Map<String, Object>>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                return decoder.decode(rows.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Rows cannot be removed from a CQL result");
+            }
+        };
+    }
+
+    /**
+     * @param row A row of the result.
+     * @return the columns of the row, by decoded name and in the order of the row.
+     */
+    Map<String, Object> decode(CqlRow row) {
+        List<Column> columns = row.getColumns() != null ? row.getColumns() : Collections.<Column>emptyList();
+        Map<String, Object> values = new LinkedHashMap<String, Object>(columns.size() * 4 / 3 + 1);
+        for (Column column : columns) {
+            ColumnPlan plan = planOf(column.bufferForName());
+            values.put(plan.name, plan.valueType.decode(column.bufferForValue()));
+        }
+        return values;
+    }
+
+    private ColumnPlan planOf(ByteBuffer name) {
+        ColumnPlan plan = plans.get(name);
+        if (plan == null) {
+            CqlType nameType = defaultNameType;
+            CqlType valueType = defaultValueType;
+            if (schema != null && schema.isSetName_types() && schema.getName_types().containsKey(name)) {
+                nameType = typeOf(schema.getName_types().get(name));
+            }
+            if (schema != null && schema.isSetValue_types() && schema.getValue_types().containsKey(name)) {
+                valueType = typeOf(schema.getValue_types().get(name));
+            }
+            plan = new ColumnPlan(String.valueOf(nameType.decode(name)), valueType);
+            plans.put(name, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * @param className Name of a marshal type, with or without its package, and possibly parameterized.
+     * @return the type, BYTES when it is not known.
+     */
+    static CqlType typeOf(String className) {
+        if (className == null) {
+            return CqlType.BYTES;
+        }
+        CqlType type = TYPES.get(className);
+        if (type == null) {
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            type = CqlType.BYTES;
+            for (CqlType candidate : CqlType.values()) {
+                if (candidate.marshalNames.contains(simpleName)) {
+                    type = candidate;
+                    break;
+                }
+            }
+            TYPES.putIfAbsent(className, type);
+        }
+        return type;
+    }
+
+    /**
+     * What is known of a column of the result.
+     */
+    private static final class ColumnPlan {
+
+        private final String name;
+
+        private final CqlType valueType;
+
+        private ColumnPlan(String name, CqlType valueType) {
+            this.name = name;
+            this.valueType = valueType;
+        }
+    }
+
+    /**
+     * Decoders of the Cassandra marshal types. Empty values of fixed-size types decode to null.
+     */
+    enum CqlType {
+        UTF8("UTF8Type") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return UTF8_CHARSET.decode(bytes).toString();
+            }
+        },
+        ASCII("AsciiType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return ASCII_CHARSET.decode(bytes).toString();
+            }
+        },
+        LONG("LongType", "CounterColumnType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return bytes.getLong(bytes.position());
+            }
+        },
+        INT32("Int32Type") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return bytes.getInt(bytes.position());
+            }
+        },
+        INTEGER("IntegerType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return new BigInteger(toArray(bytes));
+            }
+        },
+        DECIMAL("DecimalType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                int scale = bytes.getInt();
+                return new BigDecimal(new BigInteger(toArray(bytes)), scale);
+            }
+        },
+        DOUBLE("DoubleType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return bytes.getDouble(bytes.position());
+            }
+        },
+        FLOAT("FloatType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return bytes.getFloat(bytes.position());
+            }
+        },
+        BOOLEAN("BooleanType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return bytes.get(bytes.position()) != 0;
+            }
+        },
+        DATE("DateType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return new Date(bytes.getLong(bytes.position()));
+            }
+        },
+        UUID("UUIDType", "TimeUUIDType", "LexicalUUIDType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return new java.util.UUID(bytes.getLong(bytes.position()), bytes.getLong(bytes.position() + 8));
+            }
+        },
+        BYTES("BytesType") {
+            @Override
+            Object decodeValue(ByteBuffer bytes) {
+                return toArray(bytes);
+            }
+        };
+
+        private final Set<String> marshalNames;
+
+        CqlType(String... marshalNames) {
+            this.marshalNames = new HashSet<String>(Arrays.asList(marshalNames));
+        }
+
+        /**
+         * @param bytes The serialized value; not modified.
+         * @return the value, or null when there are no bytes to decode.
+         */
+        Object decode(ByteBuffer bytes) {
+            if (bytes == null || (!bytes.hasRemaining() && this != UTF8 && this != ASCII && this != BYTES)) {
+                return null;
+            }
+            return decodeValue(bytes.duplicate());
+        }
+
+        abstract Object decodeValue(ByteBuffer bytes);
+
+        private static byte[] toArray(ByteBuffer bytes) {
+            byte[] array = new byte[bytes.remaining()];
+            bytes.get(array);
+            return array;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.cassandra.thrift.UnavailableException;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.transport.TTransportException;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retries timeouts, unavailable replicas and transport errors a configurable number of times, waiting an
+ * exponentially growing, jittered delay between attempts.
+ * <p/>
+ * Calls that are not idempotent are only retried on UnavailableException, which Cassandra raises before applying
+ * anything. After a timeout or a transport error a counter increment may have been applied already.
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+    private final Map<Class<? extends Throwable>, Integer> maxRetries =
+            new ConcurrentHashMap<Class<? extends Throwable>, Integer>();
+
+    private final Random random = new Random();
+
+    private long baseDelay = 50;
+
+    private long maxDelay = 1000;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param timedOutRetries       Retries after a TimedOutException.
+     * @param unavailableRetries    Retries after an UnavailableException.
+     * @param transportErrorRetries Retries after a Thrift transport or protocol error. Other Thrift errors, such as a
+     *                              TApplicationException, are answers of the server and are not retried.
+     */
+    public ExponentialBackoffRetryPolicy(int timedOutRetries, int unavailableRetries, int transportErrorRetries) {
+        setMaxRetries(TimedOutException.class, timedOutRetries);
+        setMaxRetries(UnavailableException.class, unavailableRetries);
+        setMaxRetries(TTransportException.class, transportErrorRetries);
+        setMaxRetries(TProtocolException.class, transportErrorRetries);
+    }
+
+    /**
+     * Sets the number of retries for an exception type and its subclasses.
+     *
+     * @param type    The exception type.
+     * @param retries Number of retries; 0 disables retries for this type.
+     */
+    public void setMaxRetries(Class<? extends Throwable> type, int retries) {
+        maxRetries.put(type, retries);
+    }
+
+    @Override
+    public long getRetryDelay(Throwable cause, int attempt, boolean idempotent) {
+        if (!idempotent && !(cause instanceof UnavailableException)) {
+            return -1;
+        }
+        if (attempt > getMaxRetries(cause)) {
+            return -1;
+        }
+        long delay = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 30));
+        if (delay <= 0) {
+            return 0;
+        }
+        // Equal jitter: half of the delay is fixed, the other half random, so clients do not retry in lockstep
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half));
+    }
+
+    private int getMaxRetries(Throwable cause) {
+        for (Class<?> type = cause.getClass(); type != null; type = type.getSuperclass()) {
+            Integer retries = maxRetries.get(type);
+            if (retries != null) {
+                return retries;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param baseDelay Milliseconds to wait before the first retry; the delay doubles at every attempt.
+     */
+    public void setBaseDelay(long baseDelay) {
+        this.baseDelay = baseDelay;
+    }
+
+    /**
+     * @param maxDelay Upper bound of the delay between two attempts, in milliseconds.
+     */
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+}
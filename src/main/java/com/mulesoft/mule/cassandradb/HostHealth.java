@@ -0,0 +1,171 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency score and circuit breaker of a single host.
+ * <p/>
+ * The latency is an exponentially weighted moving average of the observed response times. After maxFailures
+ * consecutive failures the circuit opens and the host receives no request for retryInterval milliseconds. Then a
+ * single probe request is let through: the circuit closes if it succeeds and opens again if it fails.
+ */
+class HostHealth {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Weight of the newest sample in the moving average.
+     */
+    static final double ALPHA = 0.25;
+
+    private final int maxFailures;
+
+    private final long retryInterval;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile State state = State.CLOSED;
+
+    /**
+     * While open, the end of the exclusion; while half open, the time after which another probe may be sent.
+     */
+    private volatile long openUntil;
+
+    /**
+     * Average latency in milliseconds, or a negative value while unknown.
+     */
+    private volatile double latency = -1;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param maxFailures   Consecutive failures that open the circuit.
+     * @param retryInterval Milliseconds the circuit stays open before a probe is sent.
+     */
+    HostHealth(int maxFailures, long retryInterval) {
+        this.maxFailures = maxFailures;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * Whether the host may receive a request, without claiming the probe of an open circuit. Used to pick a host;
+     * {@link #allowRequest} must then be called for the host actually used.
+     *
+     * @param now Current time in milliseconds.
+     * @return true if the circuit is closed or its exclusion is over.
+     */
+    boolean isAvailable(long now) {
+        return state == State.CLOSED || now >= openUntil;
+    }
+
+    /**
+     * Whether a request may be sent to the host. When the exclusion of an open circuit is over, the first caller
+     * gets the probe and the others are refused until it completes.
+     *
+     * @param now Current time in milliseconds.
+     * @return true if the host can be used.
+     */
+    boolean allowRequest(long now) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (now < openUntil) {
+                return false;
+            }
+            // A probe that never completed does not block the host forever
+            state = State.HALF_OPEN;
+            openUntil = now + retryInterval;
+            return true;
+        }
+    }
+
+    /**
+     * Records a successful request and closes the circuit.
+     *
+     * @param latencyMillis Milliseconds the request took.
+     */
+    void recordSuccess(long latencyMillis) {
+        double current = latency;
+        latency = current < 0 ? latencyMillis : current + ALPHA * (latencyMillis - current);
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+        if (state != State.CLOSED) {
+            synchronized (this) {
+                state = State.CLOSED;
+                openUntil = 0;
+            }
+        }
+    }
+
+    /**
+     * Records a failed request.
+     *
+     * @param now Current time in milliseconds.
+     * @return true if the circuit has just opened.
+     */
+    boolean recordFailure(long now) {
+        int count = failures.incrementAndGet();
+        synchronized (this) {
+            if (state == State.HALF_OPEN || (state == State.CLOSED && count >= maxFailures)) {
+                state = State.OPEN;
+                openUntil = now + retryInterval;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Opens the circuit right away, as after maxFailures consecutive failures.
+     *
+     * @param now Current time in milliseconds.
+     */
+    void trip(long now) {
+        failures.set(Math.max(failures.get(), maxFailures));
+        synchronized (this) {
+            state = State.OPEN;
+            openUntil = now + retryInterval;
+        }
+    }
+
+    /**
+     * Load of the host: the lower, the better. Combines the average latency with the number of requests in flight,
+     * so a fast host is preferred until it starts queueing.
+     *
+     * @param inFlight Requests currently running on the host.
+     * @return the score of the host.
+     */
+    double getScore(int inFlight) {
+        double current = latency;
+        return (Math.max(current, 0) + 1) * (inFlight + 1);
+    }
+
+    State getState() {
+        return state;
+    }
+
+    double getLatency() {
+        return latency;
+    }
+
+    int getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.hector.api.Serializer;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.KeySlice;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.mule.api.MuleEvent;
+import org.mule.api.transport.OutputHandler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes read results as JSON straight to the output stream of the message, without building a JSON tree or a
+ * String first. Iterators, such as the ones returned by the scan processors, are consumed as they are written, so
+ * only the page being read is held in memory. Closeable iterators are closed once written, or when writing fails,
+ * so a scan stops reading when the client goes away.
+ * <p/>
+ * Iterators and collections are written as arrays, Maps as objects, and a row (KeySlice) as an object holding its
+ * key and the object of its columns. Column values are decoded with the given serializers.
+ */
+class JsonStreamWriter implements OutputHandler {
+
+    /**
+     * Thread-safe, and shared by every writer.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Object results;
+
+    private final Map<String, Serializer> serializerMap;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param results       The results to write.
+     * @param serializerMap Serializers of the column values by column name.
+     */
+    JsonStreamWriter(Object results, Map<String, Serializer> serializerMap) {
+        this.results = results;
+        this.serializerMap = serializerMap;
+    }
+
+    @Override
+    public void write(MuleEvent event, OutputStream out) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createJsonGenerator(out, JsonEncoding.UTF8);
+        writeValue(generator, results);
+        // The stream belongs to the transport, which closes it
+        generator.flush();
+    }
+
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Iterator) {
+            generator.writeStartArray();
+            Iterator<?> iterator = (Iterator<?>) value;
+            try {
+                while (iterator.hasNext()) {
+                    writeValue(generator, iterator.next());
+                }
+            } finally {
+                if (iterator instanceof Closeable) {
+                    ((Closeable) iterator).close();
+                }
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Iterable) {
+            writeValue(generator, ((Iterable<?>) value).iterator());
+        } else if (value instanceof Map) {
+            generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                generator.writeFieldName(toText(entry.getKey()));
+                writeValue(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof KeySlice) {
+            KeySlice row = (KeySlice) value;
+            generator.writeStartObject();
+            generator.writeStringField("key", toText(row.bufferForKey()));
+            generator.writeFieldName("columns");
+            writeColumns(generator, row.getColumns());
+            generator.writeEndObject();
+        } else if (value instanceof ColumnOrSuperColumn) {
+            writeValue(generator, CassandraDBUtils.columnOrSuperColumnToMap((ColumnOrSuperColumn) value,
+                    serializerMap));
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(toText(value));
+        }
+    }
+
+    /**
+     * Writes the columns of a row as a single object, by column name.
+     */
+    private void writeColumns(JsonGenerator generator, List<ColumnOrSuperColumn> columns) throws IOException {
+        generator.writeStartObject();
+        if (columns != null) {
+            for (ColumnOrSuperColumn column : columns) {
+                for (Object entry : CassandraDBUtils.columnOrSuperColumnToMap(column, serializerMap).entrySet()) {
+                    generator.writeFieldName(toText(((Map.Entry) entry).getKey()));
+                    writeValue(generator, ((Map.Entry) entry).getValue());
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof ByteBuffer) {
+            return Charset.defaultCharset().decode(((ByteBuffer) value).duplicate()).toString();
+        }
+        if (value instanceof byte[]) {
+            return new String((byte[]) value, Charset.defaultCharset());
+        }
+        return String.valueOf(value);
+    }
+}
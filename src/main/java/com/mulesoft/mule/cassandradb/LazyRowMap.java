@@ -0,0 +1,244 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Serializer;
+import org.apache.cassandra.thrift.*;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Read-only Map view of the columns of a row, by column name, that decodes lazily. The Thrift columns are kept as
+ * they were read: the names are only decoded on the first lookup by name and every value on its first access, so
+ * reading a few columns of a wide row does not decode the others.
+ * <p/>
+ * Columns are decoded like {@link CassandraDBUtils#columnOrSuperColumnToMap}: the value of a super column is a view
+ * of its sub columns, and the value of a counter column is its count. The entries keep the order of the slice.
+ */
+class LazyRowMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Object NOT_DECODED = new Object();
+
+    /**
+     * The columns: ColumnOrSuperColumn for a row, Column or CounterColumn for a super column.
+     */
+    private final transient List<?> columns;
+
+    private final transient Map<String, Serializer> serializerMap;
+
+    private final transient Object[] values;
+
+    private transient String[] names;
+
+    private transient Map<String, Integer> index;
+
+    private transient Set<Entry<String, Object>> entrySet;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param columns       The columns of the row, as returned by get_slice.
+     * @param serializerMap Serializers of the column values by column name.
+     */
+    LazyRowMap(List<?> columns, Map<String, Serializer> serializerMap) {
+        this.columns = columns;
+        this.serializerMap = serializerMap;
+        this.values = new Object[columns.size()];
+        Arrays.fill(values, NOT_DECODED);
+    }
+
+    @Override
+    public int size() {
+        return columns.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int position = indexOf(key);
+        return position < 0 ? null : valueAt(position);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return position < columns.size();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            return new LazyEntry(position++);
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("The columns of a row view cannot be removed");
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Serializes the row as a plain Map of decoded values.
+     */
+    private Object writeReplace() {
+        return new LinkedHashMap<String, Object>(this);
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        if (index == null) {
+            Map<String, Integer> positions = new HashMap<String, Integer>(columns.size() * 4 / 3 + 1);
+            for (int i = 0; i < columns.size(); i++) {
+                positions.put(nameAt(i), i);
+            }
+            index = positions;
+        }
+        Integer position = index.get(key);
+        return position == null ? -1 : position;
+    }
+
+    private String nameAt(int position) {
+        if (names == null) {
+            names = new String[columns.size()];
+        }
+        String name = names[position];
+        if (name == null) {
+            name = decodeName(columns.get(position));
+            names[position] = name;
+        }
+        return name;
+    }
+
+    private Object valueAt(int position) {
+        Object value = values[position];
+        if (value == NOT_DECODED) {
+            value = decodeValue(columns.get(position), nameAt(position));
+            values[position] = value;
+        }
+        return value;
+    }
+
+    private static String decodeName(Object column) {
+        ByteBuffer name;
+        if (column instanceof ColumnOrSuperColumn) {
+            name = CassandraDBUtils.columnName((ColumnOrSuperColumn) column);
+        } else if (column instanceof Column) {
+            name = ((Column) column).bufferForName();
+        } else {
+            name = ((CounterColumn) column).bufferForName();
+        }
+        return Charset.defaultCharset().decode(name.duplicate()).toString();
+    }
+
+    private Object decodeValue(Object column, String name) {
+        if (column instanceof ColumnOrSuperColumn) {
+            ColumnOrSuperColumn columnOrSuperColumn = (ColumnOrSuperColumn) column;
+            if (columnOrSuperColumn.isSetColumn()) {
+                column = columnOrSuperColumn.getColumn();
+            } else if (columnOrSuperColumn.isSetSuper_column()) {
+                return new LazyRowMap(columnOrSuperColumn.getSuper_column().getColumns(), serializerMap);
+            } else if (columnOrSuperColumn.isSetCounter_column()) {
+                column = columnOrSuperColumn.getCounter_column();
+            } else {
+                return new LazyRowMap(columnOrSuperColumn.getCounter_super_column().getColumns(), serializerMap);
+            }
+        }
+        if (column instanceof CounterColumn) {
+            return ((CounterColumn) column).getValue();
+        }
+        Serializer serializer = serializerMap.get(name);
+        if (serializer == null) {
+            serializer = StringSerializer.get();
+        }
+        return serializer.fromByteBuffer(((Column) column).bufferForValue().duplicate());
+    }
+
+    /**
+     * Entry decoding its name and value when they are first read.
+     */
+    private final class LazyEntry implements Entry<String, Object> {
+
+        private final int position;
+
+        private LazyEntry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return nameAt(position);
+        }
+
+        @Override
+        public Object getValue() {
+            return valueAt(position);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException("The columns of a row view cannot be modified");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            Object value = getValue();
+            return getKey().equals(other.getKey())
+                    && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
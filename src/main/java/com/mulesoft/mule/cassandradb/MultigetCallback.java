@@ -0,0 +1,35 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multiget executed against a Cassandra client, possibly once per chunk of the keys.
+ *
+ * @param <T> Type of the value returned for every key.
+ */
+interface MultigetCallback<T> {
+
+    /**
+     * Performs the Thrift call on some of the keys.
+     *
+     * @param client A connected client. It must not be kept once the method returns.
+     * @param keys   The keys to read in this call.
+     * @return the values read, by key.
+     * @throws Exception Any Thrift exception; it will be wrapped in a CassandraDBException.
+     */
+    Map<ByteBuffer, T> doWithClient(Cassandra.Client client, List<ByteBuffer> keys) throws Exception;
+}
@@ -0,0 +1,64 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of chunked multigets: a multiget on many keys is split into chunks of at most chunkSize keys, which are
+ * sent in parallel instead of as one large request to a single coordinator.
+ */
+class MultigetChunking extends ParallelSplitting {
+
+    private final int chunkSize;
+
+    private final long chunkTimeout;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param chunkSize    Maximum number of keys per request.
+     * @param parallelism  Maximum number of chunks of a multiget sent at the same time.
+     * @param chunkTimeout Milliseconds a chunk may take before the multiget fails; 0 disables the timeout.
+     */
+    MultigetChunking(int chunkSize, int parallelism, long chunkTimeout) {
+        super(parallelism, "multiget-chunk");
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.chunkTimeout = chunkTimeout;
+    }
+
+    /**
+     * Splits the keys into chunks of at most chunkSize keys, keeping together the keys of the same replica.
+     *
+     * @param keys   The keys of the multiget.
+     * @param router Router locating the replicas of the keys, may be null.
+     * @return the chunks.
+     */
+    List<List<ByteBuffer>> split(List<ByteBuffer> keys, TokenAwareRouter router) {
+        List<List<ByteBuffer>> chunks = new ArrayList<List<ByteBuffer>>();
+        for (List<ByteBuffer> replicaKeys : groupByReplica(keys, router)) {
+            for (int i = 0; i < replicaKeys.size(); i += chunkSize) {
+                chunks.add(replicaKeys.subList(i, Math.min(i + chunkSize, replicaKeys.size())));
+            }
+        }
+        return chunks;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    long getChunkTimeout() {
+        return chunkTimeout;
+    }
+}
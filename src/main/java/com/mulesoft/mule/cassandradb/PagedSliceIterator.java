@@ -0,0 +1,147 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates over every column of every row of a key range, paging across rows and columns together like
+ * get_paged_slice, which the Thrift API of Cassandra 1.0 does not have.
+ * <p/>
+ * Rows are read with get_range_slices, at most columnPageSize columns per row. A row returned with columnPageSize
+ * columns may be wider: the rest of it is read with get_slice, one page at a time, and returned as further
+ * KeySlice of the same key before moving to the next row. Narrow rows are read in a single call and wide rows are
+ * never truncated, while only one page of rows or of columns is kept in memory.
+ */
+class PagedSliceIterator implements Iterator<KeySlice> {
+
+    private final RequestExecutor executor;
+
+    private final ColumnParent columnParent;
+
+    private final ConsistencyLevel consistencyLevel;
+
+    private final int columnPageSize;
+
+    private final Iterator<KeySlice> rows;
+
+    /**
+     * Key of the wide row being read with get_slice, or null.
+     */
+    private ByteBuffer wideKey;
+
+    /**
+     * Last column name read from the wide row, returned again as first column of its next page.
+     */
+    private ByteBuffer boundaryName;
+
+    private KeySlice next;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor         Executor running the get_range_slices and get_slice calls.
+     * @param columnParent     Column family to read.
+     * @param consistencyLevel Consistency level of the reads.
+     * @param range            Range to scan: start and end keys, or start and end tokens. Its count is ignored.
+     * @param rowPageSize      Number of rows read per get_range_slices call; at least 2.
+     * @param columnPageSize   Number of columns read per row and per get_slice call; at least 2.
+     * @param partitioner      Partitioner of the cluster; only needed to page token ranges.
+     */
+    PagedSliceIterator(RequestExecutor executor, ColumnParent columnParent, ConsistencyLevel consistencyLevel,
+                       KeyRange range, int rowPageSize, int columnPageSize, TokenRing.Partitioner partitioner) {
+        this.executor = executor;
+        this.columnParent = columnParent;
+        this.consistencyLevel = consistencyLevel;
+        this.columnPageSize = Math.max(columnPageSize, 2);
+        this.rows = new RangeSliceIterator(executor, columnParent, columnPage(ByteBuffer.wrap(new byte[0])),
+                consistencyLevel, range, rowPageSize, partitioner);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (wideKey != null) {
+                ByteBuffer key = wideKey;
+                List<ColumnOrSuperColumn> columns = fetchColumns();
+                if (!columns.isEmpty()) {
+                    next = new KeySlice(key, columns);
+                }
+            } else if (rows.hasNext()) {
+                next = rows.next();
+                List<ColumnOrSuperColumn> columns = next.getColumns();
+                if (columns.size() >= columnPageSize) {
+                    wideKey = next.bufferForKey();
+                    boundaryName = CassandraDBUtils.columnName(columns.get(columns.size() - 1));
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public KeySlice next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        KeySlice slice = next;
+        next = null;
+        return slice;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Rows cannot be removed from a range scan");
+    }
+
+    /**
+     * Reads the next page of the wide row, without the boundary column, and ends the row after its last page.
+     */
+    private List<ColumnOrSuperColumn> fetchColumns() {
+        final ByteBuffer key = wideKey;
+        final SlicePredicate predicate = columnPage(boundaryName);
+        List<ColumnOrSuperColumn> columns;
+        try {
+            columns = executor.executeRead(key, new ClientCallback<List<ColumnOrSuperColumn>>() {
+                @Override
+                public List<ColumnOrSuperColumn> doWithClient(Cassandra.Client client) throws Exception {
+                    return client.get_slice(key, columnParent, predicate, consistencyLevel);
+                }
+            });
+        } catch (CassandraDBException e) {
+            throw new IllegalStateException("Unable to read the next page of row columns: " + e.getMessage(), e);
+        }
+        if (columns.size() < columnPageSize) {
+            wideKey = null;
+        } else {
+            boundaryName = CassandraDBUtils.columnName(columns.get(columns.size() - 1));
+        }
+        if (!columns.isEmpty() && predicate.getSlice_range().bufferForStart().equals(
+                CassandraDBUtils.columnName(columns.get(0)))) {
+            columns = columns.subList(1, columns.size());
+        }
+        return columns;
+    }
+
+    private SlicePredicate columnPage(ByteBuffer start) {
+        SlicePredicate predicate = new SlicePredicate();
+        predicate.setSlice_range(new SliceRange().setStart(start).setFinish(ByteBuffer.wrap(new byte[0]))
+                .setReversed(false).setCount(columnPageSize));
+        return predicate;
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scans a whole column family by splitting the token ring into sub-ranges, and reading the sub-ranges concurrently
+ * on a bounded pool of workers. Every worker pages through its sub-range with a {@link RangeSliceIterator}.
+ * <p/>
+ * The rows of all the workers are merged into this iterator, in no particular order. The workers stop when the
+ * buffer between them and the consumer is full, so memory stays bounded by the page size and the number of
+ * workers.
+ * <p/>
+ * A consumer that stops before the end of the scan should close it. A scan whose buffer stays full for longer than
+ * the consumer timeout is considered abandoned and closes itself, so its workers do not wait forever.
+ */
+class ParallelRangeScan implements Iterator<KeySlice>, Closeable {
+
+    private static final Object END = new Object();
+
+    private static final long POLL_INTERVAL = 100;
+
+    /**
+     * Default milliseconds the workers wait for the consumer to take a row before closing the scan.
+     */
+    static final long DEFAULT_CONSUMER_TIMEOUT = 300000;
+
+    private final RequestExecutor executor;
+
+    private final ColumnParent columnParent;
+
+    private final SlicePredicate predicate;
+
+    private final ConsistencyLevel consistencyLevel;
+
+    private final List<KeyRange> splits;
+
+    private final int pageSize;
+
+    private final TokenRing.Partitioner partitioner;
+
+    private final int parallelism;
+
+    private final BlockingQueue<Object> buffer;
+
+    private final AtomicInteger remainingSplits;
+
+    private long consumerTimeout = DEFAULT_CONSUMER_TIMEOUT;
+
+    private ExecutorService workers;
+
+    private volatile boolean closed;
+
+    private volatile RuntimeException error;
+
+    private KeySlice next;
+
+    private boolean finished;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor         Executor running the get_range_slices calls.
+     * @param columnParent     Column family or super column to read.
+     * @param predicate        Columns to read in every row.
+     * @param consistencyLevel Consistency level of the reads.
+     * @param splits           Token ranges to scan, as returned by {@link #split}.
+     * @param pageSize         Number of rows read per call.
+     * @param partitioner      Partitioner of the cluster.
+     * @param parallelism      Maximum number of sub-ranges read at the same time.
+     */
+    ParallelRangeScan(RequestExecutor executor, ColumnParent columnParent, SlicePredicate predicate,
+                      ConsistencyLevel consistencyLevel, List<KeyRange> splits, int pageSize,
+                      TokenRing.Partitioner partitioner, int parallelism) {
+        this.executor = executor;
+        this.columnParent = columnParent;
+        this.predicate = predicate;
+        this.consistencyLevel = consistencyLevel;
+        this.splits = splits;
+        this.pageSize = pageSize;
+        this.partitioner = partitioner;
+        this.parallelism = Math.max(1, Math.min(parallelism, splits.size()));
+        this.buffer = new ArrayBlockingQueue<Object>(Math.max(pageSize, 2) * this.parallelism);
+        this.remainingSplits = new AtomicInteger(splits.size());
+    }
+
+    /**
+     * Splits the ring of a keyspace into token ranges of about keysPerSplit rows of a column family.
+     *
+     * @param executor     Executor running the describe calls.
+     * @param keyspace     The keyspace, which must be the keyspace of the connections.
+     * @param columnFamily The column family to scan.
+     * @param keysPerSplit Approximate number of rows per range.
+     * @return the token ranges, which cover the whole ring.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    static List<KeyRange> split(RequestExecutor executor, final String keyspace, final String columnFamily,
+                                final int keysPerSplit) throws CassandraDBException {
+        List<TokenRange> ring = executor.execute(null, true, new ClientCallback<List<TokenRange>>() {
+            @Override
+            public List<TokenRange> doWithClient(Cassandra.Client client) throws Exception {
+                return client.describe_ring(keyspace);
+            }
+        });
+
+        List<KeyRange> splits = new ArrayList<KeyRange>();
+        for (final TokenRange range : ring) {
+            List<String> boundaries = executor.execute(null, true, new ClientCallback<List<String>>() {
+                @Override
+                public List<String> doWithClient(Cassandra.Client client) throws Exception {
+                    return client.describe_splits(columnFamily, range.getStart_token(), range.getEnd_token(),
+                            keysPerSplit);
+                }
+            });
+            // The boundaries start with the start token of the range and end with its end token
+            for (int i = 1; i < boundaries.size(); i++) {
+                splits.add(new KeyRange().setStart_token(boundaries.get(i - 1)).setEnd_token(boundaries.get(i)));
+            }
+        }
+        return splits;
+    }
+
+    /**
+     * @param consumerTimeout Milliseconds the workers wait for the consumer to take a row before closing the scan.
+     * @return this scan.
+     */
+    ParallelRangeScan setConsumerTimeout(long consumerTimeout) {
+        this.consumerTimeout = consumerTimeout;
+        return this;
+    }
+
+    /**
+     * Starts the workers.
+     *
+     * @return this scan.
+     */
+    ParallelRangeScan start() {
+        if (splits.isEmpty()) {
+            finished = true;
+            return this;
+        }
+        workers = Executors.newFixedThreadPool(parallelism, new CassandraDBThreadFactory("parallel-scan"));
+        for (final KeyRange split : splits) {
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    scan(split);
+                }
+            });
+        }
+        workers.shutdown();
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !finished) {
+            Object item;
+            try {
+                item = buffer.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for the next row of the scan", e);
+            }
+            if (error != null) {
+                close();
+                throw error;
+            }
+            if (item == END) {
+                finished = true;
+            } else if (item != null) {
+                next = (KeySlice) item;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public KeySlice next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        KeySlice slice = next;
+        next = null;
+        return slice;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Rows cannot be removed from a range scan");
+    }
+
+    /**
+     * Stops the workers before the end of the scan. Does nothing once the scan is complete.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Waits for the workers to stop, once the scan is complete, closed or abandoned.
+     *
+     * @param timeout Maximum time to wait.
+     * @param unit    Unit of the timeout.
+     * @return true if the workers have stopped, false if the timeout elapsed first.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers == null || workers.awaitTermination(timeout, unit);
+    }
+
+    private void scan(KeyRange split) {
+        try {
+            Iterator<KeySlice> rows = new RangeSliceIterator(executor, columnParent, predicate, consistencyLevel,
+                    split, pageSize, partitioner);
+            while (!closed && rows.hasNext()) {
+                if (!put(rows.next())) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            error = e;
+            closed = true;
+            return;
+        }
+        if (remainingSplits.decrementAndGet() == 0) {
+            put(END);
+        }
+    }
+
+    /**
+     * Waits for room in the buffer, giving up when the scan is closed, and closing it when the consumer has not
+     * taken a row for longer than the consumer timeout.
+     */
+    private boolean put(Object item) {
+        long deadline = System.currentTimeMillis() + consumerTimeout;
+        try {
+            while (!closed) {
+                if (buffer.offer(item, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    abandon();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Closes the scan from a worker. A consumer coming back gets the error instead of a truncated scan.
+     */
+    private void abandon() {
+        error = new IllegalStateException("The scan was closed: no row was taken for " + consumerTimeout + " ms");
+        closed = true;
+        workers.shutdownNow();
+        buffer.clear();
+    }
+}
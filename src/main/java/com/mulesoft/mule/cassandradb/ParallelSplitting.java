@@ -0,0 +1,85 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Base of the settings of requests split into parts sent in parallel: the pool the parts run on and the number of
+ * parts of a request sent at the same time.
+ * <p/>
+ * When the token ring is known, the row keys are grouped by their first replica before being split, so every part
+ * can be sent to a replica of all of its keys.
+ */
+abstract class ParallelSplitting {
+
+    private final int parallelism;
+
+    private final ExecutorService executor;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param parallelism Maximum number of parts of a request sent at the same time.
+     * @param threadName  Name of the threads of the pool the parts run on.
+     */
+    ParallelSplitting(int parallelism, String threadName) {
+        this.parallelism = Math.max(parallelism, 1);
+        this.executor = Executors.newCachedThreadPool(new CassandraDBThreadFactory(threadName));
+    }
+
+    /**
+     * Groups row keys by their first replica.
+     *
+     * @param keys   The row keys.
+     * @param router Router locating the replicas of the keys, may be null.
+     * @return the keys of every replica, in the order of their first key; a single group when the router is null.
+     */
+    static List<List<ByteBuffer>> groupByReplica(Collection<ByteBuffer> keys, TokenAwareRouter router) {
+        Map<String, List<ByteBuffer>> keysByReplica = new LinkedHashMap<String, List<ByteBuffer>>();
+        for (ByteBuffer key : keys) {
+            String replica = null;
+            if (router != null) {
+                List<String> replicas = router.getReplicas(key);
+                replica = replicas.isEmpty() ? null : replicas.get(0);
+            }
+            List<ByteBuffer> replicaKeys = keysByReplica.get(replica);
+            if (replicaKeys == null) {
+                replicaKeys = new ArrayList<ByteBuffer>();
+                keysByReplica.put(replica, replicaKeys);
+            }
+            replicaKeys.add(key);
+        }
+        return new ArrayList<List<ByteBuffer>>(keysByReplica.values());
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the pool the parts run on.
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
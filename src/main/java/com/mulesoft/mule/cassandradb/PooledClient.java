@@ -0,0 +1,97 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.thrift.transport.TTransport;
+
+/**
+ * A Thrift connection owned by the {@link CassandraDBConnectionPool}.
+ */
+class PooledClient {
+
+    private final String host;
+
+    private final Cassandra.Client client;
+
+    private final TTransport transport;
+
+    /**
+     * Keyspace the connection is currently bound to.
+     */
+    private String keyspace;
+
+    private volatile long lastUsed;
+
+    private volatile long borrowedAt;
+
+    PooledClient(String host, Cassandra.Client client, TTransport transport, String keyspace) {
+        this.host = host;
+        this.client = client;
+        this.transport = transport;
+        this.keyspace = keyspace;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    Cassandra.Client getClient() {
+        return client;
+    }
+
+    String getKeyspace() {
+        return keyspace;
+    }
+
+    void setKeyspace(String keyspace) {
+        this.keyspace = keyspace;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Records the time the connection was lent, to measure the latency of the host.
+     */
+    void markBorrowed() {
+        borrowedAt = System.currentTimeMillis();
+    }
+
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    boolean isOpen() {
+        return transport != null && transport.isOpen();
+    }
+
+    void close() {
+        try {
+            if (transport != null) {
+                transport.close();
+            }
+        } catch (Exception e) {
+            // Nothing else can be done with a connection that fails to close
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host + "/" + keyspace;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates over every row of a key range, reading it one get_range_slices page at a time. Only the current
+ * page is kept in memory.
+ * <p/>
+ * Key ranges are paged by starting the next page at the last key read; that key is returned again by Cassandra
+ * and dropped. Token ranges are paged by starting the next page at the token of the last key read, which is
+ * exclusive, so the partitioner of the cluster must be known; the scan ends on a page whose last key has the end
+ * token.
+ */
+class RangeSliceIterator implements Iterator<KeySlice> {
+
+    private final RequestExecutor executor;
+
+    private final ColumnParent columnParent;
+
+    private final SlicePredicate predicate;
+
+    private final ConsistencyLevel consistencyLevel;
+
+    private final int pageSize;
+
+    private final TokenRing.Partitioner partitioner;
+
+    /**
+     * Range of the next page to read, or null when the last page has been read.
+     */
+    private KeyRange nextRange;
+
+    /**
+     * Last key of the previous page, returned again as first key of the next page when paging by key.
+     */
+    private ByteBuffer boundaryKey;
+
+    private boolean firstPage = true;
+
+    private Iterator<KeySlice> page = Collections.<KeySlice>emptyList().iterator();
+
+    private KeySlice next;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor         Executor running the get_range_slices calls.
+     * @param columnParent     Column family or super column to read.
+     * @param predicate        Columns to read in every row.
+     * @param consistencyLevel Consistency level of the reads.
+     * @param range            Range to scan: start and end keys, or start and end tokens. Its count is ignored.
+     * @param pageSize         Number of rows read per call; at least 2.
+     * @param partitioner      Partitioner of the cluster; only needed to page token ranges.
+     */
+    RangeSliceIterator(RequestExecutor executor, ColumnParent columnParent, SlicePredicate predicate,
+                       ConsistencyLevel consistencyLevel, KeyRange range, int pageSize,
+                       TokenRing.Partitioner partitioner) {
+        if (range.isSetStart_token() && partitioner == null) {
+            throw new IllegalArgumentException("The partitioner is required to page a token range");
+        }
+        this.executor = executor;
+        this.columnParent = columnParent;
+        this.predicate = predicate;
+        this.consistencyLevel = consistencyLevel;
+        this.pageSize = Math.max(pageSize, 2);
+        this.partitioner = partitioner;
+        this.nextRange = range.deepCopy().setCount(this.pageSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (page.hasNext()) {
+                KeySlice slice = page.next();
+                if (boundaryKey == null || !boundaryKey.equals(slice.bufferForKey())) {
+                    next = slice;
+                }
+                boundaryKey = null;
+            } else if (nextRange != null) {
+                page = fetchPage().iterator();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public KeySlice next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        KeySlice slice = next;
+        next = null;
+        return slice;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Rows cannot be removed from a range scan");
+    }
+
+    private List<KeySlice> fetchPage() {
+        final KeyRange range = nextRange;
+        List<KeySlice> slices;
+        try {
+            slices = executor.executeRead(null, new ClientCallback<List<KeySlice>>() {
+                @Override
+                public List<KeySlice> doWithClient(Cassandra.Client client) throws Exception {
+                    return client.get_range_slices(columnParent, predicate, range, consistencyLevel);
+                }
+            });
+        } catch (CassandraDBException e) {
+            throw new IllegalStateException("Unable to read the next page of the range scan: " + e.getMessage(), e);
+        }
+
+        if (slices.size() < range.getCount()) {
+            nextRange = null;
+        } else {
+            ByteBuffer lastKey = slices.get(slices.size() - 1).bufferForKey();
+            nextRange = range.deepCopy();
+            if (range.isSetStart_token()) {
+                String lastToken = partitioner.getToken(lastKey).toString();
+                // A range starting at its end token wraps around the whole ring
+                nextRange = lastToken.equals(range.getEnd_token()) ? null : nextRange.setStart_token(lastToken);
+            } else {
+                nextRange.setStart_key(lastKey);
+            }
+        }
+        // Every key page but the first starts with the last row of the previous page
+        boundaryKey = firstPage || range.isSetStart_token() ? null : range.bufferForStart_key();
+        firstPage = false;
+        return slices;
+    }
+}
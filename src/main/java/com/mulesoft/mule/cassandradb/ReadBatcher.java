@@ -0,0 +1,218 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.cassandra.thrift.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Micro-batching of single row reads: reads of different rows with the same column parent, predicate and
+ * consistency level, issued within a short window, are sent as a single multiget_slice.
+ * <p/>
+ * The first read of a batch waits for the window to elapse, or for the batch to be full, then sends the batch;
+ * the other reads of the batch wait for its result.
+ */
+class ReadBatcher {
+
+    private final RequestExecutor executor;
+
+    private final int maxBatchSize;
+
+    private final long window;
+
+    private final ConcurrentMap<List<Object>, Batch> pending = new ConcurrentHashMap<List<Object>, Batch>();
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor     Executor running the multiget_slice calls.
+     * @param maxBatchSize Number of rows after which a batch is sent without waiting for the end of the window.
+     * @param window       Milliseconds the first read of a batch waits for other reads.
+     */
+    ReadBatcher(RequestExecutor executor, int maxBatchSize, long window) {
+        this.executor = executor;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.window = window;
+    }
+
+    /**
+     * Reads the columns of a row, as part of a batch.
+     *
+     * @param key              Key of the row.
+     * @param columnParent     Column family or super column to read.
+     * @param predicate        Columns to read.
+     * @param consistencyLevel Consistency level of the read.
+     * @return the columns read, which may be shared with other reads and must not be modified.
+     * @throws CassandraDBException when the batch fails.
+     */
+    List<ColumnOrSuperColumn> read(ByteBuffer key, ColumnParent columnParent, SlicePredicate predicate,
+                                   ConsistencyLevel consistencyLevel) throws CassandraDBException {
+        List<Object> batchKey = batchKey(columnParent, predicate, consistencyLevel);
+        Batch batch;
+        boolean first;
+        while (true) {
+            first = false;
+            batch = pending.get(batchKey);
+            if (batch == null) {
+                Batch created = new Batch(columnParent, predicate, consistencyLevel);
+                batch = pending.putIfAbsent(batchKey, created);
+                if (batch == null) {
+                    batch = created;
+                    first = true;
+                }
+            }
+            if (batch.add(key, maxBatchSize)) {
+                break;
+            }
+            // The batch is full and being sent
+            pending.remove(batchKey, batch);
+        }
+
+        if (first) {
+            try {
+                batch.awaitClose(window);
+            } catch (CassandraDBException e) {
+                // The other reads of the batch fail with it rather than waiting for a result that never comes
+                batch.result.setException(e);
+                throw e;
+            } finally {
+                pending.remove(batchKey, batch);
+            }
+            send(batch);
+        }
+        List<ColumnOrSuperColumn> columns = batch.getResult().get(key);
+        return columns != null ? columns : Collections.<ColumnOrSuperColumn>emptyList();
+    }
+
+    /**
+     * @return the number of batches collecting reads.
+     */
+    int size() {
+        return pending.size();
+    }
+
+    private void send(final Batch batch) {
+        try {
+            batch.result.set(executor.executeMultiget(new ArrayList<ByteBuffer>(batch.keys),
+                    new MultigetCallback<List<ColumnOrSuperColumn>>() {
+                        @Override
+                        public Map<ByteBuffer, List<ColumnOrSuperColumn>> doWithClient(Cassandra.Client client,
+                                                                                     List<ByteBuffer> keys)
+                                throws Exception {
+                            return client.multiget_slice(keys, batch.columnParent, batch.predicate,
+                                    batch.consistencyLevel);
+                        }
+                    }));
+        } catch (CassandraDBException e) {
+            batch.result.setException(e);
+        } catch (RuntimeException e) {
+            batch.result.setException(e);
+        }
+    }
+
+    /**
+     * Identifies the reads that can share a multiget_slice. Thrift structures cannot be used as keys as they do not
+     * implement hashCode.
+     */
+    private static List<Object> batchKey(ColumnParent columnParent, SlicePredicate predicate,
+                                         ConsistencyLevel consistencyLevel) {
+        SliceRange range = predicate.getSlice_range();
+        return Arrays.<Object>asList(columnParent.getColumn_family(), columnParent.bufferForSuper_column(),
+                predicate.getColumn_names(),
+                range != null ? range.bufferForStart() : null,
+                range != null ? range.bufferForFinish() : null,
+                range != null ? range.isReversed() : null,
+                range != null ? range.getCount() : null,
+                consistencyLevel);
+    }
+
+    /**
+     * Rows read by a single multiget_slice.
+     */
+    private static final class Batch {
+
+        private final ColumnParent columnParent;
+
+        private final SlicePredicate predicate;
+
+        private final ConsistencyLevel consistencyLevel;
+
+        private final Set<ByteBuffer> keys = new LinkedHashSet<ByteBuffer>();
+
+        private final SettableFuture<Map<ByteBuffer, List<ColumnOrSuperColumn>>> result = SettableFuture.create();
+
+        private boolean closed;
+
+        private Batch(ColumnParent columnParent, SlicePredicate predicate, ConsistencyLevel consistencyLevel) {
+            this.columnParent = columnParent;
+            this.predicate = predicate;
+            this.consistencyLevel = consistencyLevel;
+        }
+
+        /**
+         * @return false if the batch is already closed.
+         */
+        synchronized boolean add(ByteBuffer key, int maxBatchSize) {
+            if (closed) {
+                return false;
+            }
+            keys.add(key);
+            if (keys.size() >= maxBatchSize) {
+                closed = true;
+                notifyAll();
+            }
+            return true;
+        }
+
+        /**
+         * Waits until the batch is full or the window has elapsed, and closes it.
+         */
+        synchronized void awaitClose(long window) throws CassandraDBException {
+            long deadline = System.currentTimeMillis() + window;
+            try {
+                long remaining = window;
+                while (!closed && remaining > 0) {
+                    wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CassandraDBException("Interrupted while collecting a read batch", e);
+            } finally {
+                closed = true;
+            }
+        }
+
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> getResult() throws CassandraDBException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CassandraDBException("Interrupted while waiting for a Cassandra response", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CassandraDBException) {
+                    throw (CassandraDBException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new CassandraDBException(cause.getMessage(), cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Single-flight execution of identical reads: while a read is in flight, the same read issued by other threads
+ * waits for it and returns its result instead of being sent again. The result is shared by all the callers, so it
+ * must not be modified.
+ */
+class ReadCoalescer {
+
+    private final ConcurrentMap<Object, SettableFuture<Object>> inFlight =
+            new ConcurrentHashMap<Object, SettableFuture<Object>>();
+
+    /**
+     * Runs the read, or waits for the identical read already in flight.
+     *
+     * @param key  Identifies the read: everything its result depends on.
+     * @param read The read to run when no identical read is in flight.
+     * @param <T>  Type of the result.
+     * @return the result of the read.
+     * @throws CassandraDBException when the read fails, for every caller waiting for it.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(Object key, Callable<T> read) throws CassandraDBException {
+        SettableFuture<Object> flight = SettableFuture.create();
+        SettableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+        try {
+            T result = read.call();
+            flight.set(result);
+            return result;
+        } catch (CassandraDBException e) {
+            flight.setException(e);
+            throw e;
+        } catch (RuntimeException e) {
+            flight.setException(e);
+            throw e;
+        } catch (Exception e) {
+            CassandraDBException wrapped = new CassandraDBException(e.getMessage(), e);
+            flight.setException(wrapped);
+            throw wrapped;
+        } finally {
+            if (!flight.isDone()) {
+                flight.setException(new CassandraDBException("The read shared by this request did not complete"));
+            }
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return the number of distinct reads in flight.
+     */
+    int size() {
+        return inFlight.size();
+    }
+
+    private static Object await(SettableFuture<Object> flight) throws CassandraDBException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for a Cassandra response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CassandraDBException) {
+                throw (CassandraDBException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CassandraDBException(cause.getMessage(), cause);
+        }
+    }
+}
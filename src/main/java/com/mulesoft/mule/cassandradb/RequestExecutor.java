@@ -0,0 +1,630 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Mutation;
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.cassandra.thrift.UnavailableException;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@link ClientCallback}s against a client taken from the connection pool, or against a single client when
+ * one has been set directly.
+ */
+class RequestExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestExecutor.class);
+
+    private final CassandraDBConnectionPool pool;
+
+    private final Cassandra.Client fixedClient;
+
+    private TokenAwareRouter router;
+
+    private SpeculativeExecution speculation;
+
+    private RetryPolicy retryPolicy;
+
+    private RetryBudget retryBudget;
+
+    private MultigetChunking chunking;
+
+    private BatchSplitting splitting;
+
+    /**
+     * Creates an executor that borrows a connection from the pool for every call.
+     *
+     * @param pool An open connection pool.
+     */
+    RequestExecutor(CassandraDBConnectionPool pool) {
+        this.pool = pool;
+        this.fixedClient = null;
+    }
+
+    /**
+     * Creates an executor that always uses the same client.
+     *
+     * @param client A connected client.
+     */
+    RequestExecutor(Cassandra.Client client) {
+        this.pool = null;
+        this.fixedClient = client;
+    }
+
+    /**
+     * Runs the callback with a connected client. The call is not retried, as it may not be safe to apply twice:
+     * reads must be run with {@link #executeRead} or declared idempotent.
+     *
+     * @param callback The Thrift call to perform.
+     * @param <T>      Type of the call result.
+     * @return the result of the call.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    <T> T execute(ClientCallback<T> callback) throws CassandraDBException {
+        return execute(null, false, callback);
+    }
+
+    /**
+     * Runs the callback with a client connected to a replica of the row key when token aware routing is enabled,
+     * or to any host otherwise.
+     *
+     * @param routingKey The row key the call reads or writes, or null when it is not bound to a single row.
+     * @param callback   The Thrift call to perform.
+     * @param <T>        Type of the call result.
+     * @return the result of the call.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    <T> T execute(ByteBuffer routingKey, ClientCallback<T> callback) throws CassandraDBException {
+        return execute(routingKey, true, callback);
+    }
+
+    /**
+     * Runs the callback, retrying it on another host when the retry policy and the retry budget allow it.
+     *
+     * @param routingKey The row key the call reads or writes, or null when it is not bound to a single row.
+     * @param idempotent Whether the call can safely be applied twice.
+     * @param callback   The Thrift call to perform.
+     * @param <T>        Type of the call result.
+     * @return the result of the call.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    <T> T execute(ByteBuffer routingKey, boolean idempotent, ClientCallback<T> callback) throws CassandraDBException {
+        return execute(routingKey, idempotent, callback, null);
+    }
+
+    /**
+     * Runs the callback with retries, recording the host of the latest attempt.
+     */
+    private <T> T execute(ByteBuffer routingKey, boolean idempotent, ClientCallback<T> callback,
+                          AtomicReference<String> host) throws CassandraDBException {
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
+        String lastHost = null;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (pool == null) {
+                    return invoke(callback, fixedClient);
+                }
+                PooledClient pooled = lastHost == null ? borrow(routingKey) : borrowOther(lastHost, routingKey);
+                lastHost = pooled.getHost();
+                if (host != null) {
+                    host.set(lastHost);
+                }
+                return executeOn(pooled, callback);
+            } catch (CassandraDBException e) {
+                // Exceptions without a cause come from the pool itself, which has already waited for a connection
+                long delay = retryPolicy == null || e.getCause() == null
+                        ? -1 : retryPolicy.getRetryDelay(e.getCause(), attempt, idempotent);
+                // An interrupted request has lost a speculative read, or its caller has given up
+                if (delay < 0 || Thread.currentThread().isInterrupted()
+                        || (retryBudget != null && !retryBudget.tryWithdraw())) {
+                    throw e;
+                }
+                LOGGER.debug("Attempt " + attempt + " failed with " + e.getCause() + "; retrying in " + delay + " ms");
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Runs a read. When speculative reads are enabled and the first host has not answered after the speculative
+     * delay, the same read is sent to another host and the first answer is returned. The first request is retried
+     * like any other call; the second one takes a retry from the retry budget, so reads are not doubled when the
+     * hosts are slow. Once one request has answered, the other one is cancelled: it stops retrying, and gives its
+     * connection back as soon as its current call returns.
+     *
+     * @param routingKey The row key the call reads, or null when it is not bound to a single row.
+     * @param callback   The Thrift call to perform; it must not modify any data.
+     * @param <T>        Type of the call result.
+     * @return the result of the call.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    <T> T executeRead(final ByteBuffer routingKey, final ClientCallback<T> callback) throws CassandraDBException {
+        SpeculativeExecution current = speculation;
+        if (pool == null || current == null) {
+            return execute(routingKey, callback);
+        }
+
+        long started = System.currentTimeMillis();
+        final AtomicReference<String> primaryHost = new AtomicReference<String>();
+        CompletionService<T> completion = new ExecutorCompletionService<T>(current.getExecutor());
+        Future<T> primary;
+        try {
+            primary = completion.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    return execute(routingKey, true, callback, primaryHost);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Every speculative thread is busy: read without a second request
+            return execute(routingKey, callback);
+        }
+
+        Future<T> hedge = null;
+        PooledClient hedgeClient = null;
+        // Whoever sets it first owns the hedge client: the second request, or the cancellation of the read
+        final AtomicBoolean hedgeClaimed = new AtomicBoolean();
+        try {
+            Future<T> first = completion.poll(current.getDelay(), TimeUnit.MILLISECONDS);
+            if (first == null) {
+                List<String> replicas = router != null && routingKey != null
+                        ? router.getReplicas(routingKey) : Collections.<String>emptyList();
+                hedgeClient = retryBudget == null || retryBudget.tryWithdraw()
+                        ? pool.borrowExcluding(primaryHost.get(), replicas) : null;
+                hedge = hedgeClient != null ? submitHedge(completion, hedgeClient, hedgeClaimed, callback) : null;
+                if (hedge == null) {
+                    // Out of budget, or no other host or thread is free: a second request would only add load
+                    first = primary;
+                } else {
+                    current.hedgeFired();
+                    first = completion.take();
+                    if (!isSuccessful(first)) {
+                        // The first answer is an error: give the other request a chance to succeed
+                        Future<T> second = completion.take();
+                        if (isSuccessful(second)) {
+                            first = second;
+                        }
+                    }
+                    if (first == hedge && isSuccessful(first)) {
+                        current.hedgeWon();
+                    }
+                }
+            }
+            T result = getResult(first);
+            current.recordLatency(System.currentTimeMillis() - started);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for a Cassandra response", e);
+        } finally {
+            // The losing request stops retrying; a call already sent still completes and releases its connection
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            if (hedgeClient != null && hedgeClaimed.compareAndSet(false, true)) {
+                pool.releaseUnused(hedgeClient);
+            }
+        }
+    }
+
+    /**
+     * Sends the second request of a speculative read on a client borrowed for it.
+     *
+     * @param claimed Set by the request when it starts, unless the read has claimed the client back first.
+     * @return the second request, or null when every speculative thread is busy.
+     */
+    private <T> Future<T> submitHedge(CompletionService<T> completion, final PooledClient hedgeClient,
+                                      final AtomicBoolean claimed, final ClientCallback<T> callback) {
+        try {
+            return completion.submit(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    if (!claimed.compareAndSet(false, true)) {
+                        throw new CancellationException();
+                    }
+                    return executeOn(hedgeClient, callback);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a multiget. When chunking is enabled and there are more keys than the chunk size, the keys are split
+     * into chunks that are read in parallel, each one routed to a replica of its keys, and the results are merged.
+     *
+     * @param keys     The keys to read.
+     * @param callback The Thrift call to perform on every chunk; it must not modify any data.
+     * @param <T>      Type of the value returned for every key.
+     * @return the values read, by key.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions, or when a chunk has not
+     *                              answered within the chunk timeout.
+     */
+    <T> Map<ByteBuffer, T> executeMultiget(List<ByteBuffer> keys, MultigetCallback<T> callback)
+            throws CassandraDBException {
+        MultigetChunking current = chunking;
+        if (current == null || keys.size() <= current.getChunkSize()) {
+            return executeRead(keys.isEmpty() ? null : keys.get(0), forKeys(callback, keys));
+        }
+
+        List<List<ByteBuffer>> chunks = current.split(keys, router);
+        Map<ByteBuffer, T> result = new HashMap<ByteBuffer, T>(keys.size() * 4 / 3 + 1);
+        if (pool == null) {
+            // A single client cannot run several calls at the same time
+            for (List<ByteBuffer> chunk : chunks) {
+                result.putAll(executeRead(chunk.get(0), forKeys(callback, chunk)));
+            }
+            return result;
+        }
+
+        CompletionService<Map<ByteBuffer, T>> completion =
+                new ExecutorCompletionService<Map<ByteBuffer, T>>(current.getExecutor());
+        Map<Future<Map<ByteBuffer, T>>, Long> running = new HashMap<Future<Map<ByteBuffer, T>>, Long>();
+        int submitted = 0;
+        try {
+            while (submitted < chunks.size() || !running.isEmpty()) {
+                while (submitted < chunks.size() && running.size() < current.getParallelism()) {
+                    final List<ByteBuffer> chunk = chunks.get(submitted++);
+                    final ClientCallback<Map<ByteBuffer, T>> chunkCallback = forKeys(callback, chunk);
+                    running.put(completion.submit(new Callable<Map<ByteBuffer, T>>() {
+                        @Override
+                        public Map<ByteBuffer, T> call() throws Exception {
+                            return executeRead(chunk.get(0), chunkCallback);
+                        }
+                    }), System.currentTimeMillis());
+                }
+
+                Future<Map<ByteBuffer, T>> done;
+                if (current.getChunkTimeout() <= 0) {
+                    done = completion.take();
+                } else {
+                    long oldest = Collections.min(running.values());
+                    long wait = oldest + current.getChunkTimeout() - System.currentTimeMillis();
+                    done = completion.poll(Math.max(wait, 0), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        throw new CassandraDBException("A multiget chunk did not answer within "
+                                + current.getChunkTimeout() + " ms");
+                    }
+                }
+                running.remove(done);
+                result.putAll(getResult(done));
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for a Cassandra response", e);
+        } finally {
+            for (Future<Map<ByteBuffer, T>> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Runs a batch_mutate. When splitting is enabled and the batch is over its limits, the batch is split into
+     * sub-batches that are sent in parallel, each one routed to a replica of its rows. Sub-batches incrementing
+     * counters are not retried.
+     *
+     * @param mutationMap      The mutations, by row key and column family.
+     * @param consistencyLevel Consistency level of the writes.
+     * @throws BatchMutateException when some of the sub-batches failed, holding the mutations of each of them.
+     * @throws CassandraDBException Generic Exception wrapper class for Thrift Exceptions.
+     */
+    void executeBatchMutate(Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+                            ConsistencyLevel consistencyLevel) throws CassandraDBException {
+        BatchSplitting current = splitting;
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches = current == null
+                ? Collections.singletonList(mutationMap) : current.split(mutationMap, router);
+        if (batches.size() <= 1) {
+            batchMutate(mutationMap, consistencyLevel);
+            return;
+        }
+
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> failedBatches =
+                new ArrayList<Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        List<Throwable> causes = new ArrayList<Throwable>();
+        if (pool == null) {
+            // A single client cannot run several calls at the same time
+            for (Map<ByteBuffer, Map<String, List<Mutation>>> batch : batches) {
+                try {
+                    batchMutate(batch, consistencyLevel);
+                } catch (CassandraDBException e) {
+                    failedBatches.add(batch);
+                    causes.add(e);
+                }
+            }
+        } else {
+            sendBatches(current, batches, consistencyLevel, failedBatches, causes);
+        }
+        if (!failedBatches.isEmpty()) {
+            throw new BatchMutateException(batches.size(), failedBatches, causes);
+        }
+    }
+
+    private void sendBatches(BatchSplitting current, List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches,
+                             final ConsistencyLevel consistencyLevel,
+                             List<Map<ByteBuffer, Map<String, List<Mutation>>>> failedBatches,
+                             List<Throwable> causes) throws CassandraDBException {
+        CompletionService<Void> completion = new ExecutorCompletionService<Void>(current.getExecutor());
+        Map<Future<Void>, Map<ByteBuffer, Map<String, List<Mutation>>>> running =
+                new HashMap<Future<Void>, Map<ByteBuffer, Map<String, List<Mutation>>>>();
+        int submitted = 0;
+        try {
+            while (submitted < batches.size() || !running.isEmpty()) {
+                while (submitted < batches.size() && running.size() < current.getParallelism()) {
+                    final Map<ByteBuffer, Map<String, List<Mutation>>> batch = batches.get(submitted++);
+                    running.put(completion.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            batchMutate(batch, consistencyLevel);
+                            return null;
+                        }
+                    }), batch);
+                }
+
+                Future<Void> done = completion.take();
+                Map<ByteBuffer, Map<String, List<Mutation>>> batch = running.remove(done);
+                try {
+                    getResult(done);
+                } catch (CassandraDBException e) {
+                    failedBatches.add(batch);
+                    causes.add(e);
+                } catch (RuntimeException e) {
+                    failedBatches.add(batch);
+                    causes.add(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for a Cassandra response", e);
+        } finally {
+            for (Future<Void> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private void batchMutate(final Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap,
+                             final ConsistencyLevel consistencyLevel) throws CassandraDBException {
+        execute(CassandraDBUtils.firstRowKey(mutationMap), !CassandraDBUtils.containsCounterMutation(mutationMap),
+                new ClientCallback<Void>() {
+                    @Override
+                    public Void doWithClient(Cassandra.Client client) throws Exception {
+                        client.batch_mutate(mutationMap, consistencyLevel);
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * @return whether the underlying connections are usable.
+     */
+    boolean isConnected() {
+        return pool == null ? fixedClient != null : pool.isOpen();
+    }
+
+    /**
+     * @return the connection pool, or null when a single client is used.
+     */
+    CassandraDBConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Enables token aware routing.
+     *
+     * @param router Router that knows the replicas of the row keys.
+     */
+    void setRouter(TokenAwareRouter router) {
+        this.router = router;
+    }
+
+    /**
+     * @return the token aware router, or null when routing is disabled.
+     */
+    TokenAwareRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Enables speculative reads.
+     *
+     * @param speculation Delay and statistics of the speculative reads.
+     */
+    void setSpeculativeExecution(SpeculativeExecution speculation) {
+        this.speculation = speculation;
+    }
+
+    /**
+     * @return the speculative read settings, or null when speculative reads are disabled.
+     */
+    SpeculativeExecution getSpeculativeExecution() {
+        return speculation;
+    }
+
+    /**
+     * Enables retries.
+     *
+     * @param retryPolicy Policy deciding which failures are retried.
+     * @param retryBudget Budget limiting the number of retries, or null for no limit.
+     */
+    void setRetryPolicy(RetryPolicy retryPolicy, RetryBudget retryBudget) {
+        this.retryPolicy = retryPolicy;
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Enables chunked multigets.
+     *
+     * @param chunking Chunk size, parallelism and timeout of the multigets.
+     */
+    void setMultigetChunking(MultigetChunking chunking) {
+        this.chunking = chunking;
+    }
+
+    /**
+     * Enables split batch mutates.
+     *
+     * @param splitting Limits and parallelism of the sub-batches.
+     */
+    void setBatchSplitting(BatchSplitting splitting) {
+        this.splitting = splitting;
+    }
+
+    /**
+     * Closes the connection pool.
+     */
+    void close() {
+        if (router != null) {
+            router.stop();
+        }
+        if (speculation != null) {
+            speculation.shutdown();
+        }
+        if (chunking != null) {
+            chunking.shutdown();
+        }
+        if (splitting != null) {
+            splitting.shutdown();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Whether the exception was raised by the Thrift transport or protocol rather than by Cassandra, leaving the
+     * connection in an unknown state. A TApplicationException is a complete answer of the server.
+     */
+    static boolean isConnectionFailure(CassandraDBException e) {
+        return e.getCause() instanceof TTransportException || e.getCause() instanceof TProtocolException;
+    }
+
+    private PooledClient borrow(ByteBuffer routingKey) throws CassandraDBException {
+        return router != null && routingKey != null ? pool.borrow(router.getReplicas(routingKey)) : pool.borrow();
+    }
+
+    /**
+     * Borrows a connection to another host than the one that just failed, if one is free.
+     */
+    private PooledClient borrowOther(String failedHost, ByteBuffer routingKey) throws CassandraDBException {
+        List<String> replicas = router != null && routingKey != null
+                ? router.getReplicas(routingKey) : Collections.<String>emptyList();
+        PooledClient pooled = pool.borrowExcluding(failedHost, replicas);
+        return pooled != null ? pooled : borrow(routingKey);
+    }
+
+    private static void sleep(long delay) throws CassandraDBException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting to retry a Cassandra request", e);
+        }
+    }
+
+    /**
+     * Runs the callback with a borrowed client and gives the client back.
+     */
+    private <T> T executeOn(PooledClient pooled, ClientCallback<T> callback) throws CassandraDBException {
+        CassandraDBConnectionPool.Outcome outcome = CassandraDBConnectionPool.Outcome.SUCCESS;
+        try {
+            return invoke(callback, pooled.getClient());
+        } catch (CassandraDBException e) {
+            outcome = outcomeOf(e);
+            if (outcome == CassandraDBConnectionPool.Outcome.BROKEN && router != null) {
+                router.requestRefresh();
+            }
+            throw e;
+        } finally {
+            pool.release(pooled, outcome);
+        }
+    }
+
+    /**
+     * What a failure says about the host: transport failures break the connection, timeouts and unavailable
+     * replicas are server errors, and any other error is a valid answer to an invalid request.
+     */
+    static CassandraDBConnectionPool.Outcome outcomeOf(CassandraDBException e) {
+        if (isConnectionFailure(e)) {
+            return CassandraDBConnectionPool.Outcome.BROKEN;
+        }
+        if (e.getCause() instanceof TimedOutException || e.getCause() instanceof UnavailableException) {
+            return CassandraDBConnectionPool.Outcome.SERVER_ERROR;
+        }
+        return CassandraDBConnectionPool.Outcome.SUCCESS;
+    }
+
+    private static boolean isSuccessful(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws CassandraDBException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CassandraDBException) {
+                throw (CassandraDBException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CassandraDBException(cause.getMessage(), cause);
+        }
+    }
+
+    private static <T> ClientCallback<Map<ByteBuffer, T>> forKeys(final MultigetCallback<T> callback,
+                                                                  final List<ByteBuffer> keys) {
+        return new ClientCallback<Map<ByteBuffer, T>>() {
+            @Override
+            public Map<ByteBuffer, T> doWithClient(Cassandra.Client client) throws Exception {
+                return callback.doWithClient(client, keys);
+            }
+        };
+    }
+
+    private static <T> T invoke(ClientCallback<T> callback, Cassandra.Client client) throws CassandraDBException {
+        try {
+            return callback.doWithClient(client);
+        } catch (CassandraDBException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CassandraDBException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a ratio of the requests, so that retries cannot multiply the load of a cluster that is already
+ * overloaded. Every request deposits ratio tokens and every retry withdraws one.
+ */
+class RetryBudget {
+
+    /**
+     * Tokens are stored in thousandths, so that fractional deposits add up.
+     */
+    private static final long SCALE = 1000;
+
+    /**
+     * Retries allowed before any request has been made, so a quiet application can still ride out a blip.
+     */
+    static final int INITIAL_RETRIES = 10;
+
+    /**
+     * Upper bound of the saved retries, so a long quiet period does not allow a storm of retries.
+     */
+    static final int MAX_RETRIES = 100;
+
+    private final long deposit;
+
+    private final AtomicLong balance = new AtomicLong(INITIAL_RETRIES * SCALE);
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param ratio Retries allowed per request, e.g. 0.1 for one retry every ten requests.
+     */
+    RetryBudget(double ratio) {
+        this.deposit = (long) (ratio * SCALE);
+    }
+
+    /**
+     * Records a new request.
+     */
+    void deposit() {
+        long current = balance.get();
+        while (current < MAX_RETRIES * SCALE) {
+            if (balance.compareAndSet(current, Math.min(MAX_RETRIES * SCALE, current + deposit))) {
+                return;
+            }
+            current = balance.get();
+        }
+    }
+
+    /**
+     * Takes the token of a retry.
+     *
+     * @return whether the retry is allowed.
+     */
+    boolean tryWithdraw() {
+        long current = balance.get();
+        while (current >= SCALE) {
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+            current = balance.get();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+/**
+ * Decides whether a failed Thrift call is attempted again, and after how long. Retries are sent to a different host
+ * when the connection pool has one.
+ */
+public interface RetryPolicy {
+
+    /**
+     * @param cause      The exception thrown by the failed attempt, such as a TimedOutException.
+     * @param attempt    Number of attempts made so far, starting at 1.
+     * @param idempotent Whether the call can be applied twice without changing the result. Counter increments are
+     *                   not idempotent.
+     * @return milliseconds to wait before the next attempt, or a negative value to give up.
+     */
+    long getRetryDelay(Throwable cause, int attempt, boolean idempotent);
+}
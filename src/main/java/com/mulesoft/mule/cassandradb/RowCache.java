@@ -0,0 +1,281 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.cassandra.thrift.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Client-side cache of the results of reads, grouped by row. Each row entry holds the results of the different
+ * reads of that row (a column path, a slice predicate...) and is evicted, expired and invalidated as a whole.
+ * <p/>
+ * The results are cached as returned by Thrift and decoded again on every hit, so callers never share decoded
+ * values. Writes sent through the connector invalidate the rows they modify. A read that overlaps a write to the
+ * same row is not cached, so it cannot put back the value the write replaced. Rows are tracked in stripes, so a
+ * write to another row of the same stripe may also prevent a read from being cached.
+ */
+class RowCache {
+
+    /**
+     * Estimated memory used by a cached column besides its name and value.
+     */
+    private static final int COLUMN_OVERHEAD = 64;
+
+    /**
+     * Number of generations rows are spread over. A power of two.
+     */
+    private static final int STRIPES = 256;
+
+    private final Cache<RowId, Map<List<Object>, Object>> cache;
+
+    /**
+     * Generations of the rows, by stripe. Incremented by every write to a row of the stripe, so reads can tell
+     * whether their row was written while they were running.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param maxBytes  Estimated memory the cached rows may use.
+     * @param ttlMillis Milliseconds a row stays cached after being read; 0 keeps it until evicted.
+     */
+    RowCache(long maxBytes, long ttlMillis) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .recordStats();
+        if (ttlMillis > 0) {
+            builder.expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS);
+        }
+        cache = builder.weigher(new Weigher<RowId, Map<List<Object>, Object>>() {
+            @Override
+            public int weigh(RowId row, Map<List<Object>, Object> results) {
+                long weight = row.key.remaining() + COLUMN_OVERHEAD;
+                for (Map.Entry<List<Object>, Object> result : results.entrySet()) {
+                    weight += COLUMN_OVERHEAD + estimateSize(result.getValue());
+                }
+                return (int) Math.min(weight, Integer.MAX_VALUE);
+            }
+        }).build();
+    }
+
+    /**
+     * @param row The row about to be read.
+     * @return a stamp to give to {@link #put} once the read it precedes is complete.
+     */
+    long stamp(RowId row) {
+        return generations.get(stripe(row));
+    }
+
+    /**
+     * Looks up the result of a read.
+     *
+     * @param row      The row read.
+     * @param selector What was read in the row: the column path or the predicate, as a list of comparable values.
+     * @return the cached Thrift result, or null.
+     */
+    Object get(RowId row, List<Object> selector) {
+        Map<List<Object>, Object> results = cache.getIfPresent(row);
+        Object result = results != null ? results.get(selector) : null;
+        (result != null ? hits : misses).incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Caches the result of a read, unless the row was written since the stamp was taken.
+     *
+     * @param row      The row read.
+     * @param selector What was read in the row.
+     * @param result   The Thrift result of the read.
+     * @param stamp    The stamp taken before the read was sent.
+     */
+    void put(RowId row, List<Object> selector, Object result, long stamp) {
+        int stripe = stripe(row);
+        if (result == null || generations.get(stripe) != stamp) {
+            return;
+        }
+        Map<List<Object>, Object> current = cache.getIfPresent(row);
+        Map<List<Object>, Object> results = current != null
+                ? new HashMap<List<Object>, Object>(current) : new HashMap<List<Object>, Object>(2);
+        results.put(selector, result);
+        cache.put(row, Collections.unmodifiableMap(results));
+        if (generations.get(stripe) != stamp) {
+            // A write to the row started while the result was being stored: it may have missed it
+            cache.invalidate(row);
+        }
+    }
+
+    /**
+     * Invalidates a row after it has been written.
+     *
+     * @param row The row written.
+     */
+    void invalidate(RowId row) {
+        generations.incrementAndGet(stripe(row));
+        cache.invalidate(row);
+    }
+
+    /**
+     * Invalidates the rows written by a batch mutation.
+     *
+     * @param keyspace    Keyspace of the batch.
+     * @param mutationMap A Map&lt;ByteBuffer, Map&lt;String, List&lt;Mutation&gt;&gt;&gt;.
+     */
+    void invalidate(String keyspace, Map mutationMap) {
+        if (mutationMap == null) {
+            return;
+        }
+        for (Object rowEntry : mutationMap.entrySet()) {
+            Object key = ((Map.Entry) rowEntry).getKey();
+            Object columnFamilies = ((Map.Entry) rowEntry).getValue();
+            if (!(key instanceof ByteBuffer) || !(columnFamilies instanceof Map)) {
+                continue;
+            }
+            for (Object columnFamily : ((Map) columnFamilies).keySet()) {
+                invalidate(new RowId(keyspace, String.valueOf(columnFamily), (ByteBuffer) key));
+            }
+        }
+    }
+
+    /**
+     * Invalidates every row of a column family, after it has been truncated.
+     *
+     * @param keyspace     Keyspace of the column family.
+     * @param columnFamily The column family.
+     */
+    void invalidateColumnFamily(String keyspace, String columnFamily) {
+        // The rows being read are not known: every read running is prevented from being cached
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            generations.incrementAndGet(stripe);
+        }
+        for (RowId row : cache.asMap().keySet()) {
+            if (row.columnFamily.equals(columnFamily) && equal(row.keyspace, keyspace)) {
+                cache.invalidate(row);
+            }
+        }
+    }
+
+    /**
+     * @return the number of hits and misses, the hit rate, the number of evictions and of cached rows.
+     */
+    Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        statistics.put("hits", hitCount);
+        statistics.put("misses", missCount);
+        statistics.put("hitRate", hitCount + missCount == 0 ? 1.0 : (double) hitCount / (hitCount + missCount));
+        statistics.put("evictions", cache.stats().evictionCount());
+        statistics.put("rows", cache.size());
+        return statistics;
+    }
+
+    /**
+     * Estimated memory used by a Thrift result.
+     */
+    static long estimateSize(Object result) {
+        if (result instanceof List) {
+            long size = 0;
+            for (Object column : (List) result) {
+                size += COLUMN_OVERHEAD + estimateSize(column);
+            }
+            return size;
+        }
+        if (result instanceof ColumnOrSuperColumn) {
+            ColumnOrSuperColumn column = (ColumnOrSuperColumn) result;
+            if (column.isSetColumn()) {
+                return estimateSize(column.getColumn());
+            } else if (column.isSetSuper_column()) {
+                return remaining(column.getSuper_column().bufferForName())
+                        + estimateSize(column.getSuper_column().getColumns());
+            } else if (column.isSetCounter_column()) {
+                return remaining(column.getCounter_column().bufferForName()) + 8;
+            } else if (column.isSetCounter_super_column()) {
+                return remaining(column.getCounter_super_column().bufferForName())
+                        + estimateSize(column.getCounter_super_column().getColumns());
+            }
+            return 0;
+        }
+        if (result instanceof Column) {
+            return remaining(((Column) result).bufferForName()) + remaining(((Column) result).bufferForValue());
+        }
+        if (result instanceof CounterColumn) {
+            return remaining(((CounterColumn) result).bufferForName()) + 8;
+        }
+        return 0;
+    }
+
+    private static int stripe(RowId row) {
+        int hash = row.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static int remaining(ByteBuffer buffer) {
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Identifies a row: its keyspace, column family and key.
+     */
+    static final class RowId {
+
+        private final String keyspace;
+
+        private final String columnFamily;
+
+        private final ByteBuffer key;
+
+        RowId(String keyspace, String columnFamily, ByteBuffer key) {
+            this.keyspace = keyspace;
+            this.columnFamily = columnFamily;
+            this.key = key;
+        }
+
+        ByteBuffer getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowId)) {
+                return false;
+            }
+            RowId other = (RowId) o;
+            return key.equals(other.key) && columnFamily.equals(other.columnFamily) && equal(keyspace, other.keyspace);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = keyspace != null ? keyspace.hashCode() : 0;
+            result = 31 * result + columnFamily.hashCode();
+            return 31 * result + key.hashCode();
+        }
+    }
+}
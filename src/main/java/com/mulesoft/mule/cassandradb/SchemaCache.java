@@ -0,0 +1,147 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.CfDef;
+import org.apache.cassandra.thrift.KsDef;
+import org.apache.cassandra.thrift.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the names of the column families of each keyspace, so writes that create missing column families do not
+ * send a schema change on every call.
+ * <p/>
+ * A keyspace is described once; at most every checkInterval milliseconds describe_schema_versions is called, and
+ * the keyspace is described again when the versions have changed since it was loaded.
+ */
+class SchemaCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaCache.class);
+
+    private final RequestExecutor executor;
+
+    private final long checkInterval;
+
+    private final ConcurrentMap<String, Schema> schemas = new ConcurrentHashMap<String, Schema>();
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor      Executor used to describe the keyspaces.
+     * @param checkInterval Milliseconds between two describe_schema_versions calls of a keyspace.
+     */
+    SchemaCache(RequestExecutor executor, long checkInterval) {
+        this.executor = executor;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * @param keyspace     Name of the keyspace.
+     * @param columnFamily Name of the column family.
+     * @return whether the column family exists; false when the keyspace cannot be described.
+     */
+    boolean hasColumnFamily(String keyspace, String columnFamily) {
+        if (keyspace == null) {
+            return false;
+        }
+        Schema schema = schemas.get(keyspace);
+        long now = System.currentTimeMillis();
+        if (schema != null && now - schema.checked >= checkInterval) {
+            Map<String, List<String>> versions = schemaVersions();
+            if (versions == null || !versions.equals(schema.versions)) {
+                schema = null;
+            } else {
+                schema.checked = now;
+            }
+        }
+        if (schema == null) {
+            schema = load(keyspace);
+            if (schema == null) {
+                return false;
+            }
+            schemas.put(keyspace, schema);
+        }
+        return schema.columnFamilies.contains(columnFamily);
+    }
+
+    /**
+     * Forgets a keyspace, so it is described again on its next use.
+     *
+     * @param keyspace Name of the keyspace.
+     */
+    void invalidate(String keyspace) {
+        if (keyspace != null) {
+            schemas.remove(keyspace);
+        }
+    }
+
+    private Schema load(final String keyspace) {
+        // Read the versions first: a change made while the keyspace is described is seen by the next check
+        Map<String, List<String>> versions = schemaVersions();
+        try {
+            KsDef ksDef = executor.execute(null, true, new ClientCallback<KsDef>() {
+                @Override
+                public KsDef doWithClient(Cassandra.Client client) throws Exception {
+                    return client.describe_keyspace(keyspace);
+                }
+            });
+            Set<String> columnFamilies = new HashSet<String>();
+            if (ksDef != null && ksDef.getCf_defs() != null) {
+                for (CfDef cfDef : ksDef.getCf_defs()) {
+                    columnFamilies.add(cfDef.getName());
+                }
+            }
+            return new Schema(columnFamilies, versions);
+        } catch (CassandraDBException e) {
+            if (!(e.getCause() instanceof NotFoundException)) {
+                LOGGER.warn("Unable to describe keyspace " + keyspace, e);
+            }
+            return null;
+        }
+    }
+
+    private Map<String, List<String>> schemaVersions() {
+        try {
+            return executor.execute(null, true, new ClientCallback<Map<String, List<String>>>() {
+                @Override
+                public Map<String, List<String>> doWithClient(Cassandra.Client client) throws Exception {
+                    return client.describe_schema_versions();
+                }
+            });
+        } catch (CassandraDBException e) {
+            LOGGER.warn("Unable to check the schema versions", e);
+            return null;
+        }
+    }
+
+    /**
+     * The column families of a keyspace and the schema versions they were read at.
+     */
+    private static final class Schema {
+
+        private final Set<String> columnFamilies;
+
+        private final Map<String, List<String>> versions;
+
+        private volatile long checked = System.currentTimeMillis();
+
+        private Schema(Set<String> columnFamilies, Map<String, List<String>> versions) {
+            this.columnFamilies = columnFamilies;
+            this.versions = versions;
+        }
+    }
+}
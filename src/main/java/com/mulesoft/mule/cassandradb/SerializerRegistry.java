@@ -0,0 +1,75 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.hector.api.Serializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the serializer maps built from lists of {@link ColumnSerializer}s. A list is resolved with reflection the
+ * first time it is seen; later reads with a list of the same column names and types reuse the same serializers.
+ */
+final class SerializerRegistry {
+
+    /**
+     * Maximum number of distinct serializer lists kept. The lists normally come from the processor configuration,
+     * so the limit is only reached when they are built dynamically; the cache is then emptied.
+     */
+    static final int MAX_ENTRIES = 1024;
+
+    private static final ConcurrentMap<List<String>, Map<String, Serializer>> SERIALIZERS =
+            new ConcurrentHashMap<List<String>, Map<String, Serializer>>();
+
+    private SerializerRegistry() {
+        // Utility class not meant to be instantiated.
+    }
+
+    /**
+     * Resolves the serializers of a list of ColumnSerializers.
+     *
+     * @param columnSerializers Pairs of column name and serializer type, may be null.
+     * @return an unmodifiable Map of Serializers by column name.
+     * @throws CassandraDBException when a type is not a known class.
+     */
+    static Map<String, Serializer> resolve(List<ColumnSerializer> columnSerializers) throws CassandraDBException {
+        if (columnSerializers == null || columnSerializers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> key = new ArrayList<String>(columnSerializers.size() * 2);
+        for (ColumnSerializer columnSerializer : columnSerializers) {
+            key.add(columnSerializer.getKey());
+            key.add(columnSerializer.getType());
+        }
+
+        Map<String, Serializer> serializers = SERIALIZERS.get(key);
+        if (serializers == null) {
+            serializers = Collections.unmodifiableMap(CassandraDBUtils.getSerializationMap(columnSerializers));
+            if (SERIALIZERS.size() >= MAX_ENTRIES) {
+                SERIALIZERS.clear();
+            }
+            SERIALIZERS.put(key, serializers);
+        }
+        return serializers;
+    }
+
+    /**
+     * @return the number of cached serializer lists.
+     */
+    static int size() {
+        return SERIALIZERS.size();
+    }
+}
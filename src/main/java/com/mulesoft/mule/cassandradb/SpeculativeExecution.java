@@ -0,0 +1,152 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settings and statistics of speculative reads: when a read has not answered after the speculative delay, the same
+ * read is sent to another host and the first answer wins.
+ * <p/>
+ * The delay is either fixed or taken from a percentile of the latencies observed over the last reads. The competing
+ * requests run on a bounded pool: when every thread is busy, reads are sent without a second request.
+ */
+class SpeculativeExecution {
+
+    /**
+     * Number of latency samples kept to compute the percentile.
+     */
+    static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * Number of new samples after which the percentile is computed again.
+     */
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    /**
+     * Samples needed before the percentile replaces the fixed delay.
+     */
+    private static final int MIN_SAMPLES = 100;
+
+    private final long fixedDelay;
+
+    private final double percentile;
+
+    private final long[] samples = new long[SAMPLE_SIZE];
+
+    private long recorded;
+
+    private volatile long percentileDelay = -1;
+
+    private final AtomicLong reads = new AtomicLong();
+
+    private final AtomicLong fired = new AtomicLong();
+
+    private final AtomicLong won = new AtomicLong();
+
+    private final ExecutorService executor;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param fixedDelay Milliseconds to wait before the second request is sent, used until enough latencies are
+     *                   known when a percentile is set.
+     * @param percentile Percentile of the observed latencies used as the delay, between 0 and 100; 0 always uses
+     *                   the fixed delay.
+     * @param maxThreads Maximum number of requests running at once, beyond which submitting a request is rejected;
+     *                   each one holds a connection, so there is no use in more threads than connections.
+     */
+    SpeculativeExecution(long fixedDelay, double percentile, int maxThreads) {
+        this.fixedDelay = fixedDelay;
+        this.percentile = percentile;
+        this.executor = new ThreadPoolExecutor(0, Math.max(maxThreads, 2), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new CassandraDBThreadFactory("speculative-read"));
+    }
+
+    /**
+     * @return milliseconds to wait for the first answer before sending the second request.
+     */
+    long getDelay() {
+        long delay = percentileDelay;
+        return delay >= 0 ? delay : fixedDelay;
+    }
+
+    /**
+     * Records the latency of a completed read.
+     *
+     * @param millis Milliseconds the read took.
+     */
+    void recordLatency(long millis) {
+        reads.incrementAndGet();
+        if (percentile <= 0) {
+            return;
+        }
+        long[] snapshot = null;
+        synchronized (samples) {
+            samples[(int) (recorded % SAMPLE_SIZE)] = millis;
+            recorded++;
+            if (recorded >= MIN_SAMPLES && recorded % RECOMPUTE_INTERVAL == 0) {
+                snapshot = Arrays.copyOf(samples, (int) Math.min(recorded, SAMPLE_SIZE));
+            }
+        }
+        if (snapshot != null) {
+            percentileDelay = percentile(snapshot, percentile);
+        }
+    }
+
+    void hedgeFired() {
+        fired.incrementAndGet();
+    }
+
+    void hedgeWon() {
+        won.incrementAndGet();
+    }
+
+    /**
+     * @return the number of reads, of second requests sent and of second requests that answered first, and the
+     * current delay.
+     */
+    Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+        statistics.put("reads", reads.get());
+        statistics.put("fired", fired.get());
+        statistics.put("won", won.get());
+        statistics.put("delay", getDelay());
+        return statistics;
+    }
+
+    /**
+     * @return the pool the competing requests run on, which rejects them when every thread is busy.
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Nearest-rank percentile of the values.
+     */
+    static long percentile(long[] values, double percentile) {
+        Arrays.sort(values);
+        int rank = (int) Math.ceil(percentile / 100 * values.length);
+        return values[Math.max(0, Math.min(values.length - 1, rank - 1))];
+    }
+}
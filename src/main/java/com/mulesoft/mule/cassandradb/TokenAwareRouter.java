@@ -0,0 +1,185 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.TokenRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a cached {@link TokenRing} of the current keyspace, so requests can be sent straight to a replica of their
+ * row key instead of going through a coordinator.
+ * <p/>
+ * The ring is reloaded in the background when describe_schema_versions reports a different set of nodes or
+ * versions, when the keyspace changes, and when a request fails with a connection error.
+ */
+class TokenAwareRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenAwareRouter.class);
+
+    private final RequestExecutor executor;
+
+    private final CassandraDBConnectionPool pool;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    private volatile TokenRing ring;
+
+    private volatile Map<String, List<String>> schemaVersions;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor Executor used to describe the ring.
+     * @param pool     Pool the replicas are added to when they are discovered.
+     */
+    TokenAwareRouter(RequestExecutor executor, CassandraDBConnectionPool pool) {
+        this.executor = executor;
+        this.pool = pool;
+    }
+
+    /**
+     * Loads the ring and schedules the topology checks.
+     *
+     * @param checkInterval Milliseconds between two describe_schema_versions calls.
+     */
+    void start(long checkInterval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CassandraDBThreadFactory("ring-refresh"));
+        requestRefresh();
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                checkTopology();
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background checks.
+     */
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Finds the replicas of a row key.
+     *
+     * @param key The row key.
+     * @return the replicas of the key, or an empty list when the ring is not known yet.
+     */
+    List<String> getReplicas(ByteBuffer key) {
+        TokenRing current = ring;
+        if (current == null || key == null) {
+            return Collections.emptyList();
+        }
+        if (!current.getKeyspace().equals(pool.getKeyspace())) {
+            requestRefresh();
+            return Collections.emptyList();
+        }
+        return current.getReplicas(key);
+    }
+
+    /**
+     * @return the current ring, or null when it is not known yet.
+     */
+    TokenRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Schedules a reload of the ring, unless one is already pending.
+     */
+    void requestRefresh() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && refreshPending.compareAndSet(false, true)) {
+            current.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refreshPending.set(false);
+                    refresh();
+                }
+            });
+        }
+    }
+
+    /**
+     * Reloads the ring of the current keyspace.
+     */
+    void refresh() {
+        final String keyspace = pool.getKeyspace();
+        if (keyspace == null) {
+            return;
+        }
+        try {
+            String partitionerName = executor.execute(null, true, new ClientCallback<String>() {
+                @Override
+                public String doWithClient(Cassandra.Client client) throws Exception {
+                    return client.describe_partitioner();
+                }
+            });
+            TokenRing.Partitioner partitioner = TokenRing.Partitioner.fromClassName(partitionerName);
+            if (partitioner == null) {
+                LOGGER.warn("Token aware routing is not available for partitioner " + partitionerName);
+                return;
+            }
+
+            List<TokenRange> ranges = executor.execute(null, true, new ClientCallback<List<TokenRange>>() {
+                @Override
+                public List<TokenRange> doWithClient(Cassandra.Client client) throws Exception {
+                    return client.describe_ring(keyspace);
+                }
+            });
+            TokenRing newRing = new TokenRing(keyspace, partitioner, ranges);
+            for (String endpoint : newRing.getEndpoints()) {
+                pool.addHost(endpoint);
+            }
+            ring = newRing;
+            LOGGER.debug("Token ring of keyspace " + keyspace + " loaded with " + ranges.size() + " ranges");
+        } catch (Exception e) {
+            LOGGER.warn("Unable to load the token ring of keyspace " + keyspace, e);
+        }
+    }
+
+    private void checkTopology() {
+        try {
+            Map<String, List<String>> versions = executor.execute(null, true,
+                    new ClientCallback<Map<String, List<String>>>() {
+                        @Override
+                        public Map<String, List<String>> doWithClient(Cassandra.Client client) throws Exception {
+                            return client.describe_schema_versions();
+                        }
+                    });
+            TokenRing current = ring;
+            if (current == null || !versions.equals(schemaVersions)
+                    || !current.getKeyspace().equals(pool.getKeyspace())) {
+                schemaVersions = versions;
+                refresh();
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to check the cluster topology", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.TokenRange;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Snapshot of the token ring of a keyspace, as returned by describe_ring, that maps row keys to their replicas.
+ */
+class TokenRing {
+
+    /**
+     * Partitioners whose tokens can be computed on the client side.
+     */
+    enum Partitioner {
+        /**
+         * Tokens are the MD5 hash of the key, as a positive integer.
+         */
+        RANDOM("org.apache.cassandra.dht.RandomPartitioner") {
+            @Override
+            Comparable getToken(ByteBuffer key) {
+                try {
+                    MessageDigest digest = MessageDigest.getInstance("MD5");
+                    digest.update(key.duplicate());
+                    return new BigInteger(digest.digest()).abs();
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("MD5 is not supported by this JVM", e);
+                }
+            }
+
+            @Override
+            Comparable parseToken(String token) {
+                return new BigInteger(token);
+            }
+        },
+        /**
+         * Tokens are the raw key bytes, written as hexadecimal.
+         */
+        BYTE_ORDERED("org.apache.cassandra.dht.ByteOrderedPartitioner") {
+            @Override
+            Comparable getToken(ByteBuffer key) {
+                StringBuilder hex = new StringBuilder(key.remaining() * 2);
+                for (int i = key.position(); i < key.limit(); i++) {
+                    int value = key.get(i) & 0xff;
+                    hex.append(Character.forDigit(value >> 4, 16)).append(Character.forDigit(value & 0xf, 16));
+                }
+                return hex.toString();
+            }
+
+            @Override
+            Comparable parseToken(String token) {
+                return token.toLowerCase(Locale.ENGLISH);
+            }
+        },
+        /**
+         * Tokens are the keys themselves, as UTF-8 strings.
+         */
+        ORDER_PRESERVING("org.apache.cassandra.dht.OrderPreservingPartitioner") {
+            @Override
+            Comparable getToken(ByteBuffer key) {
+                return Charset.forName("UTF-8").decode(key.duplicate()).toString();
+            }
+
+            @Override
+            Comparable parseToken(String token) {
+                return token;
+            }
+        };
+
+        private final String className;
+
+        Partitioner(String className) {
+            this.className = className;
+        }
+
+        /**
+         * Computes the token of a row key.
+         *
+         * @param key The row key.
+         * @return the token, comparable with the other tokens of this partitioner.
+         */
+        abstract Comparable getToken(ByteBuffer key);
+
+        /**
+         * Parses the string representation of a token used by the Thrift API.
+         *
+         * @param token The token as a string.
+         * @return the token, comparable with the other tokens of this partitioner.
+         */
+        abstract Comparable parseToken(String token);
+
+        /**
+         * Looks up a partitioner by the class name returned by describe_partitioner.
+         *
+         * @param className Fully qualified name of the partitioner class.
+         * @return the partitioner, or null when its tokens cannot be computed by the connector.
+         */
+        static Partitioner fromClassName(String className) {
+            for (Partitioner partitioner : values()) {
+                if (partitioner.className.equals(className)) {
+                    return partitioner;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String keyspace;
+
+    private final Partitioner partitioner;
+
+    /**
+     * End token of every range, in ring order.
+     */
+    private final Comparable[] endTokens;
+
+    /**
+     * Replicas of every range, in the same order as endTokens.
+     */
+    private final List<List<String>> replicas;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param keyspace    The keyspace the ring was described for.
+     * @param partitioner The partitioner of the cluster.
+     * @param ranges      The token ranges returned by describe_ring.
+     */
+    @SuppressWarnings("unchecked")
+    TokenRing(String keyspace, Partitioner partitioner, List<TokenRange> ranges) {
+        this.keyspace = keyspace;
+        this.partitioner = partitioner;
+
+        List<TokenRange> sorted = new ArrayList<TokenRange>(ranges);
+        final Map<TokenRange, Comparable> ends = new IdentityHashMap<TokenRange, Comparable>();
+        for (TokenRange range : sorted) {
+            ends.put(range, partitioner.parseToken(range.getEnd_token()));
+        }
+        Collections.sort(sorted, new Comparator<TokenRange>() {
+            @Override
+            public int compare(TokenRange first, TokenRange second) {
+                return ends.get(first).compareTo(ends.get(second));
+            }
+        });
+
+        endTokens = new Comparable[sorted.size()];
+        replicas = new ArrayList<List<String>>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            endTokens[i] = ends.get(sorted.get(i));
+            List<String> endpoints = sorted.get(i).getEndpoints();
+            replicas.add(endpoints == null ? Collections.<String>emptyList()
+                    : Collections.unmodifiableList(new ArrayList<String>(endpoints)));
+        }
+    }
+
+    /**
+     * Finds the replicas of a row key. Ranges own the tokens greater than their start token and up to their end
+     * token; keys past the last end token belong to the range that wraps around the ring.
+     *
+     * @param key The row key.
+     * @return the replicas of the key, primary first, or an empty list when the ring is empty.
+     */
+    @SuppressWarnings("unchecked")
+    List<String> getReplicas(ByteBuffer key) {
+        if (endTokens.length == 0) {
+            return Collections.emptyList();
+        }
+        int index = Arrays.binarySearch(endTokens, partitioner.getToken(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return replicas.get(index == endTokens.length ? 0 : index);
+    }
+
+    /**
+     * @return every endpoint of the ring.
+     */
+    Set<String> getEndpoints() {
+        Set<String> endpoints = new LinkedHashSet<String>();
+        for (List<String> rangeReplicas : replicas) {
+            endpoints.addAll(rangeReplicas);
+        }
+        return endpoints;
+    }
+
+    String getKeyspace() {
+        return keyspace;
+    }
+
+    Partitioner getPartitioner() {
+        return partitioner;
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.ConsistencyLevel;
+import org.apache.cassandra.thrift.Mutation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind buffer: writes are acknowledged once buffered, grouped by row key and column family, and sent as
+ * batch_mutate calls by a small pool of workers when the buffer holds batchSize mutations or batchBytes bytes, or
+ * when the flush interval elapses.
+ * <p/>
+ * The buffer holds at most capacity mutations, buffered or being sent; writers block when it is full until a batch
+ * is sent. Counter mutations, which cannot be retried, are sent in their own batches. A batch that fails is not
+ * sent again: the failure is logged and reported by the next {@link #flush}.
+ */
+class WriteBehindBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    /**
+     * Estimated size of a mutation besides its row key and its column.
+     */
+    private static final int MUTATION_OVERHEAD = 32;
+
+    private final RequestExecutor executor;
+
+    private final RowCache rowCache;
+
+    private final String keyspace;
+
+    private final int batchSize;
+
+    private final long batchBytes;
+
+    private final Semaphore capacity;
+
+    private final ExecutorService workers;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Batches being filled, by consistency level and counter flag. Guarded by this.
+     */
+    private Map<List<Object>, Batch> batches = new HashMap<List<Object>, Batch>();
+
+    private int bufferedMutations;
+
+    private long bufferedBytes;
+
+    private int batchesInFlight;
+
+    private CassandraDBException failure;
+
+    private int failedMutations;
+
+    /**
+     * Parametrized Constructor
+     *
+     * @param executor      Executor running the batch_mutate calls.
+     * @param rowCache      Row cache to invalidate once the rows are written, may be null.
+     * @param keyspace      Keyspace of the row cache entries.
+     * @param batchSize     Number of buffered mutations that triggers a flush.
+     * @param batchBytes    Estimated size of the buffered mutations that triggers a flush.
+     * @param flushInterval Milliseconds between two flushes of the buffer; 0 only flushes on thresholds.
+     * @param capacity      Number of mutations buffered or being sent after which writers block.
+     * @param flushThreads  Number of batches sent at the same time.
+     */
+    WriteBehindBuffer(RequestExecutor executor, RowCache rowCache, String keyspace, int batchSize, long batchBytes,
+                      long flushInterval, int capacity, int flushThreads) {
+        this.executor = executor;
+        this.rowCache = rowCache;
+        this.keyspace = keyspace;
+        this.batchSize = Math.max(batchSize, 1);
+        this.batchBytes = batchBytes;
+        this.capacity = new Semaphore(Math.max(capacity, this.batchSize));
+        this.workers = Executors.newFixedThreadPool(Math.max(flushThreads, 1),
+                new CassandraDBThreadFactory("write-behind"));
+        if (flushInterval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CassandraDBThreadFactory("write-behind-timer"));
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    sendBuffered();
+                }
+            }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Buffers a mutation, blocking while the buffer is full.
+     *
+     * @param key              Row key.
+     * @param columnFamily     Column family.
+     * @param mutation         The mutation of the row.
+     * @param counter          Whether the mutation is a counter increment.
+     * @param consistencyLevel Consistency level of the write.
+     * @throws CassandraDBException when interrupted while waiting for room in the buffer.
+     */
+    void add(ByteBuffer key, String columnFamily, Mutation mutation, boolean counter,
+             ConsistencyLevel consistencyLevel) throws CassandraDBException {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraDBException("Interrupted while waiting for room in the write-behind buffer", e);
+        }
+        long size = MUTATION_OVERHEAD + key.remaining() + RowCache.estimateSize(mutation.getColumn_or_supercolumn());
+        boolean full;
+        synchronized (this) {
+            List<Object> lane = Arrays.<Object>asList(consistencyLevel, counter);
+            Batch batch = batches.get(lane);
+            if (batch == null) {
+                batch = new Batch(consistencyLevel, counter);
+                batches.put(lane, batch);
+            }
+            batch.add(key, columnFamily, mutation);
+            bufferedMutations++;
+            bufferedBytes += size;
+            full = bufferedMutations >= batchSize || (batchBytes > 0 && bufferedBytes >= batchBytes);
+        }
+        if (full) {
+            sendBuffered();
+        }
+    }
+
+    /**
+     * Sends the buffered mutations and waits until every batch has been sent.
+     *
+     * @throws CassandraDBException when a batch failed since the previous flush.
+     */
+    void flush() throws CassandraDBException {
+        sendBuffered();
+        CassandraDBException error;
+        synchronized (this) {
+            try {
+                while (batchesInFlight > 0) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CassandraDBException("Interrupted while flushing the write-behind buffer", e);
+            }
+            error = failure;
+            if (error != null) {
+                error = new CassandraDBException(failedMutations + " buffered mutations could not be written: "
+                        + error.getMessage(), error);
+            }
+            failure = null;
+            failedMutations = 0;
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Flushes the buffer and stops the workers.
+     */
+    void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            flush();
+        } catch (CassandraDBException e) {
+            LOGGER.error("Buffered writes lost while closing the write-behind buffer", e);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * @return the number of mutations buffered and not sent yet.
+     */
+    synchronized int size() {
+        return bufferedMutations;
+    }
+
+    /**
+     * Hands the batches being filled to the workers.
+     */
+    private void sendBuffered() {
+        Collection<Batch> ready;
+        synchronized (this) {
+            if (bufferedMutations == 0) {
+                return;
+            }
+            ready = batches.values();
+            batches = new HashMap<List<Object>, Batch>();
+            bufferedMutations = 0;
+            bufferedBytes = 0;
+            batchesInFlight += ready.size();
+        }
+        for (final Batch batch : ready) {
+            try {
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        send(batch);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed: the batch is sent by the caller
+                send(batch);
+            }
+        }
+    }
+
+    private void send(final Batch batch) {
+        try {
+            executor.execute(CassandraDBUtils.firstRowKey(batch.mutations), !batch.counters,
+                    new ClientCallback<Void>() {
+                        @Override
+                        public Void doWithClient(Cassandra.Client client) throws Exception {
+                            client.batch_mutate(batch.mutations, batch.consistencyLevel);
+                            return null;
+                        }
+                    });
+        } catch (CassandraDBException e) {
+            failed(batch, e);
+        } catch (RuntimeException e) {
+            failed(batch, new CassandraDBException(e.getMessage(), e));
+        } finally {
+            if (rowCache != null) {
+                rowCache.invalidate(keyspace, batch.mutations);
+            }
+            capacity.release(batch.count);
+            synchronized (this) {
+                batchesInFlight--;
+                notifyAll();
+            }
+        }
+    }
+
+    private void failed(Batch batch, CassandraDBException e) {
+        synchronized (this) {
+            failure = e;
+            failedMutations += batch.count;
+        }
+        LOGGER.error("Unable to write " + batch.count + " buffered mutations", e);
+    }
+
+    /**
+     * Mutations sent by a single batch_mutate, grouped by row key and column family.
+     */
+    private static final class Batch {
+
+        private final ConsistencyLevel consistencyLevel;
+
+        private final boolean counters;
+
+        private final Map<ByteBuffer, Map<String, List<Mutation>>> mutations =
+                new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+
+        private int count;
+
+        private Batch(ConsistencyLevel consistencyLevel, boolean counters) {
+            this.consistencyLevel = consistencyLevel;
+            this.counters = counters;
+        }
+
+        private void add(ByteBuffer key, String columnFamily, Mutation mutation) {
+            Map<String, List<Mutation>> row = mutations.get(key);
+            if (row == null) {
+                row = new HashMap<String, List<Mutation>>();
+                mutations.put(key, row);
+            }
+            List<Mutation> columnFamilyMutations = row.get(columnFamily);
+            if (columnFamilyMutations == null) {
+                columnFamilyMutations = new ArrayList<Mutation>();
+                row.put(columnFamily, columnFamilyMutations);
+            }
+            columnFamilyMutations.add(mutation);
+            count++;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb.api;
+
+/**
+ * Formats of the records read by the bulk-load processor
+ */
+public enum BulkLoadFormat {
+
+    /**
+     * Comma separated values, one record per line; fields may be quoted, with quotes doubled inside them
+     */
+    CSV,
+
+    /**
+     * One JSON object per line, whose fields are the columns of the row
+     */
+    JSON_LINES
+}
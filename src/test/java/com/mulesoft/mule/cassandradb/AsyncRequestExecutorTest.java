@@ -0,0 +1,258 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.thrift.async.AsyncMethodCallback;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncRequestExecutorTest {
+
+    private StubConnectionPool pool;
+
+    private StubAsyncRequestExecutor executor;
+
+    /**
+     * Calls started on a client and waiting to be completed, in order.
+     */
+    private final BlockingQueue<Attempt> attempts = new LinkedBlockingQueue<Attempt>();
+
+    @After
+    public void tearDownTests() {
+        if (executor != null) {
+            executor.close();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testDispatchesOnAnIdleClient() throws Exception {
+        open(1, "a");
+        ListenableFuture<Object> first = executor.execute(null, call());
+        nextAttempt().complete("ok");
+        assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+
+        ListenableFuture<Object> second = executor.execute(null, call());
+        nextAttempt().complete("again");
+        assertEquals("again", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.transports.size());
+    }
+
+    @Test
+    public void testQueuesRequestsWhileEveryClientIsBusy() throws Exception {
+        open(1, "a");
+        ListenableFuture<Object> first = executor.execute(null, call());
+        ListenableFuture<Object> second = executor.execute(null, call());
+        Attempt running = nextAttempt();
+        assertNull(attempts.poll());
+        assertFalse(second.isDone());
+
+        running.complete("first");
+        nextAttempt().complete("second");
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.transports.size());
+    }
+
+    @Test
+    public void testConnectionFailureClosesTheClient() throws Exception {
+        open(1, "a");
+        ListenableFuture<Object> failed = executor.execute(null, call());
+        nextAttempt().handler.onError(new IOException("Connection reset"));
+        assertFailedWith(failed, CassandraDBException.class);
+        assertFalse(executor.transports.get(0).isOpen());
+        assertEquals(1, pool.getHostStatistics().get("a").get("failures"));
+
+        ListenableFuture<Object> next = executor.execute(null, call());
+        nextAttempt().complete("ok");
+        assertEquals("ok", next.get(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.transports.size());
+        assertEquals(0, pool.getHostStatistics().get("a").get("failures"));
+    }
+
+    @Test
+    public void testExcludedHostIsSkipped() throws Exception {
+        open(4, "a", "b");
+        pool.getHealth("a").trip(System.currentTimeMillis());
+        for (int i = 0; i < 4; i++) {
+            executor.execute(null, call());
+            assertEquals("b", nextAttempt().host);
+        }
+    }
+
+    @Test
+    public void testRetriesIdempotentCallOnAnotherHost() throws Exception {
+        open(1, "a", "b");
+        executor.setRetryPolicy(retryPolicy(1), new RetryBudget(0.1));
+        ListenableFuture<Object> result = executor.execute(null, true, call());
+        Attempt first = nextAttempt();
+        first.complete(new TimedOutException());
+
+        Attempt second = nextAttempt();
+        assertFalse(first.host.equals(second.host));
+        second.complete("ok");
+        assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNonIdempotentCallIsNotRetried() throws Exception {
+        open(1, "a", "b");
+        executor.setRetryPolicy(retryPolicy(1), new RetryBudget(0.1));
+        ListenableFuture<Object> result = executor.execute(null, false, call());
+        nextAttempt().complete(new TimedOutException());
+
+        assertFailedWith(result, CassandraDBException.class);
+        assertNull(attempts.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCloseFailsRunningAndQueuedRequests() throws Exception {
+        open(1, "a");
+        ListenableFuture<Object> running = executor.execute(null, call());
+        ListenableFuture<Object> queued = executor.execute(null, call());
+        nextAttempt();
+
+        executor.close();
+        assertFailedWith(running, CassandraDBException.class);
+        assertFailedWith(queued, CassandraDBException.class);
+        assertFalse(executor.transports.get(0).isOpen());
+        assertFailedWith(executor.execute(null, call()), CassandraDBException.class);
+    }
+
+    @Test
+    public void testUnreachableHostsFailTheRequest() throws Exception {
+        open(1, "a");
+        executor.unreachable.add("a");
+        assertFailedWith(executor.execute(null, call()), CassandraDBException.class);
+        assertTrue(executor.transports.isEmpty());
+    }
+
+    private void open(int maxConnectionsPerHost, String... hosts) throws Exception {
+        pool = new StubConnectionPool(hosts);
+        pool.setHostRetryInterval(60000);
+        pool.open();
+        executor = new StubAsyncRequestExecutor(pool);
+        executor.setMaxConnectionsPerHost(maxConnectionsPerHost);
+        executor.open();
+    }
+
+    private Attempt nextAttempt() throws InterruptedException {
+        Attempt attempt = attempts.poll(5, TimeUnit.SECONDS);
+        assertNotNull("No call was started", attempt);
+        return attempt;
+    }
+
+    private static RetryPolicy retryPolicy(int retries) {
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(retries, retries, retries);
+        policy.setBaseDelay(0);
+        return policy;
+    }
+
+    private static void assertFailedWith(ListenableFuture<?> future, Class<? extends Exception> type)
+            throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("The request should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(type.isInstance(e.getCause()));
+        }
+    }
+
+    /**
+     * @return a call that is started by queueing an attempt, and returns the result the attempt is completed with,
+     *         or throws it if it is an exception.
+     */
+    private AsyncClientCallback<Object, Object> call() {
+        return new AsyncClientCallback<Object, Object>() {
+            @Override
+            public void start(Cassandra.AsyncClient client, AsyncMethodCallback<Object> handler) {
+                attempts.add(new Attempt(executor.hosts.get(client), handler));
+            }
+
+            @Override
+            public Object getResult(Object call) throws Exception {
+                if (call instanceof Exception) {
+                    throw (Exception) call;
+                }
+                return call;
+            }
+        };
+    }
+
+    /**
+     * A call started on a client of a host.
+     */
+    private static final class Attempt {
+
+        private final String host;
+
+        private final AsyncMethodCallback<Object> handler;
+
+        private Attempt(String host, AsyncMethodCallback<Object> handler) {
+            this.host = host;
+            this.handler = handler;
+        }
+
+        private void complete(Object result) {
+            handler.onComplete(result);
+        }
+    }
+
+    /**
+     * Executor whose clients are stubs that never reach a Cassandra host.
+     */
+    private static final class StubAsyncRequestExecutor extends AsyncRequestExecutor {
+
+        private final Set<String> unreachable = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        private final List<StubConnectionPool.StubTransport> transports =
+                new CopyOnWriteArrayList<StubConnectionPool.StubTransport>();
+
+        private final Map<Cassandra.AsyncClient, String> hosts =
+                Collections.synchronizedMap(new IdentityHashMap<Cassandra.AsyncClient, String>());
+
+        private StubAsyncRequestExecutor(CassandraDBConnectionPool pool) {
+            super(pool);
+        }
+
+        @Override
+        AsyncPooledClient openClient(String host) throws IOException {
+            if (unreachable.contains(host)) {
+                throw new IOException("Unable to reach " + host);
+            }
+            Cassandra.AsyncClient client = new Cassandra.AsyncClient(null, null, null);
+            StubConnectionPool.StubTransport transport = new StubConnectionPool.StubTransport();
+            hosts.put(client, host);
+            transports.add(transport);
+            return new AsyncPooledClient(host, client, transport);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.Mutation;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSplittingTest {
+
+    @Test
+    public void testSmallBatchIsNotSplit() {
+        Map<ByteBuffer, Map<String, List<Mutation>>> batch = batch(3, 2, 10);
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches = new BatchSplitting(100, 0, 4).split(batch, null);
+        assertEquals(1, batches.size());
+        assertEquals(batch, batches.get(0));
+    }
+
+    @Test
+    public void testSmallBatchIsNotGroupedByReplica() {
+        final List<ByteBuffer> lookups = new ArrayList<ByteBuffer>();
+        TokenAwareRouter router = new TokenAwareRouter(null, null) {
+            @Override
+            List<String> getReplicas(ByteBuffer key) {
+                lookups.add(key);
+                return Collections.singletonList(lookups.size() % 2 == 0 ? "a" : "b");
+            }
+        };
+        Map<ByteBuffer, Map<String, List<Mutation>>> batch = batch(4, 2, 10);
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches = new BatchSplitting(100, 0, 4).split(batch, router);
+        assertEquals(1, batches.size());
+        assertSame(batch, batches.get(0));
+        assertTrue(lookups.isEmpty());
+
+        assertEquals(2, new BatchSplitting(6, 0, 4).split(batch, router).size());
+        assertEquals(4, lookups.size());
+    }
+
+    @Test
+    public void testRowsAreKeptTogetherUnderTheMutationLimit() {
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches =
+                new BatchSplitting(5, 0, 4).split(batch(10, 2, 10), null);
+        assertEquals(5, batches.size());
+        for (Map<ByteBuffer, Map<String, List<Mutation>>> batch : batches) {
+            assertEquals(2, batch.size());
+            assertEquals(4, mutations(batch));
+        }
+    }
+
+    @Test
+    public void testRowOverTheLimitsIsSpread() {
+        List<Map<ByteBuffer, Map<String, List<Mutation>>>> batches =
+                new BatchSplitting(0, 1000, 4).split(batch(1, 20, 200), null);
+        assertTrue(batches.size() > 1);
+        int total = 0;
+        for (Map<ByteBuffer, Map<String, List<Mutation>>> batch : batches) {
+            long bytes = 0;
+            for (Mutation mutation : batch.values().iterator().next().get("CF1")) {
+                bytes += BatchSplitting.estimateSize(mutation);
+            }
+            assertTrue(bytes <= 1000);
+            total += mutations(batch);
+        }
+        assertEquals(20, total);
+    }
+
+    private static Map<ByteBuffer, Map<String, List<Mutation>>> batch(int rows, int columns, int valueSize) {
+        Map<ByteBuffer, Map<String, List<Mutation>>> batch = new LinkedHashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        for (int i = 0; i < rows; i++) {
+            List<Mutation> mutations = new ArrayList<Mutation>();
+            for (int j = 0; j < columns; j++) {
+                Column column = new Column(ByteBuffer.wrap(("c" + j).getBytes()));
+                column.setValue(ByteBuffer.wrap(new byte[valueSize]));
+                mutations.add(new Mutation().setColumn_or_supercolumn(new ColumnOrSuperColumn().setColumn(column)));
+            }
+            batch.put(ByteBuffer.wrap(("row" + i).getBytes()), Collections.singletonMap("CF1", mutations));
+        }
+        return batch;
+    }
+
+    private static int mutations(Map<ByteBuffer, Map<String, List<Mutation>>> batch) {
+        int count = 0;
+        for (Map<String, List<Mutation>> row : batch.values()) {
+            for (List<Mutation> mutations : row.values()) {
+                count += mutations.size();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BulkLoaderTest {
+
+    @Test
+    public void testReadsPlainFieldsAndSkipsEmptyLines() throws Exception {
+        BulkLoader.CsvReader csv = new BulkLoader.CsvReader(new StringReader("id,name\r\n\r\n1,,x\n"), ',');
+        List<String> fields = new ArrayList<String>();
+        assertTrue(csv.next(fields));
+        assertEquals(Arrays.asList("id", "name"), fields);
+        assertTrue(csv.next(fields));
+        assertEquals(Arrays.asList("1", "", "x"), fields);
+        assertFalse(csv.next(fields));
+    }
+
+    @Test
+    public void testQuotedFieldsKeepDelimitersLineBreaksAndQuotes() throws Exception {
+        BulkLoader.CsvReader csv = new BulkLoader.CsvReader(
+                new StringReader("\"a;b\";\"say \"\"hi\"\"\";\"two\nlines\"\n2;z"), ';');
+        List<String> fields = new ArrayList<String>();
+        assertTrue(csv.next(fields));
+        assertEquals(Arrays.asList("a;b", "say \"hi\"", "two\nlines"), fields);
+        assertTrue(csv.next(fields));
+        assertEquals(Arrays.asList("2", "z"), fields);
+        assertFalse(csv.next(fields));
+    }
+}
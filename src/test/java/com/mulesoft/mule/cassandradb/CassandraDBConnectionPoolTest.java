@@ -0,0 +1,274 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import com.mulesoft.mule.cassandradb.CassandraDBConnectionPool.Outcome;
+import org.junit.After;
+import org.junit.Test;
+import org.mule.api.ConnectionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CassandraDBConnectionPoolTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    private StubConnectionPool pool;
+
+    @After
+    public void tearDownTests() {
+        threads.shutdownNow();
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testOpensTheMinimumOfConnectionsPerHost() throws Exception {
+        pool = new StubConnectionPool("a", "b");
+        pool.setMinConnectionsPerHost(2);
+        pool.open();
+
+        assertEquals(4, pool.openConnections());
+        assertEquals(2, pool.getHostStatistics().get("a").get("opened"));
+        assertEquals(2, pool.getHostStatistics().get("b").get("opened"));
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenEveryConnectionIsLent() throws Exception {
+        pool = new StubConnectionPool("a");
+        pool.setMaxConnectionsPerHost(1);
+        pool.setBorrowTimeout(100);
+        pool.open();
+
+        pool.borrow();
+        long started = System.currentTimeMillis();
+        try {
+            pool.borrow();
+            fail("The second borrow should have timed out");
+        } catch (CassandraDBException e) {
+            assertTrue(System.currentTimeMillis() - started >= 100);
+        }
+    }
+
+    @Test
+    public void testPermitsLimitTheConnectionsLentPerHost() throws Exception {
+        pool = new StubConnectionPool("a");
+        pool.setMaxConnectionsPerHost(2);
+        pool.setBorrowTimeout(5000);
+        pool.open();
+
+        final PooledClient first = pool.borrow();
+        PooledClient second = pool.borrow();
+        assertEquals(2, pool.getHostStatistics().get("a").get("inFlight"));
+
+        Future<PooledClient> waiting = threads.submit(new Callable<PooledClient>() {
+            @Override
+            public PooledClient call() throws Exception {
+                return pool.borrow();
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+
+        pool.release(first, Outcome.SUCCESS);
+        assertSame(first, waiting.get(5, TimeUnit.SECONDS));
+        assertNotSame(first, second);
+        assertEquals(2, pool.openConnections());
+    }
+
+    @Test
+    public void testBorrowWaitsForAConnectionOfAnyHost() throws Exception {
+        pool = new StubConnectionPool("a", "b");
+        pool.setMaxConnectionsPerHost(1);
+        pool.setBorrowTimeout(5000);
+        pool.open();
+
+        // Whichever host is tried first, the connection given back on the other one is taken
+        for (String host : Arrays.asList("a", "b")) {
+            PooledClient first = pool.borrow();
+            PooledClient second = pool.borrow();
+            PooledClient freed = first.getHost().equals(host) ? first : second;
+            PooledClient kept = freed == first ? second : first;
+
+            Future<PooledClient> waiting = threads.submit(new Callable<PooledClient>() {
+                @Override
+                public PooledClient call() throws Exception {
+                    return pool.borrow();
+                }
+            });
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+
+            pool.release(freed, Outcome.SUCCESS);
+            assertSame(freed, waiting.get(1, TimeUnit.SECONDS));
+            pool.release(freed, Outcome.SUCCESS);
+            pool.release(kept, Outcome.SUCCESS);
+        }
+    }
+
+    @Test
+    public void testIdleConnectionsAboveTheMinimumAreEvicted() throws Exception {
+        pool = new StubConnectionPool("a");
+        pool.setMinConnectionsPerHost(1);
+        pool.setIdleTimeout(10);
+        pool.open();
+
+        List<PooledClient> borrowed = new ArrayList<PooledClient>();
+        for (int i = 0; i < 3; i++) {
+            borrowed.add(pool.borrow());
+        }
+        for (PooledClient pooled : borrowed) {
+            pool.release(pooled, Outcome.SUCCESS);
+        }
+        assertEquals(3, pool.openConnections());
+
+        Thread.sleep(20);
+        pool.evictIdleConnections();
+        assertEquals(1, pool.openConnections());
+        assertEquals(1, pool.getHostStatistics().get("a").get("opened"));
+    }
+
+    @Test
+    public void testBrokenConnectionsAreDiscarded() throws Exception {
+        pool = new StubConnectionPool("a");
+        pool.setMaxHostFailures(3);
+        pool.open();
+
+        PooledClient broken = pool.borrow();
+        pool.release(broken, Outcome.BROKEN);
+        assertFalse(broken.isOpen());
+        assertEquals(0, pool.openConnections());
+
+        PooledClient next = pool.borrow();
+        assertNotSame(broken, next);
+        assertTrue(next.isOpen());
+        assertEquals(2, pool.transports.size());
+    }
+
+    @Test
+    public void testClosedConnectionsAreNotLent() throws Exception {
+        pool = new StubConnectionPool("a");
+        pool.open();
+
+        PooledClient pooled = pool.borrow();
+        pool.release(pooled, Outcome.SUCCESS);
+        pooled.close();
+
+        assertNotSame(pooled, pool.borrow());
+    }
+
+    @Test
+    public void testUnreachableHostIsExcluded() throws Exception {
+        pool = new StubConnectionPool("a", "b");
+        pool.unreachable.add("b");
+        pool.setHostRetryInterval(60000);
+        pool.open();
+
+        // Excluded right away, without waiting for maxHostFailures failed requests
+        assertEquals("OPEN", pool.getHostStatistics().get("b").get("state"));
+        for (int i = 0; i < 20; i++) {
+            PooledClient pooled = pool.borrow();
+            assertEquals("a", pooled.getHost());
+            pool.release(pooled, Outcome.SUCCESS);
+        }
+    }
+
+    @Test
+    public void testHostFailingRepeatedlyIsExcluded() throws Exception {
+        pool = new StubConnectionPool("a", "b");
+        pool.setMaxHostFailures(2);
+        pool.setHostRetryInterval(60000);
+        pool.open();
+
+        for (int failures = 0; failures < 2; ) {
+            PooledClient pooled = pool.borrow();
+            boolean broken = pooled.getHost().equals("b");
+            pool.release(pooled, broken ? Outcome.BROKEN : Outcome.SUCCESS);
+            if (broken) {
+                failures++;
+            }
+        }
+
+        assertEquals("OPEN", pool.getHostStatistics().get("b").get("state"));
+        for (int i = 0; i < 20; i++) {
+            assertNull(pool.borrowExcluding("a", new ArrayList<String>()));
+            PooledClient pooled = pool.borrow();
+            assertEquals("a", pooled.getHost());
+            pool.release(pooled, Outcome.SUCCESS);
+        }
+    }
+
+    @Test
+    public void testServerErrorsCountAgainstTheHostButKeepTheConnection() throws Exception {
+        pool = new StubConnectionPool("a", "b");
+        pool.setMaxHostFailures(2);
+        pool.setHostRetryInterval(60000);
+        pool.open();
+
+        PooledClient pooled = pool.borrow(Arrays.asList("b"));
+        pool.release(pooled, Outcome.SERVER_ERROR);
+        assertTrue(pooled.isOpen());
+        assertEquals(1, pool.getHostStatistics().get("b").get("failures"));
+        assertEquals("CLOSED", pool.getHostStatistics().get("b").get("state"));
+
+        assertSame(pooled, pool.borrow(Arrays.asList("b")));
+        pool.release(pooled, Outcome.SERVER_ERROR);
+        assertEquals("OPEN", pool.getHostStatistics().get("b").get("state"));
+    }
+
+    @Test
+    public void testReplicasNotUsedDoNotTakeTheProbe() throws Exception {
+        pool = new StubConnectionPool("a", "b");
+        pool.unreachable.add("b");
+        pool.setMaxHostFailures(1);
+        pool.setHostRetryInterval(50);
+        pool.open();
+        pool.unreachable.clear();
+        Thread.sleep(60);
+
+        // a comes first among equally scored replicas: b is considered, but not used
+        PooledClient pooled = pool.borrow(Arrays.asList("a", "b"));
+        assertEquals("a", pooled.getHost());
+        assertEquals("OPEN", pool.getHostStatistics().get("b").get("state"));
+
+        PooledClient probe = pool.borrow(Arrays.asList("b"));
+        assertEquals("b", probe.getHost());
+        assertEquals("HALF_OPEN", pool.getHostStatistics().get("b").get("state"));
+        // The probe is in flight: no other request goes to b
+        assertEquals("a", pool.borrow(Arrays.asList("b")).getHost());
+
+        pool.release(probe, Outcome.SUCCESS);
+        assertEquals("CLOSED", pool.getHostStatistics().get("b").get("state"));
+    }
+
+    @Test
+    public void testOpenFailsWhenNoHostIsReachable() throws Exception {
+        pool = new StubConnectionPool("a");
+        pool.unreachable.add("a");
+        try {
+            pool.open();
+            fail("The pool should not open without a reachable host");
+        } catch (ConnectionException e) {
+            assertFalse(pool.isOpen());
+        }
+    }
+}
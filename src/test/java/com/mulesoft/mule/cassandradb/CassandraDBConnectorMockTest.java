@@ -9,15 +9,20 @@
  */
 package com.mulesoft.mule.cassandradb;
 
+import com.mulesoft.mule.cassandradb.api.BulkLoadFormat;
 import org.apache.cassandra.thrift.*;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.mule.util.SerializationUtils;
 
+import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
 import java.util.*;
 
@@ -117,7 +122,31 @@ public class CassandraDBConnectorMockTest {
         rowKeys.add(rowKey);
         List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
         when(client.multiget_count(keys, columnParent, predicate, consistencyLevel)).thenReturn(map);
-        assertEquals(map, connector.multiGetCount(rowKeys, columnFamily, null, null, false, 50));
+        assertEquals(map, connector.multiGetCount(rowKeys, columnFamily, null, null, false, 50, null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMultiGetCountSplitsKeysIntoChunks() throws Exception {
+        connector.setMultigetChunkSize(2);
+        connector.setClient(client);
+        List<String> rowKeys = Arrays.asList("a", "b", "c", "d", "e");
+        List<ByteBuffer> keys = CassandraDBUtils.toByteBufferList(rowKeys);
+        for (int i = 0; i < keys.size(); i += 2) {
+            List<ByteBuffer> chunk = keys.subList(i, Math.min(i + 2, keys.size()));
+            Map<ByteBuffer, Integer> counts = new HashMap<ByteBuffer, Integer>();
+            for (ByteBuffer key : chunk) {
+                counts.put(key, 1);
+            }
+            when(client.multiget_count(eq(chunk), any(ColumnParent.class), any(SlicePredicate.class),
+                    any(ConsistencyLevel.class))).thenReturn(counts);
+        }
+
+        Map<ByteBuffer, Integer> result = (Map<ByteBuffer, Integer>) connector.multiGetCount(rowKeys, columnFamily,
+                null, null, false, 50, null);
+        assertEquals(5, result.size());
+        Mockito.verify(client, Mockito.times(3)).multiget_count(anyList(), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class));
     }
 
     @Test
@@ -132,6 +161,57 @@ public class CassandraDBConnectorMockTest {
         assertNotNull(connector.get("foo", "foo", null));
     }
 
+    @Test
+    public void testGetRetriesAfterTimeout() throws Exception {
+        ColumnOrSuperColumn result = new ColumnOrSuperColumn();
+        Column column = new Column();
+        column.setName("foo".getBytes());
+        column.setValue(SerializationUtils.serialize("foo"));
+        result.setColumn(column);
+        when(client.get(any(ByteBuffer.class), any(cPath.getClass()), any(ConsistencyLevel.class))).
+                thenThrow(new TimedOutException()).thenReturn(result);
+        assertNotNull(connector.get("foo", "foo", null));
+        Mockito.verify(client, Mockito.times(2)).get(any(ByteBuffer.class), any(cPath.getClass()),
+                any(ConsistencyLevel.class));
+    }
+
+    @Test
+    public void testRowCacheServesRepeatedGetsUntilInsert() throws Exception {
+        connector.setRowCacheMaxBytes(1024 * 1024);
+        connector.setClient(client);
+        ColumnOrSuperColumn result = new ColumnOrSuperColumn();
+        Column column = new Column();
+        column.setName("foo".getBytes());
+        column.setValue("foo".getBytes());
+        result.setColumn(column);
+        when(client.get(any(ByteBuffer.class), any(cPath.getClass()), any(ConsistencyLevel.class)))
+                .thenReturn(result);
+
+        connector.get("foo", "foo", null);
+        connector.get("foo", "foo", null);
+        Mockito.verify(client, Mockito.times(1)).get(any(ByteBuffer.class), any(cPath.getClass()),
+                any(ConsistencyLevel.class));
+
+        connector.insert("foo", "foo", "foo", "bar", 0);
+        connector.get("foo", "foo", null);
+        Mockito.verify(client, Mockito.times(2)).get(any(ByteBuffer.class), any(cPath.getClass()),
+                any(ConsistencyLevel.class));
+        assertEquals(1L, connector.getRowCacheStatistics().get("hits"));
+    }
+
+    @Test
+    public void testAddIsNotRetriedAfterTimeout() throws Exception {
+        Mockito.doThrow(new TimedOutException()).when(client).add(any(ByteBuffer.class), any(ColumnParent.class),
+                any(CounterColumn.class), any(ConsistencyLevel.class));
+        try {
+            connector.add("foo", columnFamily, "counter", 1);
+            Assert.fail("The timeout should not have been retried");
+        } catch (CassandraDBException e) {
+            Mockito.verify(client, Mockito.times(1)).add(any(ByteBuffer.class), any(ColumnParent.class),
+                    any(CounterColumn.class), any(ConsistencyLevel.class));
+        }
+    }
+
     @Test
     public void testGetRow() throws Exception {
         ColumnOrSuperColumn result = new ColumnOrSuperColumn();
@@ -161,7 +241,83 @@ public class CassandraDBConnectorMockTest {
         result.add(slice);
         when(client.get_slice(any(ByteBuffer.class), any(ColumnParent.class)
                 , any(SlicePredicate.class), any(ConsistencyLevel.class))).thenReturn(columns);
-        assertNotNull(connector.getSlice("foo", "foo", null, null, false, 1, null));
+        assertNotNull(connector.getSlice("foo", "foo", null, null, false, 1, null, null));
+    }
+
+    @Test
+    public void testGetSliceReadsOnlyTheNamedColumns() throws Exception {
+        when(client.get_slice(any(ByteBuffer.class), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class)))
+                .thenReturn(Arrays.asList(column("c1"), column("c3")));
+
+        connector.getSlice("foo", "foo", null, null, false, 100, null, Arrays.asList("c1", "c3"));
+        SlicePredicate names = new SlicePredicate().setColumn_names(
+                Arrays.asList(CassandraDBUtils.toByteBuffer("c1"), CassandraDBUtils.toByteBuffer("c3")));
+        Mockito.verify(client).get_slice(any(ByteBuffer.class), any(ColumnParent.class), eq(names),
+                any(ConsistencyLevel.class));
+    }
+
+    @Test
+    public void testScanSlicePagesAndDropsBoundaryColumn() throws Exception {
+        when(client.get_slice(any(ByteBuffer.class), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class)))
+                .thenReturn(Arrays.asList(column("c1"), column("c2")),
+                        Arrays.asList(column("c2"), column("c3")),
+                        Collections.singletonList(column("c3")));
+
+        Iterator<Map> columns = connector.scanSlice("foo", "foo", null, null, false, 2, null);
+        List<Map> result = new ArrayList<Map>();
+        while (columns.hasNext()) {
+            result.add(columns.next());
+        }
+        assertEquals(3, result.size());
+        assertEquals("c3", result.get(2).get("c3"));
+    }
+
+    @Test
+    public void testConcurrentGetSlicesAreBatchedIntoMultiget() throws Exception {
+        connector.setReadBatchWindow(10000);
+        connector.setReadBatchMaxSize(2);
+        connector.setClient(client);
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> rows = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
+        rows.put(CassandraDBUtils.toByteBuffer("foo"), Collections.singletonList(column("c1")));
+        rows.put(CassandraDBUtils.toByteBuffer("bar"), Collections.singletonList(column("c2")));
+        when(client.multiget_slice(anyList(), any(ColumnParent.class), any(SlicePredicate.class),
+                any(ConsistencyLevel.class))).thenReturn(rows);
+
+        final List<Object> other = new ArrayList<Object>();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    other.add(connector.getSlice("foo", "foo", null, null, false, 100, null, null));
+                } catch (CassandraDBException e) {
+                    other.add(e);
+                }
+            }
+        });
+        reader.start();
+        List slice = (List) connector.getSlice("bar", "foo", null, null, false, 100, null, null);
+        reader.join();
+
+        assertEquals("c2", ((Map) slice.get(0)).get("c2"));
+        assertEquals("c1", ((Map) ((List) other.get(0)).get(0)).get("c1"));
+        Mockito.verify(client, Mockito.times(1)).multiget_slice(anyList(), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class));
+        Mockito.verify(client, Mockito.never()).get_slice(any(ByteBuffer.class), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class));
+    }
+
+    private static ColumnOrSuperColumn column(String name) {
+        Column column = new Column();
+        column.setName(name.getBytes());
+        column.setValue(name.getBytes());
+        return new ColumnOrSuperColumn().setColumn(column);
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testGetAsyncRequiresAsyncMode() throws Exception {
+        connector.getAsync("foo", "foo", null);
     }
 
     @Test
@@ -169,7 +325,7 @@ public class CassandraDBConnectorMockTest {
         when(client.get_count(any(ByteBuffer.class), any(ColumnParent.class), any(SlicePredicate.class),
                 any(ConsistencyLevel.class)))
                 .thenReturn(1);
-        assertEquals(1, connector.getCount("foo", "foo", null, null, false, 1));
+        assertEquals(1, connector.getCount("foo", "foo", null, null, false, 1, null));
     }
 
     @Test
@@ -183,7 +339,109 @@ public class CassandraDBConnectorMockTest {
         result.add(slice);
         when(client.get_range_slices(any(ColumnParent.class), any(SlicePredicate.class),
                 any(KeyRange.class), any(ConsistencyLevel.class))).thenReturn(result);
-        connector.getRangeSlices("foo", null, null, false, 1, null, null, null, null, 1);
+        connector.getRangeSlices("foo", null, null, false, 1, null, null, null, null, 1, null);
+    }
+
+    @Test
+    public void testScanRangeSlicesPagesAndDropsBoundaryRow() throws Exception {
+        List<KeySlice> firstPage = new ArrayList<KeySlice>();
+        firstPage.add(new KeySlice().setKey(CassandraDBUtils.toByteBuffer("a")));
+        firstPage.add(new KeySlice().setKey(CassandraDBUtils.toByteBuffer("b")));
+        firstPage.add(new KeySlice().setKey(CassandraDBUtils.toByteBuffer("c")));
+        List<KeySlice> lastPage = new ArrayList<KeySlice>();
+        lastPage.add(new KeySlice().setKey(CassandraDBUtils.toByteBuffer("c")));
+        lastPage.add(new KeySlice().setKey(CassandraDBUtils.toByteBuffer("d")));
+        when(client.get_range_slices(any(ColumnParent.class), any(SlicePredicate.class),
+                any(KeyRange.class), any(ConsistencyLevel.class))).thenReturn(firstPage, lastPage);
+
+        Iterator<KeySlice> rows = connector.scanRangeSlices("foo", null, null, false, 1, null, null, null, null, 3);
+        List<KeySlice> result = new ArrayList<KeySlice>();
+        while (rows.hasNext()) {
+            result.add(rows.next());
+        }
+        assertEquals(4, result.size());
+        assertEquals(CassandraDBUtils.toByteBuffer("c"), result.get(2).bufferForKey());
+    }
+
+    @Test
+    public void testScanPagedSlicesContinuesWideRows() throws Exception {
+        List<KeySlice> rows = new ArrayList<KeySlice>();
+        rows.add(new KeySlice(CassandraDBUtils.toByteBuffer("a"), Arrays.asList(column("c1"), column("c2"))));
+        rows.add(new KeySlice(CassandraDBUtils.toByteBuffer("b"), Collections.singletonList(column("c1"))));
+        when(client.get_range_slices(any(ColumnParent.class), any(SlicePredicate.class),
+                any(KeyRange.class), any(ConsistencyLevel.class))).thenReturn(rows);
+        when(client.get_slice(any(ByteBuffer.class), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class)))
+                .thenReturn(Arrays.asList(column("c2"), column("c3")), Collections.singletonList(column("c3")));
+
+        Iterator<KeySlice> slices = connector.scanPagedSlices("foo", null, null, null, null, 3, 2);
+        List<KeySlice> result = new ArrayList<KeySlice>();
+        while (slices.hasNext()) {
+            result.add(slices.next());
+        }
+        assertEquals(3, result.size());
+        assertEquals(CassandraDBUtils.toByteBuffer("a"), result.get(1).bufferForKey());
+        assertEquals(Collections.singletonList(column("c3")), result.get(1).getColumns());
+        assertEquals(CassandraDBUtils.toByteBuffer("b"), result.get(2).bufferForKey());
+        Mockito.verify(client, Mockito.times(2)).get_slice(any(ByteBuffer.class), any(ColumnParent.class),
+                any(SlicePredicate.class), any(ConsistencyLevel.class));
+    }
+
+    @Test
+    public void testParallelScanRangeSlicesReadsEverySplit() throws Exception {
+        when(client.describe_partitioner()).thenReturn("org.apache.cassandra.dht.RandomPartitioner");
+        TokenRange range = new TokenRange().setStart_token("0").setEnd_token("10");
+        when(client.describe_ring(anyString())).thenReturn(Collections.singletonList(range));
+        when(client.describe_splits(anyString(), anyString(), anyString(), anyInt()))
+                .thenReturn(Arrays.asList("0", "5", "10"));
+        when(client.get_range_slices(any(ColumnParent.class), any(SlicePredicate.class),
+                any(KeyRange.class), any(ConsistencyLevel.class)))
+                .thenReturn(Collections.singletonList(new KeySlice().setKey(CassandraDBUtils.toByteBuffer("a"))));
+
+        Iterator<KeySlice> rows = connector.parallelScanRangeSlices("foo", null, null, false, 1, 100, 2, 10);
+        int result = 0;
+        while (rows.hasNext()) {
+            rows.next();
+            result++;
+        }
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void testParallelScanRangeSlicesPagesFullTokenSplits() throws Exception {
+        final List<String> keys = Arrays.asList("a", "b", "c", "d", "e");
+        when(client.describe_partitioner()).thenReturn("org.apache.cassandra.dht.ByteOrderedPartitioner");
+        TokenRange range = new TokenRange().setStart_token("60").setEnd_token("64");
+        when(client.describe_ring(anyString())).thenReturn(Collections.singletonList(range));
+        // Two splits of exactly one full page each, ending on the tokens of "b" and "d"
+        when(client.describe_splits(anyString(), anyString(), anyString(), anyInt()))
+                .thenReturn(Arrays.asList("60", "62", "64"));
+        when(client.get_range_slices(any(ColumnParent.class), any(SlicePredicate.class),
+                any(KeyRange.class), any(ConsistencyLevel.class))).thenAnswer(new Answer<List<KeySlice>>() {
+            @Override
+            public List<KeySlice> answer(InvocationOnMock invocation) {
+                KeyRange keyRange = (KeyRange) invocation.getArguments()[2];
+                String start = keyRange.getStart_token();
+                String end = keyRange.getEnd_token();
+                List<KeySlice> page = new ArrayList<KeySlice>();
+                for (String key : keys) {
+                    String token = Integer.toHexString(key.charAt(0));
+                    if (page.size() < keyRange.getCount() && (start.equals(end)
+                            || (token.compareTo(start) > 0 && token.compareTo(end) <= 0))) {
+                        page.add(new KeySlice().setKey(CassandraDBUtils.toByteBuffer(key)));
+                    }
+                }
+                return page;
+            }
+        });
+
+        Iterator<KeySlice> rows = connector.parallelScanRangeSlices("foo", null, null, false, 1, 100, 2, 2);
+        int result = 0;
+        while (rows.hasNext() && result <= keys.size()) {
+            rows.next();
+            result++;
+        }
+        assertEquals(4, result);
     }
 
     @Test
@@ -199,7 +457,7 @@ public class CassandraDBConnectorMockTest {
                 any(KeyRange.class), any(ConsistencyLevel.class))).thenReturn(result);
         com.mulesoft.mule.cassandradb.api.IndexExpresion expresion = new
                 com.mulesoft.mule.cassandradb.api.IndexExpresion();
-        connector.getIndexedSlices("foo", null, null, false, 1, 1, null, Collections.singletonList(expresion));
+        connector.getIndexedSlices("foo", null, null, false, 1, 1, null, Collections.singletonList(expresion), null);
     }
 
     @Test
@@ -224,12 +482,55 @@ public class CassandraDBConnectorMockTest {
         connector.insertFromMap(contentMap);
     }
 
+    @Test
+    public void testInsertFromMapOnlyCreatesMissingColumnFamilies() throws Exception {
+        connector.setKeyspace("MyKeyspace");
+        KsDef ksDef = new KsDef();
+        ksDef.setCf_defs(Collections.singletonList(new CfDef("MyKeyspace", "Existing")));
+        when(client.describe_keyspace(anyString())).thenReturn(ksDef);
+        Map<String, Object> row = Collections.<String, Object>singletonMap("row",
+                Collections.singletonMap("superColumn", Collections.singletonMap("column", "value")));
+        Map<String, Object> contentMap = new HashMap<String, Object>();
+        contentMap.put("Existing", row);
+        connector.insertFromMap(contentMap);
+        connector.insertFromMap(contentMap);
+        Mockito.verify(client, Mockito.never()).system_add_column_family(any(CfDef.class));
+        Mockito.verify(client, Mockito.times(1)).describe_keyspace(anyString());
+
+        contentMap.put("Missing", row);
+        connector.insertFromMap(contentMap);
+        Mockito.verify(client, Mockito.times(1)).system_add_column_family(any(CfDef.class));
+    }
+
     @Test
     public void testBatchMutable() throws Exception {
         Mockito.doNothing().when(client).batch_mutate(any(Map.class), any(ConsistencyLevel.class));
         connector.batchMutable(new HashMap());
     }
 
+    @Test
+    public void testBatchMutableSplitsLargeBatchesAndReportsFailedChunks() throws Exception {
+        connector.setBatchMaxMutations(1);
+        connector.setClient(client);
+        Mockito.doThrow(new InvalidRequestException("too large")).doNothing().when(client)
+                .batch_mutate(any(Map.class), any(ConsistencyLevel.class));
+        Map<ByteBuffer, Map<String, List<Mutation>>> content = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+        for (String rowKey : Arrays.asList("row1", "row2", "row3")) {
+            Mutation mutation = new Mutation().setColumn_or_supercolumn(column(rowKey));
+            content.put(CassandraDBUtils.toByteBuffer(rowKey),
+                    Collections.singletonMap(columnFamily, Collections.singletonList(mutation)));
+        }
+        try {
+            connector.batchMutable(content);
+            Assert.fail("The failed chunk should have been reported");
+        } catch (BatchMutateException e) {
+            assertEquals(3, e.getBatchCount());
+            assertEquals(1, e.getFailedBatches().size());
+            assertEquals(1, e.getFailedBatches().get(0).size());
+        }
+        Mockito.verify(client, Mockito.times(3)).batch_mutate(any(Map.class), any(ConsistencyLevel.class));
+    }
+
     @Test
     public void testAdd() throws Exception {
         Mockito.doNothing().when(client)
@@ -365,5 +666,89 @@ public class CassandraDBConnectorMockTest {
         connector.executeCqlQuery("foo", null);
     }
 
+    @Test
+    public void testCqlAndSchemaChangesAreNotRetriedAfterTimeout() throws Exception {
+        when(client.execute_cql_query(any(ByteBuffer.class), any(Compression.class)))
+                .thenThrow(new TimedOutException());
+        when(client.system_drop_column_family(any(String.class))).thenThrow(new TimedOutException());
+        try {
+            connector.executeCqlQuery("UPDATE foo SET bar = 1 WHERE KEY = 'a'", Compression.NONE);
+            Assert.fail("The timeout should not have been retried");
+        } catch (CassandraDBException e) {
+            Mockito.verify(client, Mockito.times(1)).execute_cql_query(any(ByteBuffer.class),
+                    any(Compression.class));
+        }
+        try {
+            connector.systemDropColumnFamily(columnFamily);
+            Assert.fail("The timeout should not have been retried");
+        } catch (CassandraDBException e) {
+            Mockito.verify(client, Mockito.times(1)).system_drop_column_family(columnFamily);
+        }
+    }
+
+    @Test
+    public void testExecuteCqlWithParametersBindsEscapedParameters() throws Exception {
+        connector.executeCqlWithParameters("SELECT * FROM foo WHERE KEY = ? AND name = '?'",
+                Collections.<Object>singletonList("o'brien"), Compression.NONE);
+        Mockito.verify(client).execute_cql_query(
+                CassandraDBUtils.toByteBuffer("SELECT * FROM foo WHERE KEY = 'o''brien' AND name = '?'"),
+                Compression.NONE);
+    }
+
+    @Test
+    public void testBulkLoadWritesCsvRecordsInBatches() throws Exception {
+        String csv = "id,name,city\nu1,Ann,Paris\nu2,Bob,Oslo\n,Nobody,Rome\nu3,Cy,Lima\n";
+        Map<String, Object> statistics = connector.bulkLoad(new ByteArrayInputStream(csv.getBytes("UTF-8")),
+                columnFamily, "id", BulkLoadFormat.CSV, null, ",", 2, 2);
+        Mockito.verify(client, Mockito.times(2)).batch_mutate(any(Map.class), any(ConsistencyLevel.class));
+        Mockito.verify(client, Mockito.never()).insert(any(ByteBuffer.class), any(ColumnParent.class),
+                any(Column.class), any(ConsistencyLevel.class));
+        assertEquals(4L, statistics.get("rows"));
+        assertEquals(3L, statistics.get("writtenRows"));
+        assertEquals(1L, statistics.get("failedRows"));
+        assertEquals(2L, statistics.get("batches"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAggregatedCounterIncrementsAreWrittenAsOneSum() throws Exception {
+        connector.setAggregateCounters(true);
+        connector.setCounterFlushInterval(60000);
+        connector.setClient(client);
+        connector.add("rowKey", columnFamily, "counter", 2);
+        connector.add("rowKey", columnFamily, "counter", 3);
+        Mockito.verifyZeroInteractions(client);
+
+        connector.flush();
+        ArgumentCaptor<Map> mutations = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(client).batch_mutate(mutations.capture(), any(ConsistencyLevel.class));
+        Map<String, List<Mutation>> row = (Map<String, List<Mutation>>) mutations.getValue()
+                .get(CassandraDBUtils.toByteBuffer("rowKey"));
+        assertEquals(1, row.get(columnFamily).size());
+        assertEquals(5, row.get(columnFamily).get(0).getColumn_or_supercolumn().getCounter_column().getValue());
+        Mockito.verifyNoMoreInteractions(client);
+        connector.disconnect();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWriteBehindGroupsInsertsIntoOneBatchMutate() throws Exception {
+        connector.setWriteBehind(true);
+        connector.setWriteBehindFlushInterval(0);
+        connector.setClient(client);
+        connector.insert("rowKey", "CF1", "c1", "v1", 0);
+        connector.insert("rowKey", "CF1", "c2", "v2", 0);
+        Mockito.verifyZeroInteractions(client);
+
+        connector.flush();
+        ArgumentCaptor<Map> mutations = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(client).batch_mutate(mutations.capture(), any(ConsistencyLevel.class));
+        Map<String, List<Mutation>> row = (Map<String, List<Mutation>>) mutations.getValue()
+                .get(CassandraDBUtils.toByteBuffer("rowKey"));
+        Assert.assertEquals(2, row.get("CF1").size());
+        Mockito.verifyNoMoreInteractions(client);
+        connector.disconnect();
+    }
+
 
 }
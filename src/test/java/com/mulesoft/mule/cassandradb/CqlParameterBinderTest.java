@@ -0,0 +1,104 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Compression;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.assertEquals;
+
+public class CqlParameterBinderTest {
+
+    @Test
+    public void testBindsLiteralsOutsideQuotes() throws Exception {
+        UUID id = UUID.randomUUID();
+        assertEquals("UPDATE cf SET a = 'x''y', \"b?\" = 'it''s?', c = 42 WHERE KEY = " + id + " AND d = '0aff'",
+                CqlParameterBinder.bind("UPDATE cf SET a = ?, \"b?\" = 'it''s?', c = ? WHERE KEY = ? AND d = ?",
+                        Arrays.asList("x'y", 42, id, new byte[]{10, -1})));
+    }
+
+    @Test
+    public void testBindsNumbersAsPlainDecimals() throws Exception {
+        assertEquals("SELECT * FROM cf WHERE a = 7 AND b = -3 AND c = 12345678901234567890 AND d = 10000000000"
+                        + " AND e = 0.1 AND f = 0.00000123",
+                CqlParameterBinder.bind("SELECT * FROM cf WHERE a = ? AND b = ? AND c = ? AND d = ?"
+                        + " AND e = ? AND f = ?", Arrays.<Object>asList(7L, (short) -3,
+                        new BigInteger("12345678901234567890"), 1e10, 0.1f, new BigDecimal("1.23E-6"))));
+    }
+
+    @Test
+    public void testBindsDatesAsEpochMillis() throws Exception {
+        assertEquals("SELECT * FROM cf WHERE KEY = 1300000000000 AND active = true",
+                CqlParameterBinder.bind("SELECT * FROM cf WHERE KEY = ? AND active = ?",
+                        Arrays.<Object>asList(new Date(1300000000000L), true)));
+    }
+
+    @Test
+    public void testBindsByteBuffersAsBlobs() throws Exception {
+        ByteBuffer bytes = ByteBuffer.wrap(new byte[]{0, 1, 2, 3});
+        bytes.position(2);
+        assertEquals("SELECT * FROM cf WHERE KEY = '0203'",
+                CqlParameterBinder.bind("SELECT * FROM cf WHERE KEY = ?", Collections.singletonList(bytes)));
+        assertEquals(2, bytes.position());
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testRejectsMissingParameters() throws Exception {
+        CqlParameterBinder.bind("SELECT * FROM cf WHERE KEY = ?", Collections.emptyList());
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testRejectsNullParameters() throws Exception {
+        CqlParameterBinder.bind("SELECT * FROM cf WHERE KEY = ?", Collections.singletonList(null));
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testRejectsNaN() throws Exception {
+        CqlParameterBinder.bind("SELECT * FROM cf WHERE a = ?", Collections.singletonList(Double.NaN));
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testRejectsInfinity() throws Exception {
+        CqlParameterBinder.bind("SELECT * FROM cf WHERE a = ?", Collections.singletonList(Float.NEGATIVE_INFINITY));
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testRejectsOtherNumbers() throws Exception {
+        CqlParameterBinder.bind("SELECT * FROM cf WHERE a = ?", Collections.singletonList(new AtomicInteger(1)));
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testRejectsOtherTypes() throws Exception {
+        CqlParameterBinder.bind("SELECT * FROM cf WHERE a = ?", Collections.singletonList(new Object()));
+    }
+
+    @Test
+    public void testDeflatesGzipQueries() throws Exception {
+        String query = "SELECT * FROM cf WHERE KEY = 'aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa'";
+        ByteBuffer encoded = CqlParameterBinder.encode(query, Compression.GZIP);
+        Inflater inflater = new Inflater();
+        inflater.setInput(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+        byte[] decoded = new byte[1024];
+        int length = inflater.inflate(decoded);
+        inflater.end();
+        assertEquals(query, new String(decoded, 0, length, "UTF-8"));
+        assertEquals(ByteBuffer.wrap(query.getBytes("UTF-8")), CqlParameterBinder.encode(query, Compression.NONE));
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class CqlResultDecoderTest {
+
+    @Test
+    public void testDecodesValuesWithSchemaTypes() {
+        UUID id = UUID.randomUUID();
+        Map<ByteBuffer, String> valueTypes = new HashMap<ByteBuffer, String>();
+        valueTypes.put(utf8("KEY"), "UUIDType");
+        valueTypes.put(utf8("visits"), "org.apache.cassandra.db.marshal.LongType");
+        valueTypes.put(utf8("score"), "DoubleType");
+        valueTypes.put(utf8("name"), "UTF8Type");
+        CqlMetadata schema = new CqlMetadata().setName_types(Collections.<ByteBuffer, String>emptyMap())
+                .setValue_types(valueTypes).setDefault_name_type("UTF8Type").setDefault_value_type("BytesType");
+        ByteBuffer uuid = ByteBuffer.allocate(16);
+        uuid.putLong(0, id.getMostSignificantBits()).putLong(8, id.getLeastSignificantBits());
+        CqlRow row = new CqlRow().setKey(uuid).setColumns(Arrays.asList(
+                column("KEY", uuid),
+                column("visits", (ByteBuffer) ByteBuffer.allocate(8).putLong(0, 42L)),
+                column("score", (ByteBuffer) ByteBuffer.allocate(8).putDouble(0, 0.5)),
+                column("name", utf8("john")),
+                column("avatar", ByteBuffer.wrap(new byte[]{1, 2})),
+                column("empty", ByteBuffer.allocate(0))));
+        valueTypes.put(utf8("empty"), "LongType");
+
+        Iterator<Map<String, Object>> rows = CqlResultDecoder.rows(new CqlResult().setType(CqlResultType.ROWS)
+                .setRows(Collections.singletonList(row)).setSchema(schema));
+        Map<String, Object> values = rows.next();
+        assertFalse(rows.hasNext());
+        assertEquals(Arrays.asList("KEY", "visits", "score", "name", "avatar", "empty"),
+                new ArrayList<String>(values.keySet()));
+        assertEquals(id, values.get("KEY"));
+        assertEquals(42L, values.get("visits"));
+        assertEquals(0.5, values.get("score"));
+        assertEquals("john", values.get("name"));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) values.get("avatar"));
+        assertNull(values.get("empty"));
+    }
+
+    @Test
+    public void testResultsWithoutRowsAreEmpty() {
+        assertFalse(CqlResultDecoder.rows(new CqlResult().setType(CqlResultType.VOID)).hasNext());
+        assertFalse(CqlResultDecoder.rows(null).hasNext());
+    }
+
+    @Test
+    public void testUnknownTypesAreBytes() {
+        assertEquals(CqlResultDecoder.CqlType.BYTES, CqlResultDecoder.typeOf("CompositeType(UTF8Type,LongType)"));
+        assertEquals(CqlResultDecoder.CqlType.UUID, CqlResultDecoder.typeOf("TimeUUIDType"));
+    }
+
+    private static ByteBuffer utf8(String value) {
+        return CassandraDBUtils.toByteBuffer(value);
+    }
+
+    private static Column column(String name, ByteBuffer value) {
+        Column column = new Column();
+        column.setName(utf8(name));
+        column.setValue(value);
+        return column;
+    }
+}
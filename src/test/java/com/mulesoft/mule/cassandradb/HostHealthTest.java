@@ -0,0 +1,107 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HostHealthTest {
+
+    private HostHealth health;
+
+    @Before
+    public void setUpTests() {
+        health = new HostHealth(3, 1000);
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        assertFalse(health.recordFailure(0));
+        assertFalse(health.recordFailure(0));
+        assertTrue(health.recordFailure(0));
+        assertEquals(HostHealth.State.OPEN, health.getState());
+        assertFalse(health.allowRequest(500));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        health.recordFailure(0);
+        health.recordFailure(0);
+        health.recordSuccess(1);
+        assertFalse(health.recordFailure(0));
+        assertEquals(HostHealth.State.CLOSED, health.getState());
+    }
+
+    @Test
+    public void testTripOpensWithoutFailures() {
+        health.trip(0);
+        assertEquals(HostHealth.State.OPEN, health.getState());
+        assertFalse(health.allowRequest(500));
+        assertTrue(health.allowRequest(1000));
+        assertTrue(health.recordFailure(1000));
+        assertEquals(HostHealth.State.OPEN, health.getState());
+    }
+
+    @Test
+    public void testSingleProbeAfterRetryInterval() {
+        openCircuit();
+        assertTrue(health.allowRequest(1000));
+        assertEquals(HostHealth.State.HALF_OPEN, health.getState());
+        assertFalse(health.allowRequest(1001));
+    }
+
+    @Test
+    public void testAvailabilityCheckDoesNotTakeTheProbe() {
+        openCircuit();
+        assertFalse(health.isAvailable(500));
+        assertTrue(health.isAvailable(1000));
+        assertTrue(health.isAvailable(1000));
+        assertEquals(HostHealth.State.OPEN, health.getState());
+        assertTrue(health.allowRequest(1000));
+        assertFalse(health.isAvailable(1001));
+    }
+
+    @Test
+    public void testSuccessfulProbeClosesCircuit() {
+        openCircuit();
+        health.allowRequest(1000);
+        health.recordSuccess(5);
+        assertEquals(HostHealth.State.CLOSED, health.getState());
+        assertTrue(health.allowRequest(1001));
+    }
+
+    @Test
+    public void testFailedProbeOpensCircuit() {
+        openCircuit();
+        health.allowRequest(1000);
+        assertTrue(health.recordFailure(1000));
+        assertEquals(HostHealth.State.OPEN, health.getState());
+        assertFalse(health.allowRequest(1500));
+    }
+
+    @Test
+    public void testScorePrefersFastAndIdleHosts() {
+        HostHealth slow = new HostHealth(3, 1000);
+        health.recordSuccess(2);
+        slow.recordSuccess(50);
+        assertTrue(health.getScore(0) < slow.getScore(0));
+        assertTrue(health.getScore(0) < health.getScore(4));
+    }
+
+    private void openCircuit() {
+        health.recordFailure(0);
+        health.recordFailure(0);
+        health.recordFailure(0);
+    }
+}
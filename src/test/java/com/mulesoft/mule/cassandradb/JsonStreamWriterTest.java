@@ -0,0 +1,100 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.hector.api.Serializer;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.KeySlice;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JsonStreamWriterTest {
+
+    @Test
+    public void testWritesRowsOfAnIterator() throws Exception {
+        Iterator<KeySlice> rows = Arrays.asList(
+                new KeySlice(CassandraDBUtils.toByteBuffer("a"), Arrays.asList(column("c1"), column("c2"))),
+                new KeySlice(CassandraDBUtils.toByteBuffer("b"), Collections.<ColumnOrSuperColumn>emptyList()))
+                .iterator();
+        assertEquals("[{\"key\":\"a\",\"columns\":{\"c1\":\"c1\",\"c2\":\"c2\"}},{\"key\":\"b\",\"columns\":{}}]",
+                write(rows));
+    }
+
+    @Test
+    public void testWritesMapsListsAndNumbers() throws Exception {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        result.put("count", 3);
+        result.put("ratio", 0.5);
+        result.put("columns", Collections.singletonList(column("c1")));
+        result.put("missing", null);
+        assertEquals("{\"count\":3,\"ratio\":0.5,\"columns\":[{\"c1\":\"c1\"}],\"missing\":null}", write(result));
+    }
+
+    @Test
+    public void testClosesTheIteratorWhenWritingFails() throws Exception {
+        ClosingIterator rows = new ClosingIterator();
+        try {
+            write(rows);
+            fail("The failure of the iterator should have been thrown");
+        } catch (IllegalStateException e) {
+            assertTrue(rows.closed);
+        }
+    }
+
+    private static String write(Object results) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonStreamWriter(results, Collections.<String, Serializer>emptyMap()).write(null, out);
+        return out.toString("UTF-8");
+    }
+
+    private static ColumnOrSuperColumn column(String name) {
+        Column column = new Column();
+        column.setName(name.getBytes());
+        column.setValue(name.getBytes());
+        return new ColumnOrSuperColumn().setColumn(column);
+    }
+
+    /**
+     * Iterator whose first row fails, and which records whether it was closed.
+     */
+    private static final class ClosingIterator implements Iterator<KeySlice>, Closeable {
+
+        private boolean closed;
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public KeySlice next() {
+            throw new IllegalStateException("Unable to read the next page");
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Serializer;
+import org.apache.cassandra.thrift.Column;
+import org.apache.cassandra.thrift.ColumnOrSuperColumn;
+import org.apache.cassandra.thrift.CounterColumn;
+import org.apache.cassandra.thrift.SuperColumn;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LazyRowMapTest {
+
+    @Test
+    public void testDecodesValuesWithSerializers() {
+        Map<String, Serializer> serializers = new HashMap<String, Serializer>();
+        serializers.put("age", LongSerializer.get());
+        Map<String, Object> row = new LazyRowMap(Arrays.asList(
+                column("name", StringSerializer.get().toByteBuffer("john")),
+                column("age", LongSerializer.get().toByteBuffer(42L))), serializers);
+
+        assertEquals(2, row.size());
+        assertEquals("john", row.get("name"));
+        assertEquals(42L, row.get("age"));
+        assertNull(row.get("missing"));
+        assertFalse(row.containsKey(1));
+    }
+
+    @Test
+    public void testKeepsSliceOrder() {
+        Map<String, Object> row = new LazyRowMap(Arrays.asList(
+                column("b", StringSerializer.get().toByteBuffer("1")),
+                column("a", StringSerializer.get().toByteBuffer("2"))), Collections.<String, Serializer>emptyMap());
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<String>(row.keySet()));
+        assertEquals(row, new LinkedHashMap<String, Object>(row));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSuperAndCounterColumns() {
+        SuperColumn superColumn = new SuperColumn();
+        superColumn.setName(StringSerializer.get().toByteBuffer("address"));
+        superColumn.setColumns(Arrays.asList(column("city", StringSerializer.get().toByteBuffer("Paris"))
+                .getColumn()));
+        CounterColumn counter = new CounterColumn();
+        counter.setName(StringSerializer.get().toByteBuffer("visits"));
+        counter.setValue(7);
+        Map<String, Object> row = new LazyRowMap(Arrays.asList(new ColumnOrSuperColumn().setSuper_column(superColumn),
+                new ColumnOrSuperColumn().setCounter_column(counter)), Collections.<String, Serializer>emptyMap());
+
+        assertEquals("Paris", ((Map<String, Object>) row.get("address")).get("city"));
+        assertEquals(7L, row.get("visits"));
+        assertTrue(row.containsKey("visits"));
+    }
+
+    private static ColumnOrSuperColumn column(String name, java.nio.ByteBuffer value) {
+        Column column = new Column();
+        column.setName(StringSerializer.get().toByteBuffer(name));
+        column.setValue(value);
+        return new ColumnOrSuperColumn().setColumn(column);
+    }
+}
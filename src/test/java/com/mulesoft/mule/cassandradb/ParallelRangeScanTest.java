@@ -0,0 +1,137 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelRangeScanTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    private static final List<String> RING_KEYS = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * Returns full pages of new keys, so the scan never ends.
+     */
+    private final Cassandra.Client client = new Cassandra.Client(null) {
+        @Override
+        public List<KeySlice> get_range_slices(ColumnParent columnParent, SlicePredicate predicate, KeyRange range,
+                                               ConsistencyLevel consistencyLevel) {
+            int call = calls.incrementAndGet();
+            List<KeySlice> page = new ArrayList<KeySlice>();
+            for (int i = 0; i < range.getCount(); i++) {
+                page.add(new KeySlice(key("k" + call + "-" + i), Collections.<ColumnOrSuperColumn>emptyList()));
+            }
+            return page;
+        }
+    };
+
+    /**
+     * Serves the keys of an order preserving ring, where the token of a key is the key itself. Like Cassandra, a
+     * token range excludes its start and includes its end, and wraps around the whole ring when both are equal.
+     */
+    private final Cassandra.Client ringClient = new Cassandra.Client(null) {
+        @Override
+        public List<KeySlice> get_range_slices(ColumnParent columnParent, SlicePredicate predicate, KeyRange range,
+                                               ConsistencyLevel consistencyLevel) {
+            calls.incrementAndGet();
+            String start = range.getStart_token();
+            String end = range.getEnd_token();
+            List<KeySlice> page = new ArrayList<KeySlice>();
+            for (String key : RING_KEYS) {
+                if (page.size() < range.getCount()
+                        && (start.equals(end) || (key.compareTo(start) > 0 && key.compareTo(end) <= 0))) {
+                    page.add(new KeySlice(key(key), Collections.<ColumnOrSuperColumn>emptyList()));
+                }
+            }
+            return page;
+        }
+    };
+
+    @Test
+    public void testFullPagesOfTokenSplitsEndAtTheirEndToken() throws Exception {
+        // Each split holds exactly two full pages, the last one ending on the end token of the split
+        List<KeyRange> splits = Arrays.asList(
+                new KeyRange().setStart_token("a").setEnd_token("e"),
+                new KeyRange().setStart_token("e").setEnd_token("i"));
+        ParallelRangeScan scan = new ParallelRangeScan(new RequestExecutor(ringClient),
+                new ColumnParent("ColumnFamily"), new SlicePredicate(), ConsistencyLevel.ONE, splits, PAGE_SIZE,
+                TokenRing.Partitioner.ORDER_PRESERVING, 2).start();
+        List<String> keys = new ArrayList<String>();
+        while (scan.hasNext()) {
+            keys.add(Charset.forName("UTF-8").decode(scan.next().bufferForKey()).toString());
+            if (keys.size() > RING_KEYS.size()) {
+                fail("The scan did not stop at the end tokens: " + keys);
+            }
+        }
+
+        Collections.sort(keys);
+        assertEquals(Arrays.asList("b", "c", "d", "e", "f", "g", "h", "i"), keys);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testCloseStopsTheWorkers() throws Exception {
+        ParallelRangeScan scan = scan(60000);
+        assertTrue(scan.hasNext());
+        scan.next();
+        scan.close();
+
+        assertFalse(scan.hasNext());
+        assertTrue(scan.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAbandonedScanClosesItself() throws Exception {
+        ParallelRangeScan scan = scan(100);
+        scan.next();
+        // The client never runs out of rows: the workers only stop once the scan has closed itself
+        assertTrue(scan.awaitTermination(5, TimeUnit.SECONDS));
+
+        try {
+            while (scan.hasNext()) {
+                scan.next();
+            }
+            fail("An abandoned scan should not look complete");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+    }
+
+    private ParallelRangeScan scan(long consumerTimeout) {
+        List<KeyRange> splits = Arrays.asList(
+                new KeyRange().setStart_key(key("a")).setEnd_key(key("m")),
+                new KeyRange().setStart_key(key("m")).setEnd_key(key("z")));
+        return new ParallelRangeScan(new RequestExecutor(client), new ColumnParent("ColumnFamily"),
+                new SlicePredicate(), ConsistencyLevel.ONE, splits, PAGE_SIZE, null, 2)
+                .setConsumerTimeout(consumerTimeout).start();
+    }
+
+    private static ByteBuffer key(String key) {
+        return ByteBuffer.wrap(key.getBytes());
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class RangeSliceIteratorTest {
+
+    private static final List<String> KEYS = Arrays.asList("a", "b", "c", "d", "e", "f");
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    /**
+     * Serves the keys of an order preserving ring, where the token of a key is the key itself. Like Cassandra, a
+     * token range excludes its start and includes its end, and wraps around the whole ring when both are equal.
+     */
+    private final Cassandra.Client client = new Cassandra.Client(null) {
+        @Override
+        public List<KeySlice> get_range_slices(ColumnParent columnParent, SlicePredicate predicate, KeyRange range,
+                                               ConsistencyLevel consistencyLevel) {
+            calls.incrementAndGet();
+            String start = range.getStart_token();
+            String end = range.getEnd_token();
+            boolean wraps = start.equals(end);
+            List<KeySlice> page = new ArrayList<KeySlice>();
+            for (String key : KEYS) {
+                if (page.size() < range.getCount()
+                        && (wraps || (key.compareTo(start) > 0 && key.compareTo(end) <= 0))) {
+                    page.add(new KeySlice(ByteBuffer.wrap(key.getBytes()),
+                            Collections.<ColumnOrSuperColumn>emptyList()));
+                }
+            }
+            return page;
+        }
+    };
+
+    @Test
+    public void testTokenScanEndsOnAFullPageEndingOnTheEndToken() {
+        assertEquals(Arrays.asList("b", "c", "d", "e"), scan("a", "e", 2));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testTokenScanEndsOnAShortPage() {
+        assertEquals(Arrays.asList("b", "c", "d"), scan("a", "d", 2));
+        assertEquals(2, calls.get());
+    }
+
+    private List<String> scan(String startToken, String endToken, int pageSize) {
+        RangeSliceIterator iterator = new RangeSliceIterator(new RequestExecutor(client),
+                new ColumnParent("ColumnFamily"), new SlicePredicate(), ConsistencyLevel.ONE,
+                new KeyRange().setStart_token(startToken).setEnd_token(endToken), pageSize,
+                TokenRing.Partitioner.ORDER_PRESERVING);
+        List<String> keys = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            keys.add(Charset.forName("UTF-8").decode(iterator.next().bufferForKey()).toString());
+            if (keys.size() > KEYS.size()) {
+                throw new AssertionError("The scan did not stop at the end token: " + keys);
+            }
+        }
+        return keys;
+    }
+}
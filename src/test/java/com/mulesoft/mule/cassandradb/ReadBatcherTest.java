@@ -0,0 +1,122 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.*;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ReadBatcherTest {
+
+    private final Cassandra.Client client = mock(Cassandra.Client.class);
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    private final ColumnParent columnParent = new ColumnParent("ColumnFamily");
+
+    private final SlicePredicate predicate = new SlicePredicate().setSlice_range(
+            CassandraDBUtils.generateSliceRange(null, null, false, 100));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadsWithinTheWindowShareOneMultiget() throws Exception {
+        Map<ByteBuffer, List<ColumnOrSuperColumn>> rows = new HashMap<ByteBuffer, List<ColumnOrSuperColumn>>();
+        rows.put(key("a"), Collections.singletonList(new ColumnOrSuperColumn()));
+        rows.put(key("b"), Collections.<ColumnOrSuperColumn>emptyList());
+        when(client.multiget_slice(anyList(), any(ColumnParent.class), any(SlicePredicate.class),
+                any(ConsistencyLevel.class))).thenReturn(rows);
+        ReadBatcher batcher = new ReadBatcher(new RequestExecutor(client), 2, 5000);
+
+        Future<List<ColumnOrSuperColumn>> first = threads.submit(read(batcher, "a"));
+        Future<List<ColumnOrSuperColumn>> second = threads.submit(read(batcher, "b"));
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(0, second.get(5, TimeUnit.SECONDS).size());
+        verify(client, times(1)).multiget_slice(anyList(), any(ColumnParent.class), any(SlicePredicate.class),
+                any(ConsistencyLevel.class));
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    public void testInterruptedLeaderFailsTheWholeBatch() throws Exception {
+        final ReadBatcher batcher = new ReadBatcher(new RequestExecutor(client), 100, 60000);
+        final ReadThread leader = new ReadThread(read(batcher, "a"));
+        leader.start();
+        while (batcher.size() == 0) {
+            Thread.sleep(1);
+        }
+        Future<List<ColumnOrSuperColumn>> follower = threads.submit(read(batcher, "b"));
+        while (((ThreadPoolExecutor) threads).getActiveCount() < 1) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        leader.interrupt();
+        leader.join(5000);
+
+        assertTrue(leader.failure instanceof CassandraDBException);
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CassandraDBException);
+        }
+        assertEquals(0, batcher.size());
+        verifyZeroInteractions(client);
+    }
+
+    private Callable<List<ColumnOrSuperColumn>> read(final ReadBatcher batcher, final String key) {
+        return new Callable<List<ColumnOrSuperColumn>>() {
+            @Override
+            public List<ColumnOrSuperColumn> call() throws Exception {
+                return batcher.read(key(key), columnParent, predicate, ConsistencyLevel.ONE);
+            }
+        };
+    }
+
+    private static ByteBuffer key(String key) {
+        return ByteBuffer.wrap(key.getBytes());
+    }
+
+    /**
+     * Runs a read on its own thread, so the test can interrupt it, and keeps its failure.
+     */
+    private static final class ReadThread extends Thread {
+
+        private final Callable<?> read;
+
+        private volatile Exception failure;
+
+        private ReadThread(Callable<?> read) {
+            this.read = read;
+        }
+
+        @Override
+        public void run() {
+            try {
+                read.call();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ReadCoalescerTest {
+
+    private final ReadCoalescer coalescer = new ReadCoalescer();
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @Test
+    public void testConcurrentReadsShareOneCall() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final Object result = new Object();
+        final Callable<Object> read = new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await();
+                return result;
+            }
+        };
+
+        Future<Object> leader = threads.submit(coalesced("key", read));
+        started.await();
+        Future<Object> follower = threads.submit(coalesced("key", read));
+        while (((ThreadPoolExecutor) threads).getActiveCount() < 2) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        release.countDown();
+
+        assertSame(result, leader.get(5, TimeUnit.SECONDS));
+        assertSame(result, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    public void testDifferentKeysAreNotShared() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<Object> read = new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return calls.incrementAndGet();
+            }
+        };
+        assertEquals(1, coalescer.execute("a", read));
+        assertEquals(2, coalescer.execute("b", read));
+        assertEquals(3, coalescer.execute("a", read));
+    }
+
+    @Test
+    public void testFailureIsReportedAndForgotten() throws Exception {
+        try {
+            coalescer.execute("key", new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    throw new CassandraDBException("failed");
+                }
+            });
+            fail();
+        } catch (CassandraDBException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals(0, coalescer.size());
+    }
+
+    private Callable<Object> coalesced(final Object key, final Callable<Object> read) {
+        return new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return coalescer.execute(key, read);
+            }
+        };
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.cassandra.thrift.TimedOutException;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestExecutorTest {
+
+    private StubConnectionPool pool;
+
+    private RequestExecutor executor;
+
+    /**
+     * Hosts the calls were sent to, in order.
+     */
+    private final List<String> attempts = new CopyOnWriteArrayList<String>();
+
+    @After
+    public void tearDownTests() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testGivesTheConnectionBackAfterTheCall() throws Exception {
+        open("a");
+        assertEquals("ok", executor.execute(succeeding()));
+        assertEquals("ok", executor.execute(succeeding()));
+
+        assertEquals(1, pool.transports.size());
+        assertEquals(0, pool.getHostStatistics().get("a").get("inFlight"));
+    }
+
+    @Test
+    public void testRetriesIdempotentCallOnAnotherHost() throws Exception {
+        open("a", "b");
+        executor.setRetryPolicy(retryPolicy(1), new RetryBudget(0.1));
+
+        assertEquals("ok", executor.execute(null, true, failingFirst(new TimedOutException())));
+        assertEquals(2, attempts.size());
+        assertFalse(attempts.get(0).equals(attempts.get(1)));
+    }
+
+    @Test
+    public void testNonIdempotentCallIsNotRetried() throws Exception {
+        open("a", "b");
+        executor.setRetryPolicy(retryPolicy(1), new RetryBudget(0.1));
+
+        try {
+            executor.execute(failingFirst(new TimedOutException()));
+            fail("The timeout should not have been retried");
+        } catch (CassandraDBException e) {
+            assertTrue(e.getCause() instanceof TimedOutException);
+        }
+        assertEquals(1, attempts.size());
+    }
+
+    @Test
+    public void testRetryBudgetLimitsRetries() throws Exception {
+        open("a", "b");
+        executor.setRetryPolicy(retryPolicy(1000), new RetryBudget(0));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                executor.execute(null, true, failingFirst(new TimedOutException()).always());
+                fail();
+            } catch (CassandraDBException e) {
+                assertTrue(e.getCause() instanceof TimedOutException);
+            }
+        }
+        // The first call spends the initial retries, the second one cannot retry
+        assertEquals(RetryBudget.INITIAL_RETRIES + 2, attempts.size());
+    }
+
+    @Test
+    public void testTimeoutCountsAgainstTheHostButKeepsTheConnection() throws Exception {
+        open("a");
+        try {
+            executor.execute(failingFirst(new TimedOutException()));
+            fail();
+        } catch (CassandraDBException e) {
+            assertEquals(CassandraDBConnectionPool.Outcome.SERVER_ERROR, RequestExecutor.outcomeOf(e));
+        }
+
+        assertEquals(1, pool.getHostStatistics().get("a").get("failures"));
+        assertTrue(pool.transports.get(0).isOpen());
+        assertEquals("ok", executor.execute(succeeding()));
+        assertEquals(1, pool.transports.size());
+        assertEquals(0, pool.getHostStatistics().get("a").get("failures"));
+    }
+
+    @Test
+    public void testTransportFailureDiscardsTheConnection() throws Exception {
+        open("a");
+        final List<Cassandra.Client> clients = new CopyOnWriteArrayList<Cassandra.Client>();
+        try {
+            executor.execute(new ClientCallback<String>() {
+                @Override
+                public String doWithClient(Cassandra.Client client) throws Exception {
+                    clients.add(client);
+                    throw new TTransportException("Connection reset");
+                }
+            });
+            fail();
+        } catch (CassandraDBException e) {
+            assertTrue(RequestExecutor.isConnectionFailure(e));
+        }
+
+        assertFalse(pool.transports.get(0).isOpen());
+        executor.execute(new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                clients.add(client);
+                return "ok";
+            }
+        });
+        assertNotSame(clients.get(0), clients.get(1));
+        assertEquals(1, pool.openConnections());
+    }
+
+    @Test
+    public void testApplicationErrorIsNotRetriedAndKeepsTheConnection() throws Exception {
+        open("a", "b");
+        executor.setRetryPolicy(retryPolicy(1), new RetryBudget(0.1));
+        try {
+            executor.execute(null, true, failingFirst(new TApplicationException("Internal error processing get")));
+            fail();
+        } catch (CassandraDBException e) {
+            assertFalse(RequestExecutor.isConnectionFailure(e));
+        }
+
+        assertEquals(1, attempts.size());
+        assertEquals(pool.transports.size(), pool.openConnections());
+    }
+
+    @Test
+    public void testSpeculativeReadCancelsTheLosingRequest() throws Exception {
+        open("a", "b");
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(5, 5, 5);
+        policy.setBaseDelay(400);
+        policy.setMaxDelay(400);
+        executor.setRetryPolicy(policy, new RetryBudget(0.1));
+        SpeculativeExecution speculation = new SpeculativeExecution(20, 0, 4);
+        executor.setSpeculativeExecution(speculation);
+
+        try {
+            // The primary request times out and waits to retry while the second request answers
+            assertEquals("ok", executor.executeRead(null, failingFirst(new TimedOutException())));
+            Thread.sleep(500);
+        } finally {
+            speculation.shutdown();
+        }
+        assertEquals(2, attempts.size());
+        assertEquals(1L, speculation.getStatistics().get("won"));
+        assertEquals(0, pool.getHostStatistics().get("a").get("inFlight"));
+        assertEquals(0, pool.getHostStatistics().get("b").get("inFlight"));
+    }
+
+    private void open(String... hosts) throws Exception {
+        pool = new StubConnectionPool(hosts);
+        pool.setHostRetryInterval(60000);
+        pool.open();
+        executor = new RequestExecutor(pool);
+    }
+
+    private static RetryPolicy retryPolicy(int retries) {
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(retries, retries, retries);
+        policy.setBaseDelay(0);
+        return policy;
+    }
+
+    private ClientCallback<String> succeeding() {
+        return new ClientCallback<String>() {
+            @Override
+            public String doWithClient(Cassandra.Client client) throws Exception {
+                attempts.add(pool.hostOf(client));
+                return "ok";
+            }
+        };
+    }
+
+    private FailingCallback failingFirst(Exception failure) {
+        return new FailingCallback(failure);
+    }
+
+    /**
+     * Fails on its first attempt, or on every attempt, and records the host of each attempt.
+     */
+    private final class FailingCallback implements ClientCallback<String> {
+
+        private final Exception failure;
+
+        private boolean always;
+
+        private FailingCallback(Exception failure) {
+            this.failure = failure;
+        }
+
+        private FailingCallback always() {
+            always = true;
+            return this;
+        }
+
+        @Override
+        public String doWithClient(Cassandra.Client client) throws Exception {
+            attempts.add(pool.hostOf(client));
+            if (always || attempts.size() == 1) {
+                throw failure;
+            }
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import com.mulesoft.mule.cassandradb.RowCache.RowId;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RowCacheTest {
+
+    private final RowCache cache = new RowCache(1024 * 1024, 0);
+
+    private final List<Object> selector = Collections.<Object>singletonList("c1");
+
+    @Test
+    public void testReadOverlappingAWriteToTheRowIsNotCached() {
+        RowId row = row("a");
+        long stamp = cache.stamp(row);
+        cache.invalidate(row);
+        cache.put(row, selector, "value", stamp);
+
+        assertNull(cache.get(row, selector));
+    }
+
+    @Test
+    public void testWriteToAnotherRowDoesNotPreventCaching() {
+        RowId row = row("a");
+        RowId other = otherStripe(row);
+        long stamp = cache.stamp(row);
+        cache.invalidate(other);
+        cache.put(row, selector, "value", stamp);
+
+        assertEquals("value", cache.get(row, selector));
+    }
+
+    @Test
+    public void testBatchMutationInvalidatesItsRows() {
+        RowId row = row("a");
+        long stamp = cache.stamp(row);
+        Map<ByteBuffer, Map<String, Object>> mutationMap = new HashMap<ByteBuffer, Map<String, Object>>();
+        mutationMap.put(key("a"), Collections.<String, Object>singletonMap("ColumnFamily", null));
+        cache.invalidate("Keyspace", mutationMap);
+        cache.put(row, selector, "value", stamp);
+
+        assertNull(cache.get(row, selector));
+    }
+
+    @Test
+    public void testTruncatePreventsCachingOfRunningReads() {
+        RowId row = row("a");
+        long stamp = cache.stamp(row);
+        cache.invalidateColumnFamily("Keyspace", "Other");
+        cache.put(row, selector, "value", stamp);
+
+        assertNull(cache.get(row, selector));
+    }
+
+    private RowId otherStripe(RowId row) {
+        long stamp = cache.stamp(row);
+        for (int i = 0; ; i++) {
+            RowId other = row("b" + i);
+            cache.invalidate(other);
+            if (cache.stamp(row) == stamp) {
+                return other;
+            }
+            stamp = cache.stamp(row);
+        }
+    }
+
+    private static RowId row(String key) {
+        return new RowId("Keyspace", "ColumnFamily", key(key));
+    }
+
+    private static ByteBuffer key(String key) {
+        return ByteBuffer.wrap(key.getBytes());
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.hector.api.Serializer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SerializerRegistryTest {
+
+    @Test
+    public void testListsWithSameContentShareSerializers() throws Exception {
+        Map<String, Serializer> first = SerializerRegistry.resolve(Arrays.asList(
+                new ColumnSerializer("age", "java.lang.Long")));
+        Map<String, Serializer> second = SerializerRegistry.resolve(Arrays.asList(
+                new ColumnSerializer("age", "java.lang.Long")));
+        assertSame(first, second);
+        assertTrue(first.get("age") instanceof LongSerializer);
+    }
+
+    @Test
+    public void testMissingListResolvesToEmptyMap() throws Exception {
+        assertTrue(SerializerRegistry.resolve(null).isEmpty());
+        assertTrue(SerializerRegistry.resolve(Collections.<ColumnSerializer>emptyList()).isEmpty());
+    }
+
+    @Test(expected = CassandraDBException.class)
+    public void testUnknownTypeFails() throws Exception {
+        SerializerRegistry.resolve(Arrays.asList(new ColumnSerializer("age", "com.example.Missing")));
+    }
+}
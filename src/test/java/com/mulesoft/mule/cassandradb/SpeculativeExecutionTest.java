@@ -0,0 +1,66 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpeculativeExecutionTest {
+
+    private SpeculativeExecution speculation;
+
+    @After
+    public void tearDown() {
+        if (speculation != null) {
+            speculation.shutdown();
+        }
+    }
+
+    @Test
+    public void testFixedDelay() {
+        speculation = new SpeculativeExecution(50, 0, 2);
+        for (int i = 0; i < 500; i++) {
+            speculation.recordLatency(i);
+        }
+        assertEquals(50, speculation.getDelay());
+    }
+
+    @Test
+    public void testFixedDelayUntilEnoughSamples() {
+        speculation = new SpeculativeExecution(50, 90, 2);
+        for (int i = 0; i < 10; i++) {
+            speculation.recordLatency(1);
+        }
+        assertEquals(50, speculation.getDelay());
+    }
+
+    @Test
+    public void testPercentileDelay() {
+        speculation = new SpeculativeExecution(50, 90, 2);
+        for (int i = 1; i <= 128; i++) {
+            speculation.recordLatency(i);
+        }
+        assertEquals(116, speculation.getDelay());
+    }
+
+    @Test
+    public void testStatistics() {
+        speculation = new SpeculativeExecution(50, 0, 2);
+        speculation.recordLatency(1);
+        speculation.hedgeFired();
+        speculation.hedgeFired();
+        speculation.hedgeWon();
+        assertEquals(1L, speculation.getStatistics().get("reads"));
+        assertEquals(2L, speculation.getStatistics().get("fired"));
+        assertEquals(1L, speculation.getStatistics().get("won"));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.Cassandra;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.mule.api.ConnectionException;
+import org.mule.api.ConnectionExceptionCode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Connection pool whose connections are stubs that never reach a Cassandra host.
+ */
+class StubConnectionPool extends CassandraDBConnectionPool {
+
+    /**
+     * Hosts whose connections fail to open.
+     */
+    final Set<String> unreachable = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    final List<StubTransport> transports = new CopyOnWriteArrayList<StubTransport>();
+
+    private final Map<Cassandra.Client, String> clientHosts =
+            Collections.synchronizedMap(new IdentityHashMap<Cassandra.Client, String>());
+
+    StubConnectionPool(String... hosts) {
+        super(Arrays.asList(hosts));
+    }
+
+    @Override
+    PooledClient openConnection(String host) throws ConnectionException {
+        if (unreachable.contains(host)) {
+            throw new ConnectionException(ConnectionExceptionCode.CANNOT_REACH, host, "Unable to reach " + host);
+        }
+        Cassandra.Client client = new Cassandra.Client(null);
+        clientHosts.put(client, host);
+        StubTransport transport = new StubTransport();
+        transports.add(transport);
+        return new PooledClient(host, client, transport, getKeyspace());
+    }
+
+    /**
+     * @return the host a client of the pool is connected to.
+     */
+    String hostOf(Cassandra.Client client) {
+        return clientHosts.get(client);
+    }
+
+    /**
+     * @return the number of connections opened and not closed yet.
+     */
+    int openConnections() {
+        int open = 0;
+        for (StubTransport transport : transports) {
+            if (transport.isOpen()) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Transport that is open until closed and cannot carry any data.
+     */
+    static final class StubTransport extends TTransport {
+
+        private volatile boolean open = true;
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void open() {
+            open = true;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws TTransportException {
+            throw new TTransportException("Stub transport");
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws TTransportException {
+            throw new TTransportException("Stub transport");
+        }
+    }
+}
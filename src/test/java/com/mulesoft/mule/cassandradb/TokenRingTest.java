@@ -0,0 +1,93 @@
+/**
+ * Mule Cassandra Connector
+ *
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.mulesoft.mule.cassandradb;
+
+import org.apache.cassandra.thrift.TokenRange;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TokenRingTest {
+
+    private TokenRing ring;
+
+    @Before
+    public void setUpTests() {
+        List<TokenRange> ranges = new ArrayList<TokenRange>();
+        ranges.add(range("m", "t", "host3"));
+        ranges.add(range("t", "c", "host1"));
+        ranges.add(range("c", "m", "host2"));
+        ring = new TokenRing("MyKeyspace", TokenRing.Partitioner.ORDER_PRESERVING, ranges);
+    }
+
+    @Test
+    public void testKeyInsideRange() {
+        assertEquals(Arrays.asList("host2"), ring.getReplicas(key("foo")));
+        assertEquals(Arrays.asList("host3"), ring.getReplicas(key("p")));
+    }
+
+    @Test
+    public void testEndTokenIsInclusive() {
+        assertEquals(Arrays.asList("host2"), ring.getReplicas(key("m")));
+        assertEquals(Arrays.asList("host1"), ring.getReplicas(key("c")));
+    }
+
+    @Test
+    public void testKeyPastLastTokenWrapsAround() {
+        assertEquals(Arrays.asList("host1"), ring.getReplicas(key("zzz")));
+        assertEquals(Arrays.asList("host1"), ring.getReplicas(key("a")));
+    }
+
+    @Test
+    public void testEndpoints() {
+        assertEquals(3, ring.getEndpoints().size());
+        assertTrue(ring.getEndpoints().contains("host1"));
+    }
+
+    @Test
+    public void testRandomPartitionerToken() {
+        BigInteger token = (BigInteger) TokenRing.Partitioner.RANDOM.getToken(key("foo"));
+        assertTrue(token.signum() >= 0);
+        assertEquals(token, TokenRing.Partitioner.RANDOM.parseToken(token.toString()));
+    }
+
+    @Test
+    public void testByteOrderedPartitionerToken() {
+        assertEquals("666f6f", TokenRing.Partitioner.BYTE_ORDERED.getToken(key("foo")));
+    }
+
+    @Test
+    public void testUnknownPartitioner() {
+        assertNull(TokenRing.Partitioner.fromClassName("org.apache.cassandra.dht.Murmur3Partitioner"));
+        assertEquals(TokenRing.Partitioner.RANDOM,
+                TokenRing.Partitioner.fromClassName("org.apache.cassandra.dht.RandomPartitioner"));
+    }
+
+    private static TokenRange range(String start, String end, String endpoint) {
+        TokenRange range = new TokenRange();
+        range.setStart_token(start);
+        range.setEnd_token(end);
+        range.setEndpoints(Arrays.asList(endpoint));
+        return range;
+    }
+
+    private static ByteBuffer key(String key) {
+        return ByteBuffer.wrap(key.getBytes());
+    }
+}